@@ -0,0 +1,470 @@
+package com.github.saleson.fm.swagger.aggregator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.saleson.fm.swagger.aggregator.properties.AggregatorProperties;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpec;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecKey;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import springfox.documentation.spring.web.plugins.Docket;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 聚合多个上游服务的分组文档:
+ * 分组列表与文档都在有界线程池中并发拉取，同一分组同时只有一个请求在途;
+ * 文档保存在有界的LRU中，新鲜期内直接返回，过期后在 stale-while-revalidate 时长内返回旧文档并在后台以
+ * If-None-Match 重新验证，超出后同步拉取; 上游不可用时继续返回旧文档;
+ * 分组列表拉取失败的结果同样缓存 max-age，不可用的上游不会阻塞其他上游分组的请求
+ */
+public class AggregatedSpecSource implements SwaggerSpecSource, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(AggregatedSpecSource.class);
+
+    /**
+     * 聚合后的分组名为 服务名:分组名，上游的默认分组直接使用服务名
+     */
+    public static final String SEPARATOR = ":";
+
+    private static final String RESOURCES_PATH = "/swagger-resources";
+
+    private final AggregatorProperties properties;
+
+    private final UpstreamClient client;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final ExecutorService executor;
+
+    private final long maxAgeNanos;
+
+    private final long staleNanos;
+
+    private final ConcurrentMap<String, Discovery> discoveries = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, CompletableFuture<Discovery>> discovering = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, CompletableFuture<Entry>> fetching = new ConcurrentHashMap<>();
+
+    /**
+     * 按访问顺序淘汰的上游文档
+     */
+    private final LinkedHashMap<String, Entry> entries;
+
+    private final List<String> evicted = new ArrayList<>();
+
+    private volatile Consumer<String> changeListener = group -> {
+    };
+
+    public AggregatedSpecSource(AggregatorProperties properties, UpstreamClient client) {
+        this.properties = properties;
+        this.client = client;
+        this.maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(properties.getMaxAge());
+        this.staleNanos = TimeUnit.MILLISECONDS.toNanos(properties.getStaleWhileRevalidate());
+        int maxEntries = properties.getMaxEntries();
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > maxEntries) {
+                    evicted.add(eldest.getKey());
+                    return true;
+                }
+                return false;
+            }
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(properties.getConcurrency(), properties.getConcurrency(),
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), new ThreadFactory());
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * 分组文档变化或被淘汰时通知，用于清除序列化结果的缓存
+     *
+     * @param changeListener 接收分组名称
+     */
+    public void setChangeListener(Consumer<String> changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * 并发拉取所有上游的分组列表与文档
+     *
+     * @return 全部拉取结束时完成
+     */
+    public CompletableFuture<Void> refresh() {
+        long start = System.nanoTime();
+        List<CompletableFuture<?>> upstreams = new ArrayList<>();
+        for (String upstream : properties.getUpstreams().keySet()) {
+            upstreams.add(discover(upstream).thenCompose(discovery -> {
+                if (discovery == null) {
+                    return CompletableFuture.completedFuture(null);
+                }
+                List<CompletableFuture<Entry>> specs = new ArrayList<>();
+                for (Target target : discovery.targets) {
+                    specs.add(fetch(target));
+                }
+                return CompletableFuture.allOf(specs.toArray(new CompletableFuture[0]));
+            }));
+        }
+        return CompletableFuture.allOf(upstreams.toArray(new CompletableFuture[0])).whenComplete((result, e) -> {
+            int cached;
+            synchronized (entries) {
+                cached = entries.size();
+            }
+            log.info("Aggregated {} specification(s) from {} upstream(s) in {} ms", cached,
+                    properties.getUpstreams().size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        });
+    }
+
+    @Override
+    public Collection<String> groups() {
+        Map<String, CompletableFuture<Discovery>> pending = new LinkedHashMap<>();
+        for (String upstream : properties.getUpstreams().keySet()) {
+            Discovery discovery = discoveries.get(upstream);
+            if (discovery == null) {
+                // 尚未发现的上游并发拉取后等待
+                pending.put(upstream, discover(upstream));
+            } else if (discovery.isExpired()) {
+                discover(upstream);
+            }
+        }
+        List<String> groups = new ArrayList<>();
+        for (String upstream : properties.getUpstreams().keySet()) {
+            Discovery discovery = pending.containsKey(upstream) ? await(pending.get(upstream)) : discoveries.get(upstream);
+            if (discovery != null) {
+                for (Target target : discovery.targets) {
+                    groups.add(target.group);
+                }
+            }
+        }
+        return groups;
+    }
+
+    @Override
+    public SwaggerSpecKey keyFor(String group, HttpServletRequest request) {
+        Target target = target(group);
+        if (target == null || entry(target) == null) {
+            return null;
+        }
+        // 聚合的文档原样返回上游的host与basePath
+        return new SwaggerSpecKey(group, null, null);
+    }
+
+    @Override
+    public SwaggerSpec generate(SwaggerSpecKey key) {
+        Entry entry = lookup(key.getGroup());
+        if (entry == null) {
+            Target target = target(key.getGroup());
+            entry = target == null ? null : await(fetch(target));
+        }
+        if (entry == null) {
+            throw new IllegalStateException("Upstream specification of group " + key.getGroup() + " is unavailable");
+        }
+        return entry.spec;
+    }
+
+    /**
+     * 按新鲜度返回分组文档: 新鲜期内直接返回; 过期后在后台重新验证; 超出 stale-while-revalidate 后同步拉取
+     *
+     * @param target 分组的上游地址
+     * @return 上游不可用且没有旧文档时返回null
+     */
+    private Entry entry(Target target) {
+        Entry entry = lookup(target.group);
+        if (entry == null) {
+            return await(fetch(target));
+        }
+        long age = System.nanoTime() - entry.fetchedAt;
+        if (age > maxAgeNanos) {
+            CompletableFuture<Entry> revalidation = fetch(target);
+            if (age > maxAgeNanos + staleNanos) {
+                Entry revalidated = await(revalidation);
+                return revalidated != null ? revalidated : entry;
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * 只在分组所属的上游(分组名中 : 之前的部分)中查找，不等待其他上游的分组列表
+     */
+    private Target target(String group) {
+        for (String upstream : properties.getUpstreams().keySet()) {
+            if (!group.equals(upstream) && !group.startsWith(upstream + SEPARATOR)) {
+                continue;
+            }
+            Discovery discovery = discoveries.get(upstream);
+            if (discovery == null) {
+                discovery = await(discover(upstream));
+            } else if (discovery.isExpired()) {
+                discover(upstream);
+            }
+            if (discovery == null) {
+                continue;
+            }
+            for (Target target : discovery.targets) {
+                if (target.group.equals(group)) {
+                    return target;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Entry lookup(String group) {
+        synchronized (entries) {
+            return entries.get(group);
+        }
+    }
+
+    private CompletableFuture<Discovery> discover(String upstream) {
+        return singleFlight(discovering, upstream, () -> loadDiscovery(upstream));
+    }
+
+    private CompletableFuture<Entry> fetch(Target target) {
+        return singleFlight(fetching, target.group, () -> load(target));
+    }
+
+    /**
+     * 配置了分组时直接使用，否则请求上游的 /swagger-resources
+     */
+    private Discovery loadDiscovery(String upstream) {
+        AggregatorProperties.Upstream config = properties.getUpstreams().get(upstream);
+        String baseUrl = trimTrailingSlash(config.getUrl());
+        List<Target> targets = new ArrayList<>();
+        if (!config.getGroups().isEmpty()) {
+            for (String group : config.getGroups()) {
+                String location = baseUrl + config.getApiDocsPath()
+                        + (Docket.DEFAULT_GROUP_NAME.equals(group) ? "" : "?group=" + encode(group));
+                targets.add(new Target(groupName(upstream, group), location));
+            }
+            Discovery discovery = new Discovery(targets, false);
+            discoveries.put(upstream, discovery);
+            return discovery;
+        }
+        Discovery previous = discoveries.get(upstream);
+        try {
+            UpstreamClient.Response response = client.get(baseUrl + RESOURCES_PATH, null);
+            for (JsonNode resource : objectMapper.readTree(response.getBody())) {
+                String url = resource.path("url").asText("");
+                String location = url.startsWith("http://") || url.startsWith("https://")
+                        ? url : baseUrl + (url.startsWith("/") ? url : "/" + url);
+                targets.add(new Target(groupName(upstream, resource.path("name").asText()), location));
+            }
+        } catch (IOException e) {
+            log.warn("Could not discover swagger groups of upstream {}: {}", upstream, e.toString());
+            // 失败的结果也缓存 max-age，期间保留之前的分组，之前没有时为空，过期后在后台重试
+            Discovery failed = new Discovery(previous == null
+                    ? Collections.<Target>emptyList() : previous.targets, true);
+            discoveries.put(upstream, failed);
+            return failed;
+        }
+        Discovery discovery = new Discovery(targets, true);
+        discoveries.put(upstream, discovery);
+        return discovery;
+    }
+
+    /**
+     * 拉取上游文档，已有旧文档时发送条件请求; 内容未变时只刷新新鲜期
+     */
+    private Entry load(Target target) {
+        Entry previous = lookup(target.group);
+        try {
+            UpstreamClient.Response response = client.get(target.location, previous == null ? null : previous.etag);
+            if (response.isNotModified()) {
+                if (previous == null) {
+                    throw new IOException("Upstream " + target.location + " responded 304 to an unconditional request");
+                }
+                previous.fetchedAt = System.nanoTime();
+                return previous;
+            }
+            SwaggerSpec spec = new SwaggerSpec(new SwaggerSpecKey(target.group, null, null), response.getBody());
+            if (previous != null && previous.spec.getETag().equals(spec.getETag())) {
+                // 上游不支持条件请求但内容未变，保留已编码的旧文档
+                previous.fetchedAt = System.nanoTime();
+                return previous;
+            }
+            Entry entry = new Entry(spec, response.getEtag());
+            store(target.group, entry);
+            if (previous != null) {
+                changeListener.accept(target.group);
+            }
+            return entry;
+        } catch (IOException e) {
+            if (previous != null) {
+                log.warn("Could not revalidate swagger specification {} from {}, serving stale copy: {}",
+                        target.group, target.location, e.toString());
+                return previous;
+            }
+            log.warn("Could not fetch swagger specification {} from {}: {}", target.group, target.location, e.toString());
+            return null;
+        }
+    }
+
+    private void store(String group, Entry entry) {
+        List<String> removed;
+        synchronized (entries) {
+            entries.put(group, entry);
+            if (evicted.isEmpty()) {
+                return;
+            }
+            removed = new ArrayList<>(evicted);
+            evicted.clear();
+        }
+        for (String each : removed) {
+            changeListener.accept(each);
+        }
+    }
+
+    private <T> CompletableFuture<T> singleFlight(ConcurrentMap<String, CompletableFuture<T>> inflight, String key, Supplier<T> loader) {
+        CompletableFuture<T> created = new CompletableFuture<>();
+        CompletableFuture<T> existing = inflight.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    created.complete(loader.get());
+                } catch (RuntimeException e) {
+                    created.completeExceptionally(e);
+                } finally {
+                    inflight.remove(key, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inflight.remove(key, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            log.warn("Swagger aggregation failed", e.getCause());
+            return null;
+        }
+    }
+
+    private static String groupName(String upstream, String group) {
+        return Docket.DEFAULT_GROUP_NAME.equals(group) ? upstream : upstream + SEPARATOR + group;
+    }
+
+    private static String trimTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+
+    private static String encode(String value) {
+        try {
+            return URLEncoder.encode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * 上游的一个分组
+     */
+    private static class Target {
+
+        private final String group;
+
+        private final String location;
+
+        Target(String group, String location) {
+            this.group = group;
+            this.location = location;
+        }
+    }
+
+    /**
+     * 上游的分组列表，配置的分组不会过期
+     */
+    private class Discovery {
+
+        private final List<Target> targets;
+
+        private final boolean expiring;
+
+        private final long fetchedAt = System.nanoTime();
+
+        Discovery(List<Target> targets, boolean expiring) {
+            this.targets = Collections.unmodifiableList(targets);
+            this.expiring = expiring;
+        }
+
+        boolean isExpired() {
+            return expiring && System.nanoTime() - fetchedAt > maxAgeNanos;
+        }
+    }
+
+    /**
+     * 缓存的上游文档
+     */
+    private static class Entry {
+
+        private final SwaggerSpec spec;
+
+        /**
+         * 上游返回的ETag，用于条件请求
+         */
+        private final String etag;
+
+        private volatile long fetchedAt = System.nanoTime();
+
+        Entry(SwaggerSpec spec, String etag) {
+            this.spec = spec;
+            this.etag = etag;
+        }
+    }
+
+    /**
+     * 守护线程，不阻止应用退出
+     */
+    private static class ThreadFactory implements java.util.concurrent.ThreadFactory {
+
+        private final AtomicInteger sequence = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "swagger-aggregator-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
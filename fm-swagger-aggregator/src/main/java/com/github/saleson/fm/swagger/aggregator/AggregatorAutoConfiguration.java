@@ -0,0 +1,83 @@
+package com.github.saleson.fm.swagger.aggregator;
+
+import com.github.saleson.fm.swagger.aggregator.properties.AggregatorProperties;
+import com.github.saleson.fm.swagger.configuration.SwaggerWebConfiguration;
+import com.github.saleson.fm.swagger.configuration.prebuilt.PrebuiltApiResourceController;
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecCache;
+import com.github.saleson.fm.swagger.configuration.web.SwaggerSpecResourcesProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import springfox.documentation.swagger.web.SwaggerResourcesProvider;
+
+/**
+ * 文档聚合网关: 从配置的上游服务拉取分组文档，经由同一套缓存与 /v2/api-docs、/swagger-resources 接口提供;
+ * 聚合网关自身不扫描文档，不要同时开启 swagger.enabled
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "swagger.aggregator.enabled")
+@Import({SwaggerWebConfiguration.class})
+public class AggregatorAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public AggregatorProperties aggregatorProperties() {
+        return new AggregatorProperties();
+    }
+
+    /**
+     * 文档接口的http响应配置沿用 swagger.http
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public SwaggerProperties swaggerProperties() {
+        return new SwaggerProperties();
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public UpstreamClient upstreamClient(AggregatorProperties aggregatorProperties) {
+        return new UpstreamClient(aggregatorProperties.getConnectTimeout(), aggregatorProperties.getReadTimeout());
+    }
+
+    @Bean
+    public AggregatedSpecSource aggregatedSpecSource(AggregatorProperties aggregatorProperties, UpstreamClient upstreamClient) {
+        return new AggregatedSpecSource(aggregatorProperties, upstreamClient);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SwaggerSpecCache swaggerSpecCache(AggregatedSpecSource aggregatedSpecSource, AggregatorProperties aggregatorProperties) {
+        SwaggerSpecCache cache = new SwaggerSpecCache(aggregatedSpecSource, aggregatorProperties.getMaxEntries());
+        aggregatedSpecSource.setChangeListener(cache::invalidate);
+        return cache;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SwaggerResourcesProvider swaggerResourcesProvider(
+            SwaggerSpecCache swaggerSpecCache, Environment environment, SwaggerProperties swaggerProperties) {
+        return new SwaggerSpecResourcesProvider(swaggerSpecCache, environment, swaggerProperties);
+    }
+
+    @Bean
+    public PrebuiltApiResourceController prebuiltApiResourceController(SwaggerResourcesProvider swaggerResourcesProvider) {
+        return new PrebuiltApiResourceController(swaggerResourcesProvider);
+    }
+
+    /**
+     * 应用启动完成后并发预取所有上游的文档
+     */
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> aggregatorPrefetch(AggregatedSpecSource aggregatedSpecSource) {
+        return event -> aggregatedSpecSource.refresh();
+    }
+}
@@ -0,0 +1,105 @@
+package com.github.saleson.fm.swagger.aggregator;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 请求上游服务，带连接与读取超时;
+ * 传入上次响应的ETag时发送 If-None-Match，上游返回304时不传输文档内容
+ */
+public class UpstreamClient {
+
+    private final int connectTimeout;
+
+    private final int readTimeout;
+
+    /**
+     * @param connectTimeout 连接超时，毫秒
+     * @param readTimeout    读取超时，毫秒
+     */
+    public UpstreamClient(int connectTimeout, int readTimeout) {
+        this.connectTimeout = connectTimeout;
+        this.readTimeout = readTimeout;
+    }
+
+    /**
+     * 发送GET请求
+     *
+     * @param url  地址
+     * @param etag 上次响应的ETag，为null时不发送条件请求
+     * @return 上游的响应
+     * @throws IOException 连接失败、超时或上游返回200与304以外的状态
+     */
+    public Response get(String url, String etag) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setConnectTimeout(connectTimeout);
+            connection.setReadTimeout(readTimeout);
+            connection.setRequestProperty(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE);
+            connection.setRequestProperty(HttpHeaders.ACCEPT_ENCODING, "gzip");
+            if (etag != null) {
+                connection.setRequestProperty(HttpHeaders.IF_NONE_MATCH, etag);
+            }
+            int status = connection.getResponseCode();
+            if (status == HttpURLConnection.HTTP_NOT_MODIFIED) {
+                return new Response(status, etag, null);
+            }
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("Upstream " + url + " responded with status " + status);
+            }
+            try (InputStream in = body(connection)) {
+                return new Response(status, connection.getHeaderField(HttpHeaders.ETAG), StreamUtils.copyToByteArray(in));
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static InputStream body(HttpURLConnection connection) throws IOException {
+        InputStream in = connection.getInputStream();
+        return "gzip".equalsIgnoreCase(connection.getContentEncoding()) ? new GZIPInputStream(in) : in;
+    }
+
+    /**
+     * 上游的响应
+     */
+    public static class Response {
+
+        private final int status;
+
+        private final String etag;
+
+        private final byte[] body;
+
+        Response(int status, String etag, byte[] body) {
+            this.status = status;
+            this.etag = etag;
+            this.body = body;
+        }
+
+        public boolean isNotModified() {
+            return status == HttpURLConnection.HTTP_NOT_MODIFIED;
+        }
+
+        /**
+         * @return 上游返回的ETag，没有时为null
+         */
+        public String getEtag() {
+            return etag;
+        }
+
+        /**
+         * @return 响应内容，304时为null
+         */
+        public byte[] getBody() {
+            return body;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.github.saleson.fm.swagger.aggregator.properties;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties("swagger.aggregator")
+public class AggregatorProperties {
+
+    /**
+     * 是否开启文档聚合
+     **/
+    private boolean enabled;
+
+    /**
+     * 上游服务，key为服务名，聚合后的分组名为 服务名 或 服务名:分组名
+     **/
+    private Map<String, Upstream> upstreams = new LinkedHashMap<>();
+
+    /**
+     * 连接上游的超时时间，毫秒，默认 2000
+     **/
+    private int connectTimeout = 2000;
+
+    /**
+     * 读取上游响应的超时时间，毫秒，默认 5000
+     **/
+    private int readTimeout = 5000;
+
+    /**
+     * 同时请求上游的线程数，默认 8
+     **/
+    private int concurrency = 8;
+
+    /**
+     * 内存中最多保留的上游文档数量，超出时淘汰最久未访问的文档，默认 64
+     **/
+    private int maxEntries = 64;
+
+    /**
+     * 上游文档与分组列表的新鲜期，毫秒，默认 60000
+     **/
+    private long maxAge = 60000;
+
+    /**
+     * 过期后仍直接返回旧文档、同时在后台向上游重新验证的时长，毫秒，默认 600000;
+     * 超出后请求时同步拉取，上游不可用时继续返回旧文档
+     **/
+    private long staleWhileRevalidate = 600000;
+
+    @Data
+    @NoArgsConstructor
+    public static class Upstream {
+
+        /**
+         * 服务地址，例如 http://user-service:8080
+         **/
+        private String url;
+
+        /**
+         * 需要聚合的分组，为空时从上游的 /swagger-resources 发现
+         **/
+        private List<String> groups = new ArrayList<>();
+
+        /**
+         * 上游的文档路径，默认 /v2/api-docs
+         **/
+        private String apiDocsPath = "/v2/api-docs";
+    }
+}
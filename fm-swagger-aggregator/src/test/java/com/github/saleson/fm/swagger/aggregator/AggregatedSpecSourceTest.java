@@ -0,0 +1,280 @@
+package com.github.saleson.fm.swagger.aggregator;
+
+import com.github.saleson.fm.swagger.aggregator.properties.AggregatorProperties;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpec;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecCache;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecKey;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 分组发现、新鲜期与 stale-while-revalidate、LRU淘汰，以及不可用的上游不阻塞其他上游
+ */
+class AggregatedSpecSourceTest {
+
+    private static final String DOCS = "/v2/api-docs";
+
+    private final List<StubUpstream> upstreams = new ArrayList<>();
+
+    private final List<AggregatedSpecSource> sources = new ArrayList<>();
+
+    /**
+     * changeListener 收到的分组
+     */
+    private final List<String> changes = new CopyOnWriteArrayList<>();
+
+    private StubUpstream user;
+
+    private AggregatorProperties properties;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        user = upstream();
+        properties = new AggregatorProperties();
+        properties.setConnectTimeout(1000);
+        properties.setReadTimeout(5000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (AggregatedSpecSource source : sources) {
+            source.destroy();
+        }
+        for (StubUpstream upstream : upstreams) {
+            upstream.close();
+        }
+    }
+
+    @Test
+    void discoversGroupsFromSwaggerResources() {
+        user.resource("/swagger-resources").body("[{\"name\":\"default\",\"url\":\"/v2/api-docs\"},"
+                + "{\"name\":\"admin\",\"url\":\"v2/api-docs?group=admin\"}]", null);
+        user.spec(DOCS, "user");
+        user.spec(DOCS + "?group=admin", "admin");
+        addUpstream("user", user);
+        AggregatedSpecSource source = source();
+
+        assertEquals(Arrays.asList("user", "user:admin"), new ArrayList<>(source.groups()));
+        assertEquals(title("admin"), content(source.generate(key("user:admin"))));
+        assertEquals(title("user"), content(source.generate(key("user"))));
+        assertNull(source.keyFor("user:unknown", request()));
+        assertNull(source.keyFor("other", request()));
+        assertEquals(1, user.requests("/swagger-resources").size());
+    }
+
+    @Test
+    void configuredGroupsSkipDiscovery() {
+        user.spec(DOCS, "user");
+        user.spec(DOCS + "?group=admin", "admin");
+        addUpstream("user", user, "default", "admin");
+        AggregatedSpecSource source = source();
+
+        assertEquals(Arrays.asList("user", "user:admin"), new ArrayList<>(source.groups()));
+        assertEquals(title("admin"), content(source.generate(key("user:admin"))));
+        assertEquals(0, user.requests("/swagger-resources").size());
+    }
+
+    @Test
+    void revalidatesWithIfNoneMatchAfterMaxAge() throws InterruptedException {
+        user.spec(DOCS, "v1");
+        addUpstream("user", user, "default");
+        properties.setMaxAge(300);
+        AggregatedSpecSource source = source();
+
+        assertNotNull(source.keyFor("user", request()));
+        assertNull(user.requests(DOCS).get(0).ifNoneMatch);
+        // 新鲜期内不请求上游
+        assertNotNull(source.keyFor("user", request()));
+        assertEquals(1, user.requests(DOCS).size());
+
+        TimeUnit.MILLISECONDS.sleep(350);
+        assertNotNull(source.keyFor("user", request()));
+        assertTrue(user.awaitRequests(DOCS, 2, 2000));
+        assertEquals("\"v1\"", user.requests(DOCS).get(1).ifNoneMatch);
+
+        // 304 刷新新鲜期，内容未变不通知
+        TimeUnit.MILLISECONDS.sleep(50);
+        assertNotNull(source.keyFor("user", request()));
+        assertEquals(2, user.requests(DOCS).size());
+        assertEquals(title("v1"), content(source.generate(key("user"))));
+        assertEquals(Collections.emptyList(), changes);
+    }
+
+    @Test
+    void servesStaleCopyWhileRevalidating() throws InterruptedException {
+        user.spec(DOCS, "v1");
+        addUpstream("user", user, "default");
+        properties.setMaxAge(200);
+        AggregatedSpecSource source = source();
+        assertNotNull(source.keyFor("user", request()));
+
+        user.spec(DOCS, "v2").hold();
+        TimeUnit.MILLISECONDS.sleep(250);
+        long start = System.nanoTime();
+        assertNotNull(source.keyFor("user", request()));
+        assertEquals(title("v1"), content(source.generate(key("user"))));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        // 后台的重新验证仍在进行
+        assertTrue(user.awaitRequests(DOCS, 2, 2000));
+        assertEquals(Collections.emptyList(), changes);
+
+        user.resource(DOCS).release();
+        assertTrue(awaitChange("user"));
+        assertEquals(title("v2"), content(source.generate(key("user"))));
+        assertEquals(2, user.requests(DOCS).size());
+    }
+
+    @Test
+    void fetchesSynchronouslyAfterStaleWindow() throws InterruptedException {
+        user.spec(DOCS, "v1");
+        addUpstream("user", user, "default");
+        properties.setMaxAge(100);
+        properties.setStaleWhileRevalidate(100);
+        AggregatedSpecSource source = source();
+        assertNotNull(source.keyFor("user", request()));
+
+        user.spec(DOCS, "v2");
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertNotNull(source.keyFor("user", request()));
+        // 返回前已拉取新文档
+        assertEquals(2, user.requests(DOCS).size());
+        assertEquals(title("v2"), content(source.generate(key("user"))));
+        assertEquals(Collections.singletonList("user"), changes);
+
+        // 上游不可用时继续返回旧文档
+        user.resource(DOCS).status(503);
+        TimeUnit.MILLISECONDS.sleep(300);
+        assertNotNull(source.keyFor("user", request()));
+        assertEquals(3, user.requests(DOCS).size());
+        assertEquals(title("v2"), content(source.generate(key("user"))));
+    }
+
+    @Test
+    void lruEvictionInvalidatesSpecCache() {
+        for (String group : Arrays.asList("g1", "g2", "g3")) {
+            user.spec(DOCS + "?group=" + group, group);
+        }
+        addUpstream("user", user, "g1", "g2", "g3");
+        properties.setMaxEntries(2);
+        AggregatedSpecSource source = source();
+        SwaggerSpecCache cache = new SwaggerSpecCache(source, 100);
+        source.setChangeListener(group -> {
+            changes.add(group);
+            cache.invalidate(group);
+        });
+
+        cache.get("user:g1", request());
+        cache.get("user:g2", request());
+        assertEquals(2, cache.size());
+        assertEquals(Collections.emptyList(), changes);
+
+        cache.get("user:g3", request());
+        // g1 在上游文档中被淘汰，序列化结果一并清除
+        assertEquals(Collections.singletonList("user:g1"), changes);
+        assertEquals(2, cache.size());
+
+        assertEquals(title("g1"), content(cache.get("user:g1", request())));
+        assertEquals(2, user.requests(DOCS + "?group=g1").size());
+        assertEquals(Arrays.asList("user:g1", "user:g2"), changes);
+        assertEquals(1, user.requests(DOCS + "?group=g3").size());
+    }
+
+    @Test
+    void slowUpstreamDoesNotBlockHealthyOne() throws IOException {
+        StubUpstream slow = upstream();
+        slow.resource("/swagger-resources").body("[]", null).hold();
+        user.spec(DOCS, "user");
+        addUpstream("slow", slow);
+        addUpstream("user", user, "default");
+        AggregatedSpecSource source = source();
+
+        source.refresh();
+        long start = System.nanoTime();
+        assertNotNull(source.keyFor("user", request()));
+        assertEquals(title("user"), content(source.generate(key("user"))));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+        assertEquals(1, slow.requests("/swagger-resources").size());
+    }
+
+    @Test
+    void unreachableUpstreamIsSkipped() throws IOException {
+        StubUpstream dead = upstream();
+        dead.close();
+        user.spec(DOCS, "user");
+        addUpstream("dead", dead);
+        addUpstream("user", user, "default");
+        AggregatedSpecSource source = source();
+
+        assertEquals(Collections.singletonList("user"), new ArrayList<>(source.groups()));
+        assertNull(source.keyFor("dead", request()));
+        assertEquals(title("user"), content(source.generate(key("user"))));
+    }
+
+    private boolean awaitChange(String group) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (!changes.contains(group)) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        return true;
+    }
+
+    private StubUpstream upstream() throws IOException {
+        StubUpstream upstream = new StubUpstream();
+        upstreams.add(upstream);
+        return upstream;
+    }
+
+    private void addUpstream(String name, StubUpstream upstream, String... groups) {
+        AggregatorProperties.Upstream config = new AggregatorProperties.Upstream();
+        config.setUrl(upstream.url() + "/");
+        config.getGroups().addAll(Arrays.asList(groups));
+        properties.getUpstreams().put(name, config);
+    }
+
+    private AggregatedSpecSource source() {
+        AggregatedSpecSource source = new AggregatedSpecSource(properties,
+                new UpstreamClient(properties.getConnectTimeout(), properties.getReadTimeout()));
+        source.setChangeListener(changes::add);
+        sources.add(source);
+        return source;
+    }
+
+    private static SwaggerSpecKey key(String group) {
+        return new SwaggerSpecKey(group, null, null);
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", DOCS);
+    }
+
+    private static String title(String title) {
+        return "{\"swagger\":\"2.0\",\"info\":{\"title\":\"" + title + "\"}}";
+    }
+
+    private static String content(SwaggerSpec spec) {
+        ByteBuffer content = spec.content();
+        byte[] bytes = new byte[content.remaining()];
+        content.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,204 @@
+package com.github.saleson.fm.swagger.aggregator;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于JDK HttpServer的上游服务，按请求地址(路径与查询参数)返回设定的内容，记录收到的请求
+ */
+class StubUpstream implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "stub-upstream");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, Resource> resources = new ConcurrentHashMap<>();
+
+    private final List<Request> requests = new CopyOnWriteArrayList<>();
+
+    /**
+     * 阻塞中的响应，关闭时放行
+     */
+    private final List<CountDownLatch> gates = new CopyOnWriteArrayList<>();
+
+    StubUpstream() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * @return 服务地址，例如 http://127.0.0.1:12345
+     */
+    String url() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+    }
+
+    /**
+     * @param uri 请求地址，包含查询参数
+     * @return 该地址的响应设定，不存在时创建
+     */
+    Resource resource(String uri) {
+        return resources.computeIfAbsent(uri, key -> new Resource());
+    }
+
+    /**
+     * 返回 swagger 2.0 文档，ETag 为带引号的 title
+     */
+    Resource spec(String uri, String title) {
+        return resource(uri).body("{\"swagger\":\"2.0\",\"info\":{\"title\":\"" + title + "\"}}", "\"" + title + "\"");
+    }
+
+    /**
+     * @param uri 请求地址，包含查询参数
+     * @return 该地址收到的请求
+     */
+    List<Request> requests(String uri) {
+        List<Request> matched = new ArrayList<>();
+        for (Request request : requests) {
+            if (request.uri.equals(uri)) {
+                matched.add(request);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 等待该地址收到的请求数达到 count
+     */
+    boolean awaitRequests(String uri, int count, long timeoutMillis) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (requests(uri).size() < count) {
+            if (System.nanoTime() > deadline) {
+                return false;
+            }
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        return true;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String uri = exchange.getRequestURI().toString();
+        Request request = new Request(uri, exchange.getRequestHeaders().getFirst("If-None-Match"));
+        requests.add(request);
+        try {
+            Resource resource = resources.get(uri);
+            if (resource == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            CountDownLatch gate = resource.gate;
+            if (gate != null) {
+                gate.await(10, TimeUnit.SECONDS);
+            }
+            if (resource.status != 200) {
+                exchange.sendResponseHeaders(resource.status, -1);
+                return;
+            }
+            if (resource.etag != null) {
+                exchange.getResponseHeaders().set("ETag", resource.etag);
+                if (resource.etag.equals(request.ifNoneMatch)) {
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+            }
+            byte[] body = resource.body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        for (CountDownLatch gate : gates) {
+            gate.countDown();
+        }
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * 一个地址的响应设定
+     */
+    class Resource {
+
+        private volatile String body = "";
+
+        private volatile String etag;
+
+        private volatile int status = 200;
+
+        private volatile CountDownLatch gate;
+
+        Resource body(String body, String etag) {
+            this.body = body;
+            this.etag = etag;
+            return this;
+        }
+
+        Resource status(int status) {
+            this.status = status;
+            return this;
+        }
+
+        /**
+         * 之后的请求阻塞到返回的latch放行
+         */
+        CountDownLatch hold() {
+            CountDownLatch gate = new CountDownLatch(1);
+            gates.add(gate);
+            this.gate = gate;
+            return gate;
+        }
+
+        void release() {
+            CountDownLatch gate = this.gate;
+            this.gate = null;
+            if (gate != null) {
+                gate.countDown();
+            }
+        }
+    }
+
+    /**
+     * 收到的请求
+     */
+    static class Request {
+
+        final String uri;
+
+        final String ifNoneMatch;
+
+        Request(String uri, String ifNoneMatch) {
+            this.uri = uri;
+            this.ifNoneMatch = ifNoneMatch;
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.github.saleson.fm.swagger.aggregator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 条件请求、非200与304状态、读取超时
+ */
+class UpstreamClientTest {
+
+    private StubUpstream upstream;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        upstream = new StubUpstream();
+    }
+
+    @AfterEach
+    void tearDown() {
+        upstream.close();
+    }
+
+    @Test
+    void sendsIfNoneMatchAndHandlesNotModified() throws IOException {
+        upstream.spec("/v2/api-docs", "v1");
+        UpstreamClient client = new UpstreamClient(1000, 1000);
+
+        UpstreamClient.Response response = client.get(upstream.url() + "/v2/api-docs", null);
+        assertFalse(response.isNotModified());
+        assertEquals("\"v1\"", response.getEtag());
+        assertEquals("{\"swagger\":\"2.0\",\"info\":{\"title\":\"v1\"}}",
+                new String(response.getBody(), StandardCharsets.UTF_8));
+
+        UpstreamClient.Response revalidated = client.get(upstream.url() + "/v2/api-docs", "\"v1\"");
+        assertTrue(revalidated.isNotModified());
+        assertEquals("\"v1\"", revalidated.getEtag());
+        assertNull(revalidated.getBody());
+        assertEquals("\"v1\"", upstream.requests("/v2/api-docs").get(1).ifNoneMatch);
+    }
+
+    @Test
+    void failsOnUnexpectedStatus() {
+        upstream.resource("/v2/api-docs").status(500);
+        UpstreamClient client = new UpstreamClient(1000, 1000);
+
+        IOException e = assertThrows(IOException.class, () -> client.get(upstream.url() + "/v2/api-docs", null));
+        assertTrue(e.getMessage().contains("500"), e.getMessage());
+    }
+
+    @Test
+    void failsOnReadTimeout() {
+        upstream.spec("/v2/api-docs", "v1").hold();
+        UpstreamClient client = new UpstreamClient(1000, 200);
+
+        long start = System.nanoTime();
+        assertThrows(SocketTimeoutException.class, () -> client.get(upstream.url() + "/v2/api-docs", null));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 150 && elapsed < 2000, elapsed + " ms");
+    }
+}
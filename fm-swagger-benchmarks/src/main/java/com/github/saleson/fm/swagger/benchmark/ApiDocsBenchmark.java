@@ -0,0 +1,126 @@
+package com.github.saleson.fm.swagger.benchmark;
+
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpec;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecGenerator;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecKey;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端的 /v2/api-docs：启动带合成接口的应用后，
+ * generate 测量springfox模型转换与Jackson序列化(不经过缓存)，stream 测量流式写出(不生成完整的字节数组)，
+ * fetch 测量经过缓存的http请求
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiDocsBenchmark {
+
+    private static final String GROUP = "group0";
+
+    @Param({"100", "1000"})
+    private int endpoints;
+
+    private ConfigurableApplicationContext context;
+
+    private SwaggerSpecGenerator generator;
+
+    private SwaggerSpecKey key;
+
+    private URL url;
+
+    private final byte[] buffer = new byte[64 * 1024];
+
+    @Setup
+    public void setup() {
+        Map<String, Object> properties = BenchmarkProperties.properties(4);
+        properties.put("benchmark.endpoints", endpoints);
+        properties.put("server.port", 0);
+        properties.put("logging.level.root", "warn");
+        context = new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .properties(properties)
+                .run();
+        generator = context.getBean(SwaggerSpecGenerator.class);
+        key = new SwaggerSpecKey(GROUP, "localhost", "/");
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        try {
+            url = new URL("http://localhost:" + port + "/v2/api-docs?group=" + GROUP);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public SwaggerSpec generate() {
+        return generator.generate(key);
+    }
+
+    @Benchmark
+    public long stream() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        generator.writeTo(key, out);
+        return out.count;
+    }
+
+    @Benchmark
+    public long fetch() throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        long length = 0;
+        try (InputStream in = connection.getInputStream()) {
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                length += n;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * 只统计字节数的输出流，排除写入目标本身的开销
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
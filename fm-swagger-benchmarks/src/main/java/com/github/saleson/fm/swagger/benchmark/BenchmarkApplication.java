@@ -0,0 +1,29 @@
+package com.github.saleson.fm.swagger.benchmark;
+
+import com.github.saleson.fm.swagger.benchmark.rest.SyntheticEndpoints;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * 端到端基准测试启动的应用，启动时按 benchmark.endpoints 生成接口，在springfox扫描之前注册到handler mapping
+ */
+@SpringBootApplication
+public class BenchmarkApplication {
+
+    @Bean
+    public SmartInitializingSingleton syntheticEndpointRegistrar(
+            ApplicationContext applicationContext,
+            RequestMappingHandlerMapping requestMappingHandlerMapping,
+            @Value("${benchmark.endpoints:0}") int endpoints) {
+        return () -> {
+            for (SyntheticEndpoints.Endpoint endpoint : SyntheticEndpoints.generate(endpoints)) {
+                requestMappingHandlerMapping.registerMapping(endpoint.getMapping(),
+                        applicationContext.getBean(endpoint.getController()), endpoint.getMethod());
+            }
+        };
+    }
+}
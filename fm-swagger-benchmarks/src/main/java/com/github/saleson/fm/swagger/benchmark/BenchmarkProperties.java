@@ -0,0 +1,62 @@
+package com.github.saleson.fm.swagger.benchmark;
+
+import com.github.saleson.fm.swagger.benchmark.rest.SyntheticEndpoints;
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 基准测试使用的swagger配置，与示例工程的配置结构一致;
+ * 分组依次选取 v100 ~ v103 包下的接口，启动应用与直接构建docket共用同一份配置
+ */
+public final class BenchmarkProperties {
+
+    private static final String BASE_PACKAGE = "com.github.saleson.fm.swagger.benchmark.rest";
+
+    private BenchmarkProperties() {
+    }
+
+    /**
+     * @param groups 分组数量，为0时不分组
+     * @return 配置项
+     */
+    public static Map<String, Object> properties(int groups) {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        properties.put("swagger.enabled", "true");
+        properties.put("swagger.api-info.title", "benchmark");
+        properties.put("swagger.api-info.version", "last");
+        properties.put("swagger.api-info.contact.name", "benchmark");
+        properties.put("swagger.global-response-message.all[0].code", "0");
+        properties.put("swagger.global-response-message.all[0].message", "失败");
+        properties.put("swagger.global-response-message.get[0].code", "1");
+        properties.put("swagger.global-response-message.get[0].message", "成功");
+        properties.put("swagger.global-operation-parameters[0].name", "accessToken");
+        properties.put("swagger.global-operation-parameters[0].description", "访问令牌");
+        properties.put("swagger.global-operation-parameters[0].parameter-type", "header");
+        properties.put("swagger.global-operation-parameters[0].model-ref", "string");
+        for (int i = 0; i < groups; i++) {
+            String version = SyntheticEndpoints.version(SyntheticEndpoints.CONTROLLERS.get(i % SyntheticEndpoints.CONTROLLERS.size()));
+            String prefix = "swagger.docket.group" + i + ".";
+            properties.put(prefix + "api-info.title", "group" + i);
+            properties.put(prefix + "api-info.version", version);
+            properties.put(prefix + "docket-select.base-package", BASE_PACKAGE + "." + version);
+            properties.put(prefix + "docket-select.base-path[0]", "/api/" + version + "/**");
+            properties.put(prefix + "docket-select.base-path[1]", "/" + version + "/**");
+            properties.put(prefix + "docket-select.exclude-path[0]", "/api/*/resource0/**");
+        }
+        return properties;
+    }
+
+    /**
+     * @param groups 分组数量，为0时不分组
+     * @return 绑定后的swagger配置
+     */
+    public static SwaggerProperties swaggerProperties(int groups) {
+        return new Binder(new MapConfigurationPropertySource(properties(groups)))
+                .bind("swagger", SwaggerProperties.class)
+                .get();
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.saleson.fm.swagger.benchmark;
+
+import com.github.saleson.fm.swagger.configuration.SwaggerAutoConfiguration;
+import com.github.saleson.fm.swagger.configuration.bootstrap.DocumentationBootstrapReport;
+import com.github.saleson.fm.swagger.configuration.bootstrap.DocumentationInterner;
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import springfox.documentation.spring.web.plugins.Docket;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * createRestApi 按分组数量构建docket的耗时，不包含springfox扫描
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocketBuildBenchmark {
+
+    @Param({"1", "10", "100"})
+    private int groups;
+
+    private SwaggerProperties swaggerProperties;
+
+    private DocumentationInterner interner;
+
+    @Setup
+    public void setup() {
+        swaggerProperties = BenchmarkProperties.swaggerProperties(groups);
+        interner = new DocumentationInterner(swaggerProperties.getBuild().isIntern());
+    }
+
+    @Benchmark
+    public List<Docket> createRestApi() {
+        // 每次使用新的BeanFactory，docket以分组名称注册为单例
+        SwaggerAutoConfiguration configuration = new SwaggerAutoConfiguration();
+        configuration.setBeanFactory(new DefaultListableBeanFactory());
+        return configuration.createRestApi(swaggerProperties, interner, new DocumentationBootstrapReport());
+    }
+}
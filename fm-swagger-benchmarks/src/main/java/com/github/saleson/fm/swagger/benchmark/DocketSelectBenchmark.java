@@ -0,0 +1,101 @@
+package com.github.saleson.fm.swagger.benchmark;
+
+import com.github.saleson.fm.swagger.benchmark.rest.SyntheticEndpoints;
+import com.github.saleson.fm.swagger.configuration.PathSelectorIndex;
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import springfox.documentation.RequestHandler;
+import springfox.documentation.builders.PathSelectors;
+import springfox.documentation.builders.RequestHandlerSelectors;
+import springfox.documentation.spi.DocumentationType;
+import springfox.documentation.spi.service.contexts.DocumentationContextBuilder;
+import springfox.documentation.spring.web.plugins.Docket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * docket选择规则对合成接口的筛选耗时，每次调用重新创建选择器并对所有接口各判断一次，与启动时扫描一个分组的情况一致;
+ * legacy 为逐个ant模式组合Guava Predicate的原实现，作为对照
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DocketSelectBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int endpoints;
+
+    private List<RequestHandler> handlers;
+
+    private SwaggerProperties.DocketSelect docketSelect;
+
+    @Setup
+    public void setup() {
+        handlers = SyntheticEndpoints.requestHandlers(endpoints);
+        SwaggerProperties swaggerProperties = BenchmarkProperties.swaggerProperties(4);
+        docketSelect = swaggerProperties.getDocket().get("group1").getDocketSelect();
+        // 再排除几个路径，使每个接口都要经过多个模式
+        docketSelect.getExcludePath().add("/api/*/resource1/**");
+        docketSelect.getExcludePath().add("/api/internal/**");
+        docketSelect.getExcludePath().add("/**/delRestful");
+    }
+
+    @Benchmark
+    public int compiled() {
+        Docket docket = new Docket(DocumentationType.SWAGGER_2).select()
+                .apis(RequestHandlerSelectors.basePackage(docketSelect.getBasePackage()))
+                .paths(PathSelectorIndex.compile(docketSelect.getBasePath(), docketSelect.getExcludePath()))
+                .build();
+        return count(selector(docket));
+    }
+
+    @Benchmark
+    public int legacy() {
+        List<Predicate<String>> basePath = new ArrayList<>();
+        for (String path : docketSelect.getBasePath()) {
+            basePath.add(PathSelectors.ant(path));
+        }
+        List<Predicate<String>> excludePath = new ArrayList<>();
+        for (String path : docketSelect.getExcludePath()) {
+            excludePath.add(PathSelectors.ant(path));
+        }
+        Docket docket = new Docket(DocumentationType.SWAGGER_2).select()
+                .apis(RequestHandlerSelectors.basePackage(docketSelect.getBasePackage()))
+                .paths(Predicates.and(Predicates.not(Predicates.or(excludePath)), Predicates.or(basePath)))
+                .build();
+        return count(selector(docket));
+    }
+
+    private Predicate<RequestHandler> selector(Docket docket) {
+        return docket.configure(new DocumentationContextBuilder(DocumentationType.SWAGGER_2))
+                .getApiSelector()
+                .getRequestHandlerSelector();
+    }
+
+    private int count(Predicate<RequestHandler> selector) {
+        int selected = 0;
+        for (RequestHandler handler : handlers) {
+            if (selector.apply(handler)) {
+                selected++;
+            }
+        }
+        return selected;
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.saleson.fm.swagger.benchmark;
+
+import com.github.saleson.fm.swagger.configuration.ResolvedDocketConfig;
+import com.github.saleson.fm.swagger.configuration.bootstrap.DocumentationInterner;
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 解析一个分组配置的耗时，主要是全局参数合并与全局响应消息构建；分组参数覆盖一半的全局参数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GlobalConfigurationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int size;
+
+    private SwaggerProperties swaggerProperties;
+
+    private DocumentationInterner interner;
+
+    @Setup
+    public void setup() {
+        swaggerProperties = new SwaggerProperties();
+        swaggerProperties.setGlobalOperationParameters(operationParameters(0, size));
+        SwaggerProperties.DocketInfo docketInfo = new SwaggerProperties.DocketInfo();
+        docketInfo.setGlobalOperationParameters(operationParameters(size / 2, size));
+        swaggerProperties.getDocket().put("group0", docketInfo);
+        SwaggerProperties.GlobalResponseMessage messages = swaggerProperties.getGlobalResponseMessage();
+        for (int i = 0; i < size; i++) {
+            messages.getAll().add(responseMessage(1000 + i, null));
+            messages.getGet().add(responseMessage(2000 + i, "string"));
+            messages.getPost().add(responseMessage(3000 + i, null));
+        }
+        interner = new DocumentationInterner(swaggerProperties.getBuild().isIntern());
+    }
+
+    @Benchmark
+    public Map<String, ResolvedDocketConfig> resolve() {
+        return ResolvedDocketConfig.resolve(swaggerProperties, interner);
+    }
+
+    private static List<SwaggerProperties.GlobalOperationParameter> operationParameters(int from, int to) {
+        List<SwaggerProperties.GlobalOperationParameter> parameters = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            SwaggerProperties.GlobalOperationParameter parameter = new SwaggerProperties.GlobalOperationParameter();
+            parameter.setName("param" + i);
+            parameter.setDescription("参数" + i);
+            parameter.setModelRef("string");
+            parameter.setParameterType(i % 2 == 0 ? "header" : "query");
+            parameters.add(parameter);
+        }
+        return parameters;
+    }
+
+    private static SwaggerProperties.GlobalResponseMessageBody responseMessage(int code, String modelRef) {
+        SwaggerProperties.GlobalResponseMessageBody body = new SwaggerProperties.GlobalResponseMessageBody();
+        body.setCode(code);
+        body.setMessage("message" + code);
+        body.setModelRef(modelRef);
+        return body;
+    }
+}
@@ -0,0 +1,68 @@
+package com.github.saleson.fm.swagger.benchmark.rest;
+
+import com.github.saleson.fm.swagger.benchmark.rest.domain.RestfulRO;
+import com.github.saleson.fm.swagger.benchmark.rest.domain.RestfulVO;
+import io.swagger.annotations.ApiImplicitParam;
+import io.swagger.annotations.ApiImplicitParams;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+
+/**
+ * 与示例工程RestfulResource相同的一组接口，各版本的controller继承后位于不同的包下;
+ * {@link SyntheticEndpoints} 以这些方法为模板生成任意数量的接口
+ */
+public abstract class AbstractRestfulResource {
+
+    @ApiImplicitParams({@ApiImplicitParam(name = "id", value = "restful ID")})
+    @GetMapping("/")
+    public RestfulVO get(@RequestParam("id") Long id) {
+        RestfulVO vo = new RestfulVO();
+        vo.setId(id);
+        vo.setHttpMethod("GET");
+        vo.setName("Restful Get");
+        return vo;
+    }
+
+    @ApiResponses(value = {@ApiResponse(code = 403, message = "没有操作权限")})
+    @ApiImplicitParam(name = "Content-Type", value = "请求内容的类型和编码", example = "application/json", paramType = "header")
+    @PostMapping("/newRestful")
+    public ResponseEntity<RestfulVO> post(@Validated @RequestBody RestfulRO ro) {
+        RestfulVO vo = new RestfulVO();
+        vo.setId(0L);
+        vo.setRequest(ro);
+        return ResponseEntity.ok(vo);
+    }
+
+    @ApiImplicitParams({@ApiImplicitParam(name = "id", value = "restful ID", required = true, paramType = "query")})
+    @PutMapping("/editRestful")
+    public ResponseEntity<RestfulVO> edit(@RequestParam("id") Long id, @RequestBody RestfulRO ro) {
+        RestfulVO vo = new RestfulVO();
+        vo.setId(id);
+        vo.setRequest(ro);
+        return ResponseEntity.ok(vo);
+    }
+
+    @ApiImplicitParams({@ApiImplicitParam(name = "id", value = "restful ID", required = true, paramType = "query")})
+    @PatchMapping("/modifyRestful")
+    public ResponseEntity<RestfulVO> modify(@RequestParam("id") Long id, @RequestBody RestfulRO ro) {
+        RestfulVO vo = new RestfulVO();
+        vo.setId(id);
+        vo.setRequest(ro);
+        return ResponseEntity.ok(vo);
+    }
+
+    @ApiImplicitParams({@ApiImplicitParam(name = "id", value = "restful ID", required = true, paramType = "query")})
+    @DeleteMapping("/delRestful")
+    public ResponseEntity<Void> delete(@RequestParam("id") Long id) {
+        return ResponseEntity.ok().build();
+    }
+}
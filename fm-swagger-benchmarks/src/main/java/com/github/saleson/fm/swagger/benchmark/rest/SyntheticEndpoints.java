@@ -0,0 +1,141 @@
+package com.github.saleson.fm.swagger.benchmark.rest;
+
+import com.fasterxml.classmate.TypeResolver;
+import com.github.saleson.fm.swagger.benchmark.rest.v100.RestfulResourceV100;
+import com.github.saleson.fm.swagger.benchmark.rest.v101.RestfulResourceV101;
+import com.github.saleson.fm.swagger.benchmark.rest.v102.RestfulResourceV102;
+import com.github.saleson.fm.swagger.benchmark.rest.v103.RestfulResourceV103;
+import org.springframework.beans.BeanUtils;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import springfox.documentation.RequestHandler;
+import springfox.documentation.spring.web.WebMvcRequestHandler;
+import springfox.documentation.spring.web.readers.operation.HandlerMethodResolver;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 以 {@link AbstractRestfulResource} 的接口为模板生成指定数量的接口，
+ * 依次分布在 v100 ~ v103 四个包的controller上，路径形如 /api/v100/resource12/newRestful
+ */
+public final class SyntheticEndpoints {
+
+    public static final List<Class<? extends AbstractRestfulResource>> CONTROLLERS = Arrays.asList(
+            RestfulResourceV100.class, RestfulResourceV101.class, RestfulResourceV102.class, RestfulResourceV103.class);
+
+    private static final Operation[] OPERATIONS = {
+            new Operation("get", RequestMethod.GET, "/"),
+            new Operation("post", RequestMethod.POST, "/newRestful"),
+            new Operation("edit", RequestMethod.PUT, "/editRestful"),
+            new Operation("modify", RequestMethod.PATCH, "/modifyRestful"),
+            new Operation("delete", RequestMethod.DELETE, "/delRestful")
+    };
+
+    private SyntheticEndpoints() {
+    }
+
+    /**
+     * 生成接口
+     *
+     * @param count 接口数量
+     * @return 生成的接口
+     */
+    public static List<Endpoint> generate(int count) {
+        List<Endpoint> endpoints = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Class<? extends AbstractRestfulResource> controller = CONTROLLERS.get(i % CONTROLLERS.size());
+            Operation operation = OPERATIONS[(i / CONTROLLERS.size()) % OPERATIONS.length];
+            int resource = i / (CONTROLLERS.size() * OPERATIONS.length);
+            String path = "/api/" + version(controller) + "/resource" + resource + operation.path;
+            RequestMappingInfo mapping = RequestMappingInfo.paths(path).methods(operation.method).build();
+            endpoints.add(new Endpoint(controller, operation.method(), mapping));
+        }
+        return endpoints;
+    }
+
+    /**
+     * 不启动应用，直接生成springfox的RequestHandler
+     *
+     * @param count 接口数量
+     * @return 生成的RequestHandler
+     */
+    public static List<RequestHandler> requestHandlers(int count) {
+        HandlerMethodResolver methodResolver = new HandlerMethodResolver(new TypeResolver());
+        List<Object> controllers = new ArrayList<>();
+        for (Class<? extends AbstractRestfulResource> each : CONTROLLERS) {
+            controllers.add(BeanUtils.instantiateClass(each));
+        }
+        List<RequestHandler> handlers = new ArrayList<>(count);
+        for (Endpoint endpoint : generate(count)) {
+            Object controller = controllers.get(CONTROLLERS.indexOf(endpoint.getController()));
+            handlers.add(new WebMvcRequestHandler(methodResolver, endpoint.getMapping(),
+                    new HandlerMethod(controller, endpoint.getMethod())));
+        }
+        return handlers;
+    }
+
+    /**
+     * @param controller controller类型
+     * @return controller所在的版本包名，例如 v100
+     */
+    public static String version(Class<?> controller) {
+        String packageName = ClassUtils.getPackageName(controller);
+        return packageName.substring(packageName.lastIndexOf('.') + 1);
+    }
+
+    public static class Endpoint {
+
+        private final Class<? extends AbstractRestfulResource> controller;
+
+        private final Method method;
+
+        private final RequestMappingInfo mapping;
+
+        Endpoint(Class<? extends AbstractRestfulResource> controller, Method method, RequestMappingInfo mapping) {
+            this.controller = controller;
+            this.method = method;
+            this.mapping = mapping;
+        }
+
+        public Class<? extends AbstractRestfulResource> getController() {
+            return controller;
+        }
+
+        public Method getMethod() {
+            return method;
+        }
+
+        public RequestMappingInfo getMapping() {
+            return mapping;
+        }
+    }
+
+    private static class Operation {
+
+        private final String name;
+
+        private final RequestMethod method;
+
+        private final String path;
+
+        Operation(String name, RequestMethod method, String path) {
+            this.name = name;
+            this.method = method;
+            this.path = path;
+        }
+
+        Method method() {
+            for (Method each : AbstractRestfulResource.class.getDeclaredMethods()) {
+                if (each.getName().equals(name)) {
+                    return each;
+                }
+            }
+            throw new IllegalStateException("No operation " + name);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.saleson.fm.swagger.benchmark.rest.domain;
+
+import io.swagger.annotations.ApiModel;
+import io.swagger.annotations.ApiModelProperty;
+
+@ApiModel("restful响应")
+public class RestfulVO {
+
+    @ApiModelProperty("ID")
+    private Long id;
+
+    @ApiModelProperty("名称")
+    private String name;
+
+    @ApiModelProperty("请求方法")
+    private String httpMethod;
+
+    @ApiModelProperty("请求内容")
+    private RestfulRO request;
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getHttpMethod() {
+        return httpMethod;
+    }
+
+    public void setHttpMethod(String httpMethod) {
+        this.httpMethod = httpMethod;
+    }
+
+    public RestfulRO getRequest() {
+        return request;
+    }
+
+    public void setRequest(RestfulRO request) {
+        this.request = request;
+    }
+}
@@ -0,0 +1,10 @@
+package com.github.saleson.fm.swagger.benchmark.rest.v101;
+
+import com.github.saleson.fm.swagger.benchmark.rest.AbstractRestfulResource;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(value = "/v101/restful")
+public class RestfulResourceV101 extends AbstractRestfulResource {
+}
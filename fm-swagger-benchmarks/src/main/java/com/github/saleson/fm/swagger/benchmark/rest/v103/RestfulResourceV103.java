@@ -0,0 +1,10 @@
+package com.github.saleson.fm.swagger.benchmark.rest.v103;
+
+import com.github.saleson.fm.swagger.benchmark.rest.AbstractRestfulResource;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping(value = "/v103/restful")
+public class RestfulResourceV103 extends AbstractRestfulResource {
+}
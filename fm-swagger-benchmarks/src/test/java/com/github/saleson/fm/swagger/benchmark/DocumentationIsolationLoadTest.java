@@ -0,0 +1,237 @@
+package com.github.saleson.fm.swagger.benchmark;
+
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecCache;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 文档请求与业务请求隔离的负载测试: servlet容器只有少量工作线程，多个爬虫线程按固定间隔请求各分组的 /v2/api-docs，
+ * 同时测量业务接口的响应时间; 爬虫与浏览器一样带上次响应的ETag重新验证，部分爬虫每次都取完整文档;
+ * 开启隔离时每个分组只生成一次文档，业务接口的p99与没有文档请求时相比不应明显升高
+ */
+class DocumentationIsolationLoadTest {
+
+    private static final int ENDPOINTS = 1000;
+
+    private static final int GROUPS = 4;
+
+    private static final int SERVER_THREADS = 8;
+
+    private static final int CRAWLERS = 24;
+
+    /**
+     * 爬虫两次请求之间的间隔，毫秒; 爬虫与服务端在同一台机器上，不限速时爬虫自身就会占满CPU
+     */
+    private static final long CRAWL_INTERVAL = 100;
+
+    /**
+     * 每次都取完整文档、不带ETag的爬虫数
+     */
+    private static final int FULL_CRAWLERS = 4;
+
+    private static final int CLIENTS = 4;
+
+    private static final long SECONDS = 4;
+
+    private static final String BUSINESS_PATH = "/v100/restful/?id=1";
+
+    private static ConfigurableApplicationContext context;
+
+    private static String base;
+
+    @BeforeAll
+    static void start() {
+        Map<String, Object> properties = BenchmarkProperties.properties(GROUPS);
+        properties.put("benchmark.endpoints", ENDPOINTS);
+        properties.put("server.port", 0);
+        properties.put("server.tomcat.threads.max", SERVER_THREADS);
+        properties.put("logging.level.root", "warn");
+        properties.put("swagger.isolation.enabled", true);
+        context = new SpringApplicationBuilder(BenchmarkApplication.class)
+                .web(WebApplicationType.SERVLET)
+                .properties(properties)
+                .run();
+        base = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+    }
+
+    @AfterAll
+    static void stop() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void crawlersDoNotRaiseBusinessLatency() throws InterruptedException {
+        // 预热业务接口，各分组的文档在线程池中生成一次
+        for (int i = 0; i < 200; i++) {
+            fetch(base + BUSINESS_PATH, null);
+        }
+        for (int i = 0; i < GROUPS; i++) {
+            assertEquals("200", fetch(base + "/v2/api-docs?group=group" + i, null)[0]);
+        }
+        // 预热JIT，避免计入先测量的一组
+        run(CRAWLERS, 2);
+        run(0, 2);
+        Result baseline = run(0, SECONDS);
+        Result crawled = run(CRAWLERS, SECONDS);
+        System.out.printf("business p50/p99/max without crawlers %s, with crawlers %s, api-docs status %s%n",
+                baseline, crawled, crawled.statuses);
+
+        SwaggerSpecCache specCache = context.getBean(SwaggerSpecCache.class);
+        for (int i = 0; i < GROUPS; i++) {
+            assertEquals(1, specCache.missCount("group" + i), "group" + i + " generated more than once");
+        }
+        // 命中缓存与304不占用分组的并发数，不会被429拒绝
+        assertEquals(Arrays.asList(200, 304), new ArrayList<>(crawled.statuses.keySet()));
+        assertTrue(crawled.p99 <= baseline.p99 * 1.25 + 2,
+                "business p99 " + crawled.p99 + " ms with crawlers, " + baseline.p99 + " ms without");
+    }
+
+    private Result run(int crawlers, long seconds) throws InterruptedException {
+        ConcurrentMap<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < crawlers; i++) {
+            String url = base + "/v2/api-docs?group=group" + (i % GROUPS);
+            boolean revalidate = i >= FULL_CRAWLERS;
+            threads.add(start("crawler-" + i, () -> {
+                String etag = null;
+                while (System.nanoTime() < deadline) {
+                    String[] response = fetch(url, etag);
+                    statuses.computeIfAbsent(Integer.valueOf(response[0]), key -> new LongAdder()).increment();
+                    if (revalidate && response[1] != null) {
+                        etag = response[1];
+                    }
+                    pause(CRAWL_INTERVAL);
+                }
+            }));
+        }
+        List<long[]> samples = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            long[] latencies = new long[1 << 20];
+            samples.add(latencies);
+            threads.add(start("client-" + i, () -> {
+                int n = 0;
+                while (System.nanoTime() < deadline && n < latencies.length - 1) {
+                    long start = System.nanoTime();
+                    fetch(base + BUSINESS_PATH, null);
+                    latencies[++n] = System.nanoTime() - start;
+                }
+                latencies[0] = n;
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return new Result(samples, new TreeMap<>(statuses));
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Thread start(String name, Runnable runnable) {
+        Thread thread = new Thread(runnable, name);
+        thread.start();
+        return thread;
+    }
+
+    /**
+     * 请求并读完响应体
+     *
+     * @param etag 不为null时发送 If-None-Match
+     * @return 状态码与ETag，连接失败时状态码为-1
+     */
+    private static String[] fetch(String url, String etag) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+            if (etag != null) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+            int status = connection.getResponseCode();
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (in != null) {
+                try (InputStream body = in) {
+                    byte[] buffer = new byte[64 * 1024];
+                    while (body.read(buffer) != -1) {
+                        // 丢弃响应体
+                    }
+                }
+            }
+            return new String[]{String.valueOf(status), connection.getHeaderField("ETag")};
+        } catch (IOException e) {
+            return new String[]{"-1", null};
+        }
+    }
+
+    /**
+     * 业务接口的响应时间与文档请求的状态码分布
+     */
+    private static class Result {
+
+        private final double p50;
+
+        private final double p99;
+
+        private final double max;
+
+        private final Map<Integer, LongAdder> statuses;
+
+        Result(List<long[]> samples, Map<Integer, LongAdder> statuses) {
+            int count = 0;
+            for (long[] latencies : samples) {
+                count += (int) latencies[0];
+            }
+            long[] all = new long[count];
+            int offset = 0;
+            for (long[] latencies : samples) {
+                System.arraycopy(latencies, 1, all, offset, (int) latencies[0]);
+                offset += (int) latencies[0];
+            }
+            Arrays.sort(all);
+            this.p50 = percentile(all, 0.50);
+            this.p99 = percentile(all, 0.99);
+            this.max = all.length == 0 ? 0 : all[all.length - 1] / 1e6;
+            this.statuses = statuses;
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.2f/%.2f/%.2f ms", p50, p99, max);
+        }
+    }
+}
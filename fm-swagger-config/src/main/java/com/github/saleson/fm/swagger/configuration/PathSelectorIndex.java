@@ -0,0 +1,132 @@
+package com.github.saleson.fm.swagger.configuration;
+
+import com.google.common.base.Predicate;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 将docket的 base-path 与 exclude-path 编译为一棵前缀树，匹配结果与 PathSelectors.ant 的组合一致:
+ * 路径不匹配任何 exclude-path 且匹配任一 base-path;
+ * 按模式开头不含通配符的路径段建树，匹配时沿路径走一遍取得候选模式，只对候选模式做ant匹配
+ */
+public class PathSelectorIndex implements Predicate<String> {
+
+    private static final String PATH_SEPARATOR = "/";
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    private final Node root = new Node();
+
+    private final Map<String, Boolean> results = new ConcurrentHashMap<>();
+
+    private PathSelectorIndex() {
+    }
+
+    /**
+     * 编译路径选择规则
+     *
+     * @param includes 包含的ant路径，为空时不匹配任何路径
+     * @param excludes 排除的ant路径
+     * @return 编译后的路径选择器
+     */
+    public static PathSelectorIndex compile(Collection<String> includes, Collection<String> excludes) {
+        PathSelectorIndex index = new PathSelectorIndex();
+        for (String pattern : excludes) {
+            index.add(pattern, true);
+        }
+        for (String pattern : includes) {
+            index.add(pattern, false);
+        }
+        return index;
+    }
+
+    @Override
+    public boolean apply(String path) {
+        if (path == null) {
+            return false;
+        }
+        return results.computeIfAbsent(path, this::match);
+    }
+
+    private boolean match(String path) {
+        List<Entry> candidates = candidates(path);
+        boolean included = false;
+        for (Entry candidate : candidates) {
+            if (candidate.exclude) {
+                if (matcher.match(candidate.pattern, path)) {
+                    return false;
+                }
+            } else if (!included && matcher.match(candidate.pattern, path)) {
+                included = true;
+            }
+        }
+        return included;
+    }
+
+    /**
+     * 沿路径逐段查找前缀树，返回路径可能匹配的模式
+     *
+     * @param path 请求路径
+     * @return 候选模式
+     */
+    private List<Entry> candidates(String path) {
+        List<Entry> candidates = new ArrayList<>(root.entries);
+        Node node = root;
+        for (String segment : tokenize(path)) {
+            node = node.children.get(segment);
+            if (node == null) {
+                break;
+            }
+            candidates.addAll(node.entries);
+        }
+        return candidates;
+    }
+
+    private void add(String pattern, boolean exclude) {
+        Node node = root;
+        for (String segment : tokenize(pattern)) {
+            if (!isLiteral(segment)) {
+                break;
+            }
+            node = node.children.computeIfAbsent(segment, key -> new Node());
+        }
+        node.entries.add(new Entry(pattern, exclude));
+    }
+
+    private boolean isLiteral(String segment) {
+        return segment.indexOf('*') == -1 && segment.indexOf('?') == -1 && segment.indexOf('{') == -1;
+    }
+
+    /**
+     * 与AntPathMatcher一致的分段方式：按 / 分隔，忽略空段，不去除空白
+     */
+    private String[] tokenize(String path) {
+        return StringUtils.tokenizeToStringArray(path, PATH_SEPARATOR, false, true);
+    }
+
+    private static class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+
+        private final List<Entry> entries = new ArrayList<>();
+    }
+
+    private static class Entry {
+
+        private final String pattern;
+
+        private final boolean exclude;
+
+        Entry(String pattern, boolean exclude) {
+            this.pattern = pattern;
+            this.exclude = exclude;
+        }
+    }
+}
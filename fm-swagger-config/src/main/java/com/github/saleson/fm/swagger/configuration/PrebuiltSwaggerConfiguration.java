@@ -0,0 +1,72 @@
+package com.github.saleson.fm.swagger.configuration;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.saleson.fm.swagger.configuration.prebuilt.PrebuiltApiResourceController;
+import com.github.saleson.fm.swagger.configuration.prebuilt.PrebuiltSpecSource;
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecCache;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecKeyResolver;
+import com.github.saleson.fm.swagger.configuration.web.SwaggerSpecResourcesProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.core.io.support.ResourcePatternUtils;
+import springfox.documentation.swagger.web.SwaggerResourcesProvider;
+
+import java.io.IOException;
+
+/**
+ * prebuilt模式：直接读取构建时生成的分组文档，不加载springfox的扫描器
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "swagger.mode", havingValue = "prebuilt")
+@Import({SwaggerWebConfiguration.class})
+public class PrebuiltSwaggerConfiguration {
+
+    private static final Logger log = LoggerFactory.getLogger(PrebuiltSwaggerConfiguration.class);
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SwaggerSpecKeyResolver swaggerSpecKeyResolver(Environment environment) {
+        return new SwaggerSpecKeyResolver(environment);
+    }
+
+    @Bean
+    public PrebuiltSpecSource prebuiltSpecSource(SwaggerSpecKeyResolver swaggerSpecKeyResolver, ResourceLoader resourceLoader)
+            throws IOException {
+        PrebuiltSpecSource source = new PrebuiltSpecSource(
+                swaggerSpecKeyResolver, new ObjectMapper(), ResourcePatternUtils.getResourcePatternResolver(resourceLoader));
+        if (source.groups().isEmpty()) {
+            log.warn("No prebuilt specification found in classpath:{}", PrebuiltSpecSource.LOCATION);
+        }
+        return source;
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public SwaggerSpecCache swaggerSpecCache(PrebuiltSpecSource prebuiltSpecSource, SwaggerProperties swaggerProperties) {
+        SwaggerProperties.Cache cache = swaggerProperties.getCache();
+        return new SwaggerSpecCache(prebuiltSpecSource, cache.getMaxEntries(),
+                SwaggerSpecCacheConfiguration.specStorage(cache), cache.getMaxBytes());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SwaggerResourcesProvider swaggerResourcesProvider(
+            SwaggerSpecCache swaggerSpecCache, Environment environment, SwaggerProperties swaggerProperties) {
+        return new SwaggerSpecResourcesProvider(swaggerSpecCache, environment, swaggerProperties);
+    }
+
+    @Bean
+    public PrebuiltApiResourceController prebuiltApiResourceController(SwaggerResourcesProvider swaggerResourcesProvider) {
+        return new PrebuiltApiResourceController(swaggerResourcesProvider);
+    }
+}
@@ -0,0 +1,390 @@
+package com.github.saleson.fm.swagger.configuration;
+
+import com.github.saleson.fm.swagger.configuration.bootstrap.DocumentationInterner;
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import org.springframework.web.bind.annotation.RequestMethod;
+import springfox.documentation.builders.ApiInfoBuilder;
+import springfox.documentation.builders.PathSelectors;
+import springfox.documentation.builders.RequestHandlerSelectors;
+import springfox.documentation.service.ApiInfo;
+import springfox.documentation.service.ApiKey;
+import springfox.documentation.service.AuthorizationScope;
+import springfox.documentation.service.BasicAuth;
+import springfox.documentation.service.Contact;
+import springfox.documentation.service.Parameter;
+import springfox.documentation.service.ResponseMessage;
+import springfox.documentation.service.SecurityReference;
+import springfox.documentation.service.SecurityScheme;
+import springfox.documentation.spi.DocumentationType;
+import springfox.documentation.spi.service.contexts.SecurityContext;
+import springfox.documentation.spring.web.plugins.Docket;
+import springfox.documentation.swagger.web.ApiKeyVehicle;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 一个分组解析后的docket配置: 继承全局配置后的ApiInfo、按name合并后的全局参数、按请求方法合并后的全局响应消息、
+ * 鉴权配置与编译好的路径选择器;
+ * 配置一次性从 {@link SwaggerProperties} 解析，解析后不可修改，也不修改绑定的配置，
+ * 可以在多个线程中并行或按需构建docket，运行时重新解析配置后整体替换即可
+ */
+public final class ResolvedDocketConfig {
+
+    /**
+     * 没有配置任何 base-path 时包含所有路径
+     */
+    static final String ALL_PATHS = "/**";
+
+    private static final RequestMethod[] RESPONSE_MESSAGE_METHODS = {
+            RequestMethod.POST, RequestMethod.GET, RequestMethod.PUT, RequestMethod.PATCH,
+            RequestMethod.DELETE, RequestMethod.HEAD, RequestMethod.OPTIONS, RequestMethod.TRACE
+    };
+
+    private final String groupName;
+
+    private final String host;
+
+    private final ApiInfo apiInfo;
+
+    private final List<SecurityScheme> securitySchemes;
+
+    private final List<SecurityContext> securityContexts;
+
+    private final List<Parameter> globalOperationParameters;
+
+    private final boolean useDefaultResponseMessages;
+
+    private final Map<RequestMethod, List<ResponseMessage>> globalResponseMessages;
+
+    private final String basePackage;
+
+    private final PathSelectorIndex paths;
+
+    private final Class<?>[] ignoredParameterTypes;
+
+    private ResolvedDocketConfig(Builder builder) {
+        this.groupName = builder.groupName;
+        this.host = builder.host;
+        this.apiInfo = builder.apiInfo;
+        this.securitySchemes = builder.securitySchemes;
+        this.securityContexts = builder.securityContexts;
+        this.globalOperationParameters = Collections.unmodifiableList(new ArrayList<>(builder.globalOperationParameters));
+        this.useDefaultResponseMessages = builder.useDefaultResponseMessages;
+        this.globalResponseMessages = builder.globalResponseMessages;
+        this.basePackage = builder.basePackage;
+        this.paths = builder.paths;
+        this.ignoredParameterTypes = builder.ignoredParameterTypes.toArray(new Class<?>[0]);
+    }
+
+    /**
+     * 解析所有分组的配置，没有分组时只有默认分组
+     *
+     * @param swaggerProperties swagger配置
+     * @param interner          共享全局参数与响应消息
+     * @return 分组名称与配置，按配置顺序
+     */
+    public static Map<String, ResolvedDocketConfig> resolve(
+            SwaggerProperties swaggerProperties, DocumentationInterner interner) {
+        // 各分组共用的部分只解析一次
+        Builder shared = new Builder();
+        shared.host = swaggerProperties.getHost();
+        shared.securitySchemes = securitySchemes(swaggerProperties.getAuthorization());
+        shared.securityContexts = Collections.singletonList(securityContext(swaggerProperties.getAuthorization()));
+        shared.useDefaultResponseMessages = swaggerProperties.isApplyDefaultResponseMessages();
+        shared.globalResponseMessages = globalResponseMessages(swaggerProperties, interner);
+
+        Map<String, ResolvedDocketConfig> configs = new LinkedHashMap<>();
+        if (swaggerProperties.getDocket().isEmpty()) {
+            Builder builder = shared.copy();
+            builder.apiInfo = apiInfo(swaggerProperties.getApiInfo(), null);
+            builder.globalOperationParameters = globalOperationParameters(
+                    swaggerProperties.getGlobalOperationParameters(), null, interner);
+            builder.select(swaggerProperties.getDocketSelect(), swaggerProperties.getIgnoredParameterTypes());
+            configs.put(Docket.DEFAULT_GROUP_NAME, new ResolvedDocketConfig(builder));
+        }
+        for (Map.Entry<String, SwaggerProperties.DocketInfo> entry : swaggerProperties.getDocket().entrySet()) {
+            SwaggerProperties.DocketInfo docketInfo = entry.getValue();
+            Builder builder = shared.copy();
+            builder.groupName = entry.getKey();
+            builder.apiInfo = apiInfo(docketInfo.getApiInfo(), swaggerProperties.getApiInfo());
+            builder.globalOperationParameters = globalOperationParameters(
+                    swaggerProperties.getGlobalOperationParameters(), docketInfo.getGlobalOperationParameters(), interner);
+            builder.select(docketInfo.getDocketSelect(), docketInfo.getIgnoredParameterTypes());
+            configs.put(entry.getKey(), new ResolvedDocketConfig(builder));
+        }
+        return Collections.unmodifiableMap(configs);
+    }
+
+    /**
+     * 按解析后的配置创建docket，每次调用返回新的实例
+     *
+     * @return 创建的docket
+     */
+    public Docket toDocket() {
+        Docket docket = new Docket(DocumentationType.SWAGGER_2)
+                .host(host)
+                .apiInfo(apiInfo)
+                .securityContexts(securityContexts)
+                .globalOperationParameters(globalOperationParameters);
+        if (groupName != null) {
+            docket.groupName(groupName);
+        }
+        if (!securitySchemes.isEmpty()) {
+            docket.securitySchemes(securitySchemes);
+        }
+        docket.useDefaultResponseMessages(useDefaultResponseMessages);
+        for (Map.Entry<RequestMethod, List<ResponseMessage>> entry : globalResponseMessages.entrySet()) {
+            // springfox保存的是列表本身，每个docket使用各自的列表
+            docket.globalResponseMessage(entry.getKey(), new ArrayList<>(entry.getValue()));
+        }
+        return docket.select()
+                .apis(RequestHandlerSelectors.basePackage(basePackage))
+                .paths(paths)
+                .build()
+                .ignoredParameterTypes(ignoredParameterTypes);
+    }
+
+    /**
+     * @return 分组名称，默认分组为null
+     */
+    public String getGroupName() {
+        return groupName;
+    }
+
+    public ApiInfo getApiInfo() {
+        return apiInfo;
+    }
+
+    public List<Parameter> getGlobalOperationParameters() {
+        return globalOperationParameters;
+    }
+
+    public Map<RequestMethod, List<ResponseMessage>> getGlobalResponseMessages() {
+        return globalResponseMessages;
+    }
+
+    /**
+     * 分组的ApiInfo，未配置的项继承全局配置
+     *
+     * @param docketApiInfo 分组的配置
+     * @param globalApiInfo 全局配置，默认分组为null
+     * @return ApiInfo
+     */
+    static ApiInfo apiInfo(SwaggerProperties.ApiInfo docketApiInfo, SwaggerProperties.ApiInfo globalApiInfo) {
+        if (globalApiInfo == null || docketApiInfo == globalApiInfo) {
+            return new ApiInfoBuilder()
+                    .title(docketApiInfo.getTitle())
+                    .description(docketApiInfo.getDescription())
+                    .version(docketApiInfo.getVersion())
+                    .license(docketApiInfo.getLicense())
+                    .licenseUrl(docketApiInfo.getLicenseUrl())
+                    .contact(
+                            new Contact(
+                                    docketApiInfo.getContact().getName(),
+                                    docketApiInfo.getContact().getUrl(),
+                                    docketApiInfo.getContact().getEmail()))
+                    .termsOfServiceUrl(docketApiInfo.getTermsOfServiceUrl())
+                    .build();
+        }
+        return new ApiInfoBuilder()
+                .title(defaultString(docketApiInfo.getTitle(), globalApiInfo.getTitle()))
+                .description(defaultString(docketApiInfo.getDescription(), globalApiInfo.getDescription()))
+                .version(defaultString(docketApiInfo.getVersion(), globalApiInfo.getVersion()))
+                .license(defaultString(docketApiInfo.getLicense(), globalApiInfo.getLicense()))
+                .licenseUrl(defaultString(docketApiInfo.getLicenseUrl(), globalApiInfo.getLicenseUrl()))
+                .contact(
+                        new Contact(
+                                defaultString(docketApiInfo.getContact().getName(), globalApiInfo.getContact().getName()),
+                                defaultString(docketApiInfo.getContact().getUrl(), globalApiInfo.getContact().getUrl()),
+                                defaultString(docketApiInfo.getContact().getEmail(), globalApiInfo.getContact().getEmail()))
+                )
+                .termsOfServiceUrl(defaultString(docketApiInfo.getTermsOfServiceUrl(), globalApiInfo.getTermsOfServiceUrl()))
+                .build();
+    }
+
+    private static String defaultString(String str1, String str2) {
+        return org.apache.commons.lang3.StringUtils.defaultIfEmpty(str1, str2);
+    }
+
+    /**
+     * 分组参数按name覆盖全局参数
+     *
+     * @param globalOperationParameters 全局参数配置
+     * @param docketOperationParameters 分组参数配置
+     * @param interner                  共享配置相同的参数
+     * @return 合并后的参数
+     */
+    static List<Parameter> globalOperationParameters(
+            List<SwaggerProperties.GlobalOperationParameter> globalOperationParameters,
+            List<SwaggerProperties.GlobalOperationParameter> docketOperationParameters,
+            DocumentationInterner interner) {
+        List<SwaggerProperties.GlobalOperationParameter> merged = new ArrayList<>();
+        Set<String> docketNames = new HashSet<>();
+        if (docketOperationParameters != null) {
+            for (SwaggerProperties.GlobalOperationParameter parameter : docketOperationParameters) {
+                docketNames.add(parameter.getName());
+            }
+        }
+        if (globalOperationParameters != null) {
+            for (SwaggerProperties.GlobalOperationParameter parameter : globalOperationParameters) {
+                if (!docketNames.contains(parameter.getName())) {
+                    merged.add(parameter);
+                }
+            }
+        }
+        if (docketOperationParameters != null) {
+            merged.addAll(docketOperationParameters);
+        }
+        List<Parameter> parameters = new ArrayList<>(merged.size());
+        for (SwaggerProperties.GlobalOperationParameter parameter : merged) {
+            parameters.add(interner.parameter(parameter));
+        }
+        return parameters;
+    }
+
+    /**
+     * 每个请求方法的全局响应消息: 默认响应消息、all 与该方法的配置依次合并
+     *
+     * @param swaggerProperties swagger配置
+     * @param interner          共享配置相同的响应消息
+     * @return 不可修改的响应消息
+     */
+    static Map<RequestMethod, List<ResponseMessage>> globalResponseMessages(
+            SwaggerProperties swaggerProperties, DocumentationInterner interner) {
+        SwaggerProperties.GlobalResponseMessage configured = swaggerProperties.getGlobalResponseMessage();
+        Map<RequestMethod, List<ResponseMessage>> defaults = swaggerProperties.isApplyDefaultResponseMessages()
+                ? interner.defaultResponseMessages() : Collections.emptyMap();
+        List<ResponseMessage> all = responseMessages(configured.getAll(), interner);
+
+        Map<RequestMethod, List<ResponseMessage>> messages = new EnumMap<>(RequestMethod.class);
+        for (RequestMethod method : RESPONSE_MESSAGE_METHODS) {
+            List<ResponseMessage> merged = new ArrayList<>();
+            if (defaults.get(method) != null) {
+                merged.addAll(defaults.get(method));
+            }
+            merged.addAll(all);
+            merged.addAll(responseMessages(configuredFor(configured, method), interner));
+            messages.put(method, Collections.unmodifiableList(merged));
+        }
+        return Collections.unmodifiableMap(messages);
+    }
+
+    private static List<SwaggerProperties.GlobalResponseMessageBody> configuredFor(
+            SwaggerProperties.GlobalResponseMessage configured, RequestMethod method) {
+        switch (method) {
+            case POST:
+                return configured.getPost();
+            case GET:
+                return configured.getGet();
+            case PUT:
+                return configured.getPut();
+            case PATCH:
+                return configured.getPatch();
+            case DELETE:
+                return configured.getDelete();
+            case HEAD:
+                return configured.getHead();
+            case OPTIONS:
+                return configured.getOptions();
+            default:
+                return configured.getTrace();
+        }
+    }
+
+    private static List<ResponseMessage> responseMessages(
+            List<SwaggerProperties.GlobalResponseMessageBody> bodies, DocumentationInterner interner) {
+        List<ResponseMessage> responseMessages = new ArrayList<>(bodies.size());
+        for (SwaggerProperties.GlobalResponseMessageBody body : bodies) {
+            responseMessages.add(interner.responseMessage(body));
+        }
+        return responseMessages;
+    }
+
+    /**
+     * 鉴权方式为 BasicAuth 时使用BasicAuth，为 None 时不设置，其余使用header中的ApiKey
+     */
+    private static List<SecurityScheme> securitySchemes(SwaggerProperties.Authorization authorization) {
+        if ("BasicAuth".equalsIgnoreCase(authorization.getType())) {
+            return Collections.singletonList(new BasicAuth(authorization.getName()));
+        } else if (!"None".equalsIgnoreCase(authorization.getType())) {
+            return Collections.singletonList(
+                    new ApiKey(authorization.getName(), authorization.getKeyName(), ApiKeyVehicle.HEADER.getValue()));
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * 全局鉴权策略，按 auth-regex 匹配路径; SecurityReference 的 reference 与鉴权对象的name一致才能开启全局鉴权
+     */
+    private static SecurityContext securityContext(SwaggerProperties.Authorization authorization) {
+        AuthorizationScope[] authorizationScopes = {new AuthorizationScope("global", "accessEverything")};
+        return SecurityContext.builder()
+                .securityReferences(Collections.singletonList(
+                        SecurityReference.builder()
+                                .reference(authorization.getName())
+                                .scopes(authorizationScopes)
+                                .build()))
+                .forPaths(PathSelectors.regex(authorization.getAuthRegex()))
+                .build();
+    }
+
+    /**
+     * 将 base-path 与 exclude-path 编译为一个选择器，没有配置 base-path 时包含所有路径
+     *
+     * @param docketSelect docket选择规则
+     * @return 路径选择器
+     */
+    static PathSelectorIndex paths(SwaggerProperties.DocketSelect docketSelect) {
+        List<String> basePath = docketSelect.getBasePath().isEmpty()
+                ? Collections.singletonList(ALL_PATHS) : docketSelect.getBasePath();
+        return PathSelectorIndex.compile(basePath, docketSelect.getExcludePath());
+    }
+
+    private static final class Builder {
+
+        private String groupName;
+
+        private String host;
+
+        private ApiInfo apiInfo;
+
+        private List<SecurityScheme> securitySchemes;
+
+        private List<SecurityContext> securityContexts;
+
+        private List<Parameter> globalOperationParameters;
+
+        private boolean useDefaultResponseMessages;
+
+        private Map<RequestMethod, List<ResponseMessage>> globalResponseMessages;
+
+        private String basePackage;
+
+        private PathSelectorIndex paths;
+
+        private List<Class<?>> ignoredParameterTypes;
+
+        private Builder copy() {
+            Builder copy = new Builder();
+            copy.host = host;
+            copy.securitySchemes = securitySchemes;
+            copy.securityContexts = securityContexts;
+            copy.useDefaultResponseMessages = useDefaultResponseMessages;
+            copy.globalResponseMessages = globalResponseMessages;
+            return copy;
+        }
+
+        private void select(SwaggerProperties.DocketSelect docketSelect, List<Class<?>> ignoredParameterTypes) {
+            this.basePackage = docketSelect.getBasePackage();
+            this.paths = paths(docketSelect);
+            this.ignoredParameterTypes = ignoredParameterTypes;
+        }
+    }
+}
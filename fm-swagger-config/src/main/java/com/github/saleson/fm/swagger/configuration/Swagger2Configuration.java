@@ -1,16 +1,92 @@
 package com.github.saleson.fm.swagger.configuration;
 
+import com.github.saleson.fm.swagger.configuration.bootstrap.DocumentationBootstrapProgress;
+import com.github.saleson.fm.swagger.configuration.bootstrap.DocumentationBootstrapperPostProcessor;
+import com.github.saleson.fm.swagger.configuration.bootstrap.HandlerMappingWatcher;
+import com.github.saleson.fm.swagger.configuration.bootstrap.SwaggerDocumentationBootstrapper;
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import com.github.saleson.fm.swagger.configuration.snapshot.SpecSnapshotStore;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecCache;
+import com.github.saleson.fm.swagger.configuration.web.DocumentationPendingFilter;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
 import springfox.bean.validators.configuration.BeanValidatorPluginsConfiguration;
 import springfox.documentation.swagger2.configuration.Swagger2DocumentationConfiguration;
 
+import static springfox.documentation.swagger2.web.Swagger2Controller.DEFAULT_URL;
+
 @Configuration
 @ConditionalOnProperty(name = "swagger.enabled")
 @Import({
-        Swagger2DocumentationConfiguration.class,
-        BeanValidatorPluginsConfiguration.class
+        Swagger2Configuration.ScanConfiguration.class,
+        PrebuiltSwaggerConfiguration.class
 })
 public class Swagger2Configuration {
+
+    /**
+     * scan模式：启动时由springfox扫描生成文档
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "swagger.mode", havingValue = "scan", matchIfMissing = true)
+    @Import({
+            Swagger2DocumentationConfiguration.class,
+            BeanValidatorPluginsConfiguration.class,
+            SwaggerSpecCacheConfiguration.class
+    })
+    static class ScanConfiguration {
+
+        @Bean
+        public static DocumentationBootstrapperPostProcessor documentationBootstrapperPostProcessor() {
+            return new DocumentationBootstrapperPostProcessor();
+        }
+
+        /**
+         * 异步扫描：后台扫描结束前文档接口返回503
+         */
+        @Configuration
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+        @ConditionalOnProperty(name = "swagger.build.async")
+        static class AsyncBuildConfiguration {
+
+            @Bean
+            public FilterRegistrationBean<DocumentationPendingFilter> documentationPendingFilter(
+                    DocumentationBootstrapProgress progress, SwaggerProperties swaggerProperties, Environment environment) {
+                FilterRegistrationBean<DocumentationPendingFilter> registration = new FilterRegistrationBean<>(
+                        new DocumentationPendingFilter(progress, swaggerProperties.getBuild().getRetryAfter()));
+                registration.addUrlPatterns(environment.getProperty("springfox.documentation.swagger.v2.path", DEFAULT_URL),
+                        swaggerProperties.getOpenApiPath(), "/swagger-fingerprint", "/swagger-resources", "/swagger-resources/*");
+                // 在请求指标之后、ApiDocsFilter 之前执行
+                registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+                return registration;
+            }
+        }
+
+        /**
+         * 增量更新：handler映射变化后只重新扫描受影响的resource
+         */
+        @Configuration
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+        @ConditionalOnProperty(name = "swagger.build.incremental")
+        static class IncrementalBuildConfiguration {
+
+            @Bean
+            public HandlerMappingWatcher handlerMappingWatcher(
+                    ObjectProvider<SwaggerDocumentationBootstrapper> bootstrapper,
+                    ObjectProvider<RequestMappingInfoHandlerMapping> handlerMappings,
+                    ObjectProvider<SwaggerSpecCache> swaggerSpecCache,
+                    ObjectProvider<SpecSnapshotStore> specSnapshotStore,
+                    SwaggerProperties swaggerProperties) {
+                return new HandlerMappingWatcher(bootstrapper, handlerMappings, swaggerSpecCache, specSnapshotStore,
+                        swaggerProperties.getBuild().getIncrementalInterval());
+            }
+        }
+    }
 }
@@ -0,0 +1,97 @@
+package com.github.saleson.fm.swagger.configuration;
+
+import com.github.saleson.fm.swagger.configuration.actuate.SwaggerEndpoint;
+import com.github.saleson.fm.swagger.configuration.bootstrap.DocumentationBootstrapProgress;
+import com.github.saleson.fm.swagger.configuration.bootstrap.DocumentationBootstrapReport;
+import com.github.saleson.fm.swagger.configuration.metrics.DocumentationBootstrapMetrics;
+import com.github.saleson.fm.swagger.configuration.metrics.SwaggerRequestMetrics;
+import com.github.saleson.fm.swagger.configuration.metrics.SwaggerRequestMetricsFilter;
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecCache;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecFormat;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import springfox.documentation.spring.web.plugins.Docket;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import static springfox.documentation.swagger2.web.Swagger2Controller.DEFAULT_URL;
+
+/**
+ * 文档启动报告与文档接口的Micrometer指标、actuator端点，classpath中存在对应依赖时才生效
+ */
+@Configuration
+public class SwaggerMetricsConfiguration {
+
+    @Configuration
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class MicrometerConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public DocumentationBootstrapMetrics documentationBootstrapMetrics(
+                DocumentationBootstrapReport report, ObjectProvider<DocumentationBootstrapProgress> progress) {
+            return new DocumentationBootstrapMetrics(report, progress.getIfAvailable());
+        }
+
+        @Configuration
+        @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+        @ConditionalOnProperty(name = "swagger.metrics.enabled", matchIfMissing = true)
+        static class RequestMetricsConfiguration {
+
+            @Bean
+            @ConditionalOnMissingBean
+            public SwaggerRequestMetrics swaggerRequestMetrics(
+                    SwaggerProperties swaggerProperties, ObjectProvider<SwaggerSpecCache> swaggerSpecCache) {
+                // 没有分组时只有默认分组
+                Collection<String> groups = swaggerProperties.getDocket().isEmpty()
+                        ? Collections.singleton(Docket.DEFAULT_GROUP_NAME) : swaggerProperties.getDocket().keySet();
+                return new SwaggerRequestMetrics(groups, swaggerProperties.getMetrics().isPercentileHistogram(),
+                        swaggerSpecCache.getIfAvailable());
+            }
+
+            @Bean
+            public FilterRegistrationBean<SwaggerRequestMetricsFilter> swaggerRequestMetricsFilter(
+                    SwaggerRequestMetrics swaggerRequestMetrics, SwaggerProperties swaggerProperties,
+                    Environment environment) {
+                String apiDocsPath = environment.getProperty("springfox.documentation.swagger.v2.path", DEFAULT_URL);
+                String openApiPath = swaggerProperties.getOutputFormats().contains(SwaggerSpecFormat.OPENAPI_3)
+                        ? swaggerProperties.getOpenApiPath() : null;
+                FilterRegistrationBean<SwaggerRequestMetricsFilter> registration = new FilterRegistrationBean<>(
+                        new SwaggerRequestMetricsFilter(swaggerRequestMetrics, apiDocsPath, openApiPath));
+                registration.addUrlPatterns(apiDocsPath,
+                        SwaggerRequestMetricsFilter.RESOURCES_PATH, SwaggerRequestMetricsFilter.RESOURCES_PATH + "/*",
+                        SwaggerRequestMetricsFilter.UI_PAGE, SwaggerRequestMetricsFilter.UI_ASSETS_PATH + "*");
+                if (openApiPath != null) {
+                    registration.addUrlPatterns(openApiPath);
+                }
+                // 先于 ApiDocsFilter 执行，统计直接由缓存返回的文档
+                registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+                return registration;
+            }
+        }
+    }
+
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint")
+    static class EndpointConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnAvailableEndpoint
+        public SwaggerEndpoint swaggerEndpoint(
+                DocumentationBootstrapReport report, ObjectProvider<DocumentationBootstrapProgress> progress) {
+            return new SwaggerEndpoint(report, progress.getIfAvailable());
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.github.saleson.fm.swagger.configuration;
+
+import com.github.saleson.fm.swagger.configuration.bootstrap.DocumentationBootstrapReport;
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import com.github.saleson.fm.swagger.configuration.snapshot.SnapshotSpecSource;
+import com.github.saleson.fm.swagger.configuration.snapshot.SpecSnapshotManager;
+import com.github.saleson.fm.swagger.configuration.snapshot.SpecSnapshotStore;
+import com.github.saleson.fm.swagger.configuration.spec.SpecStorage;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecCache;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecFormat;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecGenerator;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecKeyResolver;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecSource;
+import com.github.saleson.fm.swagger.configuration.web.SwaggerSpecResourcesProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionOutcome;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.SpringBootCondition;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.util.StringUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+import springfox.documentation.spring.web.DocumentationCache;
+import springfox.documentation.spring.web.json.JacksonModuleRegistrar;
+import springfox.documentation.swagger.web.SwaggerResourcesProvider;
+import springfox.documentation.swagger2.mappers.ServiceModelToSwagger2Mapper;
+
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "swagger.cache.enabled", matchIfMissing = true)
+@Import({SwaggerWebConfiguration.class})
+public class SwaggerSpecCacheConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SwaggerSpecKeyResolver swaggerSpecKeyResolver(Environment environment) {
+        return new SwaggerSpecKeyResolver(environment);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SwaggerSpecGenerator swaggerSpecGenerator(
+            SwaggerSpecKeyResolver swaggerSpecKeyResolver,
+            DocumentationCache documentationCache,
+            ServiceModelToSwagger2Mapper mapper,
+            List<JacksonModuleRegistrar> moduleRegistrars,
+            ObjectProvider<DocumentationBootstrapReport> report) {
+        return new SwaggerSpecGenerator(
+                swaggerSpecKeyResolver, documentationCache, mapper, moduleRegistrars, report.getIfAvailable());
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean
+    public SwaggerSpecCache swaggerSpecCache(
+            SwaggerSpecGenerator swaggerSpecGenerator,
+            ObjectProvider<SnapshotSpecSource> snapshotSpecSource,
+            SwaggerProperties swaggerProperties) {
+        SwaggerSpecSource source = snapshotSpecSource.getIfAvailable();
+        SwaggerProperties.Cache cache = swaggerProperties.getCache();
+        return new SwaggerSpecCache(source == null ? swaggerSpecGenerator : source, cache.getMaxEntries(),
+                specStorage(cache), cache.getMaxBytes());
+    }
+
+    static SpecStorage specStorage(SwaggerProperties.Cache cache) {
+        return SpecStorage.of(cache.getStorage(),
+                StringUtils.hasText(cache.getStorageDirectory()) ? Paths.get(cache.getStorageDirectory()) : null);
+    }
+
+    /**
+     * output-formats 以 openapi3 开头或swagger-ui按tag分批加载时，swagger-resources 由文档缓存生成，替换springfox默认的列表
+     */
+    @Bean
+    @Primary
+    @Conditional(SpecResourcesCondition.class)
+    public SwaggerResourcesProvider specSwaggerResourcesProvider(
+            SwaggerSpecCache swaggerSpecCache, Environment environment, SwaggerProperties swaggerProperties) {
+        return new SwaggerSpecResourcesProvider(swaggerSpecCache, environment, swaggerProperties);
+    }
+
+    static class SpecResourcesCondition extends SpringBootCondition {
+
+        @Override
+        public ConditionOutcome getMatchOutcome(ConditionContext context, AnnotatedTypeMetadata metadata) {
+            Binder binder = Binder.get(context.getEnvironment());
+            List<SwaggerSpecFormat> formats = binder
+                    .bind("swagger.output-formats", Bindable.listOf(SwaggerSpecFormat.class))
+                    .orElse(Collections.emptyList());
+            if (!formats.isEmpty() && formats.get(0) == SwaggerSpecFormat.OPENAPI_3) {
+                return ConditionOutcome.match("swagger.output-formats starts with openapi3");
+            }
+            return binder.bind("swagger.ui-config.lazy-tags", Boolean.class).orElse(false)
+                    ? ConditionOutcome.match("swagger.ui-config.lazy-tags is true")
+                    : ConditionOutcome.noMatch("swagger.output-formats does not start with openapi3 and lazy tags are disabled");
+        }
+    }
+
+    /**
+     * 文档快照：序列化后的文档保存到磁盘，重启后指纹一致时直接复用
+     */
+    @Configuration
+    @ConditionalOnProperty(name = "swagger.snapshot.enabled")
+    static class SnapshotConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        public SpecSnapshotStore specSnapshotStore(SwaggerProperties swaggerProperties, Environment environment) {
+            String directory = swaggerProperties.getSnapshot().getDirectory();
+            if (!StringUtils.hasText(directory)) {
+                directory = Paths.get(System.getProperty("java.io.tmpdir"), "fm-swagger",
+                        environment.getProperty("spring.application.name", "application")).toString();
+            }
+            return new SpecSnapshotStore(Paths.get(directory));
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public SnapshotSpecSource snapshotSpecSource(
+                SwaggerSpecGenerator swaggerSpecGenerator,
+                SpecSnapshotStore specSnapshotStore,
+                SwaggerSpecKeyResolver swaggerSpecKeyResolver,
+                DocumentationCache documentationCache) {
+            return new SnapshotSpecSource(swaggerSpecGenerator, specSnapshotStore, swaggerSpecKeyResolver, documentationCache);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean
+        public SpecSnapshotManager specSnapshotManager(
+                SpecSnapshotStore specSnapshotStore,
+                ObjectProvider<RequestMappingInfoHandlerMapping> handlerMappings,
+                SwaggerProperties swaggerProperties,
+                SnapshotSpecSource snapshotSpecSource,
+                DocumentationCache documentationCache,
+                ConfigurableListableBeanFactory beanFactory) {
+            return new SpecSnapshotManager(specSnapshotStore, handlerMappings, swaggerProperties, snapshotSpecSource,
+                    documentationCache, beanFactory);
+        }
+    }
+}
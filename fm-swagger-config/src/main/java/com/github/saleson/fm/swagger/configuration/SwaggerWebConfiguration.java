@@ -0,0 +1,134 @@
+package com.github.saleson.fm.swagger.configuration;
+
+import com.github.saleson.fm.swagger.configuration.metrics.SwaggerRequestMetricsFilter;
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import com.github.saleson.fm.swagger.configuration.spec.CborSwaggerSpecTranscoder;
+import com.github.saleson.fm.swagger.configuration.spec.GzipSwaggerSpecEncoder;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecCache;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecEncoder;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecFormat;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecTranscoder;
+import com.github.saleson.fm.swagger.configuration.web.ApiDocsFilter;
+import com.github.saleson.fm.swagger.configuration.web.DocumentationExecutor;
+import com.github.saleson.fm.swagger.configuration.web.SwaggerFingerprintController;
+import com.github.saleson.fm.swagger.configuration.web.SwaggerUiAssets;
+import com.github.saleson.fm.swagger.configuration.web.SwaggerUiAssetsFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnResource;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.io.IOException;
+import java.util.stream.Collectors;
+
+import static springfox.documentation.swagger2.web.Swagger2Controller.DEFAULT_URL;
+
+/**
+ * 文档接口的web层，由提供 {@link SwaggerSpecCache} 的配置导入
+ */
+@Configuration
+public class SwaggerWebConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public GzipSwaggerSpecEncoder gzipSwaggerSpecEncoder() {
+        return new GzipSwaggerSpecEncoder();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "swagger.http.fingerprint", matchIfMissing = true)
+    public SwaggerFingerprintController swaggerFingerprintController(SwaggerSpecCache swaggerSpecCache) {
+        return new SwaggerFingerprintController(swaggerSpecCache);
+    }
+
+    /**
+     * 文档请求在独立的有界线程池中异步处理，与业务请求的工作线程隔离
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "swagger.isolation.enabled")
+    public DocumentationExecutor documentationExecutor(SwaggerProperties swaggerProperties) {
+        SwaggerProperties.Isolation isolation = swaggerProperties.getIsolation();
+        return new DocumentationExecutor(isolation.getThreads(), isolation.getQueueCapacity(),
+                isolation.getMaxConcurrentPerGroup(), isolation.getQueueTimeout(), isolation.getRetryAfter());
+    }
+
+    @Bean
+    public FilterRegistrationBean<ApiDocsFilter> apiDocsFilter(
+            SwaggerSpecCache swaggerSpecCache,
+            SwaggerProperties swaggerProperties,
+            ObjectProvider<SwaggerSpecEncoder> encoders,
+            ObjectProvider<SwaggerSpecTranscoder> transcoders,
+            ObjectProvider<DocumentationExecutor> documentationExecutor,
+            Environment environment) {
+        ApiDocsFilter filter = new ApiDocsFilter(swaggerSpecCache, swaggerProperties.getHttp(),
+                encoders.orderedStream().collect(Collectors.toList()),
+                transcoders.orderedStream().collect(Collectors.toList()), SwaggerSpecFormat.SWAGGER_2,
+                documentationExecutor.getIfAvailable());
+        FilterRegistrationBean<ApiDocsFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns(environment.getProperty("springfox.documentation.swagger.v2.path", DEFAULT_URL));
+        return registration;
+    }
+
+    /**
+     * 开启 openapi3 输出时，由缓存中的 Swagger 2.0 文档转换出 OpenAPI 3.0 文档
+     */
+    @Bean
+    public FilterRegistrationBean<ApiDocsFilter> openApiDocsFilter(
+            SwaggerSpecCache swaggerSpecCache,
+            SwaggerProperties swaggerProperties,
+            ObjectProvider<SwaggerSpecEncoder> encoders,
+            ObjectProvider<SwaggerSpecTranscoder> transcoders,
+            ObjectProvider<DocumentationExecutor> documentationExecutor) {
+        ApiDocsFilter filter = new ApiDocsFilter(swaggerSpecCache, swaggerProperties.getHttp(),
+                encoders.orderedStream().collect(Collectors.toList()),
+                transcoders.orderedStream().collect(Collectors.toList()), SwaggerSpecFormat.OPENAPI_3,
+                documentationExecutor.getIfAvailable());
+        FilterRegistrationBean<ApiDocsFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setName("openApiDocsFilter");
+        registration.addUrlPatterns(swaggerProperties.getOpenApiPath());
+        registration.setEnabled(swaggerProperties.getOutputFormats().contains(SwaggerSpecFormat.OPENAPI_3));
+        return registration;
+    }
+
+    /**
+     * 启动时索引swagger-ui静态资源，classpath中没有swagger-ui时不注册
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "swagger.http.ui-assets", matchIfMissing = true)
+    @ConditionalOnResource(resources = "classpath:META-INF/resources" + SwaggerRequestMetricsFilter.UI_PAGE)
+    public SwaggerUiAssets swaggerUiAssets(ObjectProvider<SwaggerSpecEncoder> encoders) throws IOException {
+        return SwaggerUiAssets.load(getClass().getClassLoader(), SwaggerRequestMetricsFilter.UI_PAGE,
+                SwaggerRequestMetricsFilter.UI_ASSETS_PATH, encoders.orderedStream().collect(Collectors.toList()));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "swagger.http.ui-assets", matchIfMissing = true)
+    @ConditionalOnResource(resources = "classpath:META-INF/resources" + SwaggerRequestMetricsFilter.UI_PAGE)
+    public FilterRegistrationBean<SwaggerUiAssetsFilter> swaggerUiAssetsFilter(
+            SwaggerUiAssets swaggerUiAssets, SwaggerProperties swaggerProperties) {
+        FilterRegistrationBean<SwaggerUiAssetsFilter> registration = new FilterRegistrationBean<>(
+                new SwaggerUiAssetsFilter(swaggerUiAssets, swaggerProperties.getHttp().isCompression()));
+        registration.addUrlPatterns(SwaggerRequestMetricsFilter.UI_PAGE, SwaggerRequestMetricsFilter.UI_ASSETS_PATH + "*");
+        return registration;
+    }
+
+    /**
+     * CBOR表示形式，jackson-dataformat-cbor 为可选依赖
+     */
+    @Configuration
+    @ConditionalOnClass(name = "com.fasterxml.jackson.dataformat.cbor.CBORFactory")
+    static class CborConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean
+        @ConditionalOnProperty(name = "swagger.http.cbor", matchIfMissing = true)
+        public CborSwaggerSpecTranscoder cborSwaggerSpecTranscoder() {
+            return new CborSwaggerSpecTranscoder();
+        }
+    }
+}
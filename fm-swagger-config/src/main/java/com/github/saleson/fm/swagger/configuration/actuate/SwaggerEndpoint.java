@@ -0,0 +1,132 @@
+package com.github.saleson.fm.swagger.configuration.actuate;
+
+import com.github.saleson.fm.swagger.configuration.bootstrap.DocumentationBootstrapProgress;
+import com.github.saleson.fm.swagger.configuration.bootstrap.DocumentationBootstrapReport;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+
+import java.util.List;
+
+/**
+ * /actuator/swagger，返回文档启动各阶段的耗时与各分组文档的规模，异步扫描时包括后台扫描的进度
+ */
+@Endpoint(id = "swagger")
+public class SwaggerEndpoint {
+
+    private final DocumentationBootstrapReport report;
+
+    private final DocumentationBootstrapProgress progress;
+
+    /**
+     * @param report   启动报告
+     * @param progress 后台扫描的进度，未开启异步扫描时为null
+     */
+    public SwaggerEndpoint(DocumentationBootstrapReport report, DocumentationBootstrapProgress progress) {
+        this.report = report;
+        this.progress = progress;
+    }
+
+    @ReadOperation
+    public SwaggerDescriptor swagger() {
+        return new SwaggerDescriptor(report, progress);
+    }
+
+    @ReadOperation
+    public DocumentationBootstrapReport.GroupTiming group(@Selector String group) {
+        for (DocumentationBootstrapReport.GroupTiming timing : report.getGroups()) {
+            if (timing.getGroup().equals(group)) {
+                return timing;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 启动报告的快照
+     */
+    public static class SwaggerDescriptor {
+
+        private final long bindingNanos;
+
+        private final long handlerIndexNanos;
+
+        private final int handlers;
+
+        private final List<DocumentationBootstrapReport.GroupTiming> groups;
+
+        private final ProgressDescriptor progress;
+
+        SwaggerDescriptor(DocumentationBootstrapReport report, DocumentationBootstrapProgress progress) {
+            this.bindingNanos = report.getBindingNanos();
+            this.handlerIndexNanos = report.getHandlerIndexNanos();
+            this.handlers = report.getHandlers();
+            this.groups = report.getGroups();
+            this.progress = progress == null ? null : new ProgressDescriptor(progress);
+        }
+
+        public long getBindingNanos() {
+            return bindingNanos;
+        }
+
+        public long getHandlerIndexNanos() {
+            return handlerIndexNanos;
+        }
+
+        public int getHandlers() {
+            return handlers;
+        }
+
+        public List<DocumentationBootstrapReport.GroupTiming> getGroups() {
+            return groups;
+        }
+
+        public ProgressDescriptor getProgress() {
+            return progress;
+        }
+    }
+
+    /**
+     * 后台扫描进度的快照
+     */
+    public static class ProgressDescriptor {
+
+        private final DocumentationBootstrapProgress.State state;
+
+        private final int completed;
+
+        private final int failed;
+
+        private final int total;
+
+        private final long elapsedNanos;
+
+        ProgressDescriptor(DocumentationBootstrapProgress progress) {
+            this.state = progress.getState();
+            this.completed = progress.getCompleted();
+            this.failed = progress.getFailed();
+            this.total = progress.getTotal();
+            this.elapsedNanos = progress.getElapsedNanos();
+        }
+
+        public DocumentationBootstrapProgress.State getState() {
+            return state;
+        }
+
+        public int getCompleted() {
+            return completed;
+        }
+
+        public int getFailed() {
+            return failed;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public long getElapsedNanos() {
+            return elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 后台生成文档的进度，开启 swagger.build.async 时由 {@link SwaggerDocumentationBootstrapper} 更新;
+ * 状态变为 READY 之前文档接口返回503
+ */
+public class DocumentationBootstrapProgress {
+
+    public enum State {
+        /**
+         * 等待应用启动完成
+         */
+        PENDING,
+        /**
+         * 正在后台扫描
+         */
+        RUNNING,
+        /**
+         * 全部分组扫描结束
+         */
+        READY
+    }
+
+    private volatile State state = State.PENDING;
+
+    private volatile int total;
+
+    private final AtomicInteger completed = new AtomicInteger();
+
+    private final AtomicInteger failed = new AtomicInteger();
+
+    private volatile long startNanos;
+
+    private volatile long elapsedNanos;
+
+    /**
+     * 开始后台扫描
+     *
+     * @param total 需要扫描的分组数量
+     */
+    public void start(int total) {
+        this.total = total;
+        this.completed.set(0);
+        this.failed.set(0);
+        this.startNanos = System.nanoTime();
+        this.elapsedNanos = 0;
+        this.state = State.RUNNING;
+    }
+
+    /**
+     * 一个分组扫描结束
+     *
+     * @param success 是否扫描成功
+     */
+    public void groupCompleted(boolean success) {
+        if (!success) {
+            failed.incrementAndGet();
+        }
+        completed.incrementAndGet();
+    }
+
+    /**
+     * 全部分组扫描结束，文档已写入缓存
+     */
+    public void finish() {
+        this.elapsedNanos = System.nanoTime() - startNanos;
+        this.state = State.READY;
+    }
+
+    /**
+     * 回到等待状态，容器停止时调用
+     */
+    public void reset() {
+        this.state = State.PENDING;
+    }
+
+    public boolean isReady() {
+        return state == State.READY;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getCompleted() {
+        return completed.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    /**
+     * @return 后台扫描的耗时，纳秒，扫描中时为已经过的时间
+     */
+    public long getElapsedNanos() {
+        State current = state;
+        if (current == State.PENDING) {
+            return 0;
+        }
+        return current == State.READY ? elapsedNanos : System.nanoTime() - startNanos;
+    }
+}
@@ -0,0 +1,329 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录文档启动各阶段的耗时与内存占用，并行构建时按分组名称排序以保证输出稳定;
+ * 阶段包括配置绑定、handler索引、每个分组的docket构建、文档扫描、模型解析与首次序列化
+ */
+public class DocumentationBootstrapReport {
+
+    public static final String PHASE_BINDING = "binding";
+    public static final String PHASE_HANDLERS = "handlers";
+    public static final String PHASE_BUILD = "build";
+    public static final String PHASE_SCAN = "scan";
+    public static final String PHASE_MODELS = "models";
+    public static final String PHASE_SERIALIZATION = "serialization";
+
+    private final Map<String, GroupTiming> groups = new TreeMap<>();
+
+    private final List<PhaseListener> listeners = new ArrayList<>();
+
+    private long bindingNanos;
+
+    private long handlerIndexNanos;
+
+    private int handlers;
+
+    /**
+     * 记录swagger配置绑定的耗时
+     *
+     * @param nanos 耗时，纳秒
+     */
+    public synchronized void recordBinding(long nanos) {
+        bindingNanos = nanos;
+        fire(PHASE_BINDING, null, nanos);
+    }
+
+    /**
+     * 记录枚举并索引handler的耗时
+     *
+     * @param nanos    耗时，纳秒
+     * @param handlers handler数量
+     */
+    public synchronized void recordHandlerIndex(long nanos, int handlers) {
+        this.handlerIndexNanos = nanos;
+        this.handlers = handlers;
+        fire(PHASE_HANDLERS, null, nanos);
+    }
+
+    /**
+     * 记录分组构建docket的耗时
+     *
+     * @param group 分组名称
+     * @param nanos 耗时，纳秒
+     */
+    public synchronized void recordBuild(String group, long nanos) {
+        timing(group).buildNanos = nanos;
+        fire(PHASE_BUILD, group, nanos);
+    }
+
+    /**
+     * 分组开始扫描，清除上次扫描累计的模型解析耗时
+     *
+     * @param group 分组名称
+     */
+    public synchronized void beginScan(String group) {
+        timing(group).modelNanos = 0;
+    }
+
+    /**
+     * 累计分组解析模型的耗时，每个resource group解析一次
+     *
+     * @param group 分组名称
+     * @param nanos 耗时，纳秒
+     */
+    public synchronized void recordModelResolution(String group, long nanos) {
+        timing(group).modelNanos += nanos;
+    }
+
+    /**
+     * 记录分组扫描文档的耗时
+     *
+     * @param group 分组名称
+     * @param nanos 耗时，纳秒
+     */
+    public synchronized void recordScan(String group, long nanos) {
+        recordScan(group, nanos, -1);
+    }
+
+    /**
+     * 记录分组扫描文档的耗时与分配的内存，扫描结束时累计的模型解析耗时一并发布
+     *
+     * @param group          分组名称
+     * @param nanos          耗时，纳秒
+     * @param allocatedBytes 扫描线程分配的字节数，不支持统计时为-1
+     */
+    public synchronized void recordScan(String group, long nanos, long allocatedBytes) {
+        GroupTiming timing = timing(group);
+        timing.scanNanos = nanos;
+        timing.scanAllocatedBytes = allocatedBytes;
+        fire(PHASE_SCAN, group, nanos);
+        fire(PHASE_MODELS, group, timing.modelNanos);
+    }
+
+    /**
+     * 记录分组文档保留的模型规模
+     *
+     * @param group      分组名称
+     * @param models     去重后的模型数量
+     * @param properties 模型属性总数
+     */
+    public synchronized void recordModels(String group, int models, int properties) {
+        GroupTiming timing = timing(group);
+        timing.models = models;
+        timing.modelProperties = properties;
+    }
+
+    /**
+     * 记录分组文档首次序列化的耗时与大小，之后的序列化不再记录
+     *
+     * @param group          分组名称
+     * @param nanos          耗时，纳秒
+     * @param bytes          序列化后的字节数
+     * @param allocatedBytes 序列化线程分配的字节数，不支持统计时为-1
+     */
+    public synchronized void recordSerialization(String group, long nanos, int bytes, long allocatedBytes) {
+        GroupTiming timing = timing(group);
+        if (timing.serialized) {
+            return;
+        }
+        timing.serialized = true;
+        timing.serializationNanos = nanos;
+        timing.specBytes = bytes;
+        timing.serializationAllocatedBytes = allocatedBytes;
+        fire(PHASE_SERIALIZATION, group, nanos);
+    }
+
+    /**
+     * 注册阶段耗时的监听器，已记录的阶段会立即按记录顺序回放给监听器
+     *
+     * @param listener 监听器
+     */
+    public synchronized void addListener(PhaseListener listener) {
+        if (bindingNanos > 0) {
+            listener.onPhase(PHASE_BINDING, null, bindingNanos);
+        }
+        if (handlerIndexNanos > 0) {
+            listener.onPhase(PHASE_HANDLERS, null, handlerIndexNanos);
+        }
+        for (GroupTiming timing : groups.values()) {
+            if (timing.buildNanos > 0) {
+                listener.onPhase(PHASE_BUILD, timing.group, timing.buildNanos);
+            }
+            if (timing.scanNanos > 0) {
+                listener.onPhase(PHASE_SCAN, timing.group, timing.scanNanos);
+                listener.onPhase(PHASE_MODELS, timing.group, timing.modelNanos);
+            }
+            if (timing.serialized) {
+                listener.onPhase(PHASE_SERIALIZATION, timing.group, timing.serializationNanos);
+            }
+        }
+        listeners.add(listener);
+    }
+
+    public synchronized long getBindingNanos() {
+        return bindingNanos;
+    }
+
+    public synchronized long getHandlerIndexNanos() {
+        return handlerIndexNanos;
+    }
+
+    public synchronized int getHandlers() {
+        return handlers;
+    }
+
+    /**
+     * @return 按分组名称排序的分组耗时
+     */
+    public synchronized List<GroupTiming> getGroups() {
+        List<GroupTiming> timings = new ArrayList<>();
+        for (GroupTiming timing : groups.values()) {
+            timings.add(timing.copy());
+        }
+        return timings;
+    }
+
+    /**
+     * @param group 分组名称
+     * @return 分组耗时，未记录时各项为0
+     */
+    public synchronized GroupTiming getGroup(String group) {
+        GroupTiming timing = groups.get(group);
+        return timing == null ? new GroupTiming(group) : timing.copy();
+    }
+
+    /**
+     * @return 可读的启动耗时报告
+     */
+    public synchronized String summary() {
+        StringBuilder summary = new StringBuilder("Swagger documentation bootstrap of ")
+                .append(groups.size()).append(" group(s):");
+        for (GroupTiming timing : groups.values()) {
+            summary.append("\n\t").append(timing.group)
+                    .append(": build ").append(TimeUnit.NANOSECONDS.toMillis(timing.buildNanos)).append(" ms")
+                    .append(", scan ").append(TimeUnit.NANOSECONDS.toMillis(timing.scanNanos)).append(" ms")
+                    .append(" (models ").append(TimeUnit.NANOSECONDS.toMillis(timing.modelNanos)).append(" ms, ")
+                    .append(timing.models).append(" model(s))");
+        }
+        return summary.toString();
+    }
+
+    private GroupTiming timing(String group) {
+        return groups.computeIfAbsent(group, GroupTiming::new);
+    }
+
+    private void fire(String phase, String group, long nanos) {
+        for (PhaseListener listener : listeners) {
+            listener.onPhase(phase, group, nanos);
+        }
+    }
+
+    /**
+     * 阶段耗时的监听器，在记录阶段耗时的线程上同步调用
+     */
+    public interface PhaseListener {
+
+        /**
+         * @param phase 阶段名称
+         * @param group 分组名称，不属于某个分组的阶段为null
+         * @param nanos 耗时，纳秒
+         */
+        void onPhase(String phase, String group, long nanos);
+    }
+
+    public static class GroupTiming {
+
+        private final String group;
+
+        private long buildNanos;
+
+        private long scanNanos;
+
+        private long modelNanos;
+
+        private long serializationNanos;
+
+        private boolean serialized;
+
+        private long scanAllocatedBytes = -1;
+
+        private long serializationAllocatedBytes = -1;
+
+        private int models;
+
+        private int modelProperties;
+
+        private int specBytes;
+
+        GroupTiming(String group) {
+            this.group = group;
+        }
+
+        private GroupTiming copy() {
+            GroupTiming copy = new GroupTiming(group);
+            copy.buildNanos = buildNanos;
+            copy.scanNanos = scanNanos;
+            copy.modelNanos = modelNanos;
+            copy.serializationNanos = serializationNanos;
+            copy.serialized = serialized;
+            copy.scanAllocatedBytes = scanAllocatedBytes;
+            copy.serializationAllocatedBytes = serializationAllocatedBytes;
+            copy.models = models;
+            copy.modelProperties = modelProperties;
+            copy.specBytes = specBytes;
+            return copy;
+        }
+
+        public String getGroup() {
+            return group;
+        }
+
+        public long getBuildNanos() {
+            return buildNanos;
+        }
+
+        public long getScanNanos() {
+            return scanNanos;
+        }
+
+        /**
+         * @return 扫描中解析模型的耗时，包含在扫描耗时内
+         */
+        public long getModelNanos() {
+            return modelNanos;
+        }
+
+        public long getSerializationNanos() {
+            return serializationNanos;
+        }
+
+        public long getScanAllocatedBytes() {
+            return scanAllocatedBytes;
+        }
+
+        public long getSerializationAllocatedBytes() {
+            return serializationAllocatedBytes;
+        }
+
+        public int getModels() {
+            return models;
+        }
+
+        public int getModelProperties() {
+            return modelProperties;
+        }
+
+        /**
+         * @return 首次序列化的文档字节数，尚未序列化时为0
+         */
+        public int getSpecBytes() {
+            return specBytes;
+        }
+    }
+}
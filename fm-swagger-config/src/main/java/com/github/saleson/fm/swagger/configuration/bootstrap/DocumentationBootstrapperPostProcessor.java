@@ -0,0 +1,79 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.beans.factory.support.BeanDefinitionRegistry;
+import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
+import org.springframework.beans.factory.support.RootBeanDefinition;
+import org.springframework.context.EnvironmentAware;
+import org.springframework.core.env.Environment;
+import springfox.documentation.spring.web.plugins.DocumentationPluginsBootstrapper;
+import springfox.documentation.spring.web.readers.operation.CachingOperationNameGenerator;
+import springfox.documentation.spring.web.scanners.ApiModelReader;
+
+/**
+ * 将springfox通过组件扫描注册的bean替换为fm-swagger的实现:
+ * DocumentationPluginsBootstrapper 替换为 {@link SwaggerDocumentationBootstrapper};
+ * ApiModelReader 替换为记录模型解析耗时的 {@link TimedApiModelReader};
+ * 并行、按需构建、增量更新或使用快照时 CachingOperationNameGenerator 替换为 {@link GroupScopedOperationNameGenerator};
+ * 按需构建或使用快照时 DocumentationCache 替换为 {@link LazyDocumentationCache}
+ */
+public class DocumentationBootstrapperPostProcessor implements BeanDefinitionRegistryPostProcessor, EnvironmentAware {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentationBootstrapperPostProcessor.class);
+
+    /**
+     * springfox通过 SpringfoxWebMvcConfiguration#resourceGroupCache 注册的文档缓存
+     */
+    private static final String DOCUMENTATION_CACHE = "resourceGroupCache";
+
+    private Environment environment;
+
+    @Override
+    public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
+
+    @Override
+    public void postProcessBeanDefinitionRegistry(BeanDefinitionRegistry registry) throws BeansException {
+        replace(registry, DocumentationPluginsBootstrapper.class, SwaggerDocumentationBootstrapper.class);
+        replace(registry, ApiModelReader.class, TimedApiModelReader.class);
+        boolean lazy = environment.getProperty("swagger.build.lazy", Boolean.class, false);
+        // 使用快照时文档同样按需扫描
+        boolean deferred = lazy || environment.getProperty("swagger.snapshot.enabled", Boolean.class, false);
+        if (deferred) {
+            replace(registry, DOCUMENTATION_CACHE, LazyDocumentationCache.class);
+        }
+        if (deferred || environment.getProperty("swagger.build.parallel", Boolean.class, false)
+                || environment.getProperty("swagger.build.incremental", Boolean.class, false)) {
+            replace(registry, CachingOperationNameGenerator.class, GroupScopedOperationNameGenerator.class);
+        }
+    }
+
+    @Override
+    public void postProcessBeanFactory(ConfigurableListableBeanFactory beanFactory) throws BeansException {
+    }
+
+    private void replace(BeanDefinitionRegistry registry, Class<?> original, Class<?> replacement) {
+        for (String beanName : registry.getBeanDefinitionNames()) {
+            BeanDefinition definition = registry.getBeanDefinition(beanName);
+            if (original.getName().equals(definition.getBeanClassName())) {
+                definition.setBeanClassName(replacement.getName());
+                return;
+            }
+        }
+        log.warn("No {} bean found, {} is not installed", original.getSimpleName(), replacement.getSimpleName());
+    }
+
+    private void replace(BeanDefinitionRegistry registry, String beanName, Class<?> replacement) {
+        if (!registry.containsBeanDefinition(beanName)) {
+            log.warn("No {} bean found, {} is not installed", beanName, replacement.getSimpleName());
+            return;
+        }
+        registry.removeBeanDefinition(beanName);
+        registry.registerBeanDefinition(beanName, new RootBeanDefinition(replacement));
+    }
+}
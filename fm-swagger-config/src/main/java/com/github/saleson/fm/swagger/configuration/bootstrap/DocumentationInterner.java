@@ -0,0 +1,333 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import org.springframework.util.StringUtils;
+import org.springframework.web.bind.annotation.RequestMethod;
+import springfox.documentation.builders.ParameterBuilder;
+import springfox.documentation.builders.ResponseMessageBuilder;
+import springfox.documentation.schema.Model;
+import springfox.documentation.schema.ModelProperty;
+import springfox.documentation.schema.ModelRef;
+import springfox.documentation.schema.ModelReference;
+import springfox.documentation.service.AllowableListValues;
+import springfox.documentation.service.AllowableRangeValues;
+import springfox.documentation.service.AllowableValues;
+import springfox.documentation.service.ApiListing;
+import springfox.documentation.service.Documentation;
+import springfox.documentation.service.Parameter;
+import springfox.documentation.service.ResponseMessage;
+import springfox.documentation.spi.service.contexts.Defaults;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 各分组共享的文档对象:
+ * 由配置生成的全局参数、全局响应消息与 {@link ModelRef} 在所有docket间只创建一次;
+ * 扫描后结构完全相同的模型只保留一个实例，同一模型被多个resource或分组引用时不再重复占用内存
+ */
+public class DocumentationInterner {
+
+    private final boolean enabled;
+
+    private final ConcurrentMap<String, ModelRef> modelRefs = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<List<Object>, Parameter> parameters = new ConcurrentHashMap<>();
+
+    /**
+     * springfox的ResponseMessage只按code比较，以配置内容作为key
+     */
+    private final ConcurrentMap<List<Object>, ResponseMessage> responseMessages = new ConcurrentHashMap<>();
+
+    /**
+     * 按模型id索引的规范实例，同一id下结构不同的模型分别保留
+     */
+    private final Map<String, List<Model>> models = new HashMap<>();
+
+    private volatile Map<RequestMethod, List<ResponseMessage>> defaultResponseMessages;
+
+    private int internedModels;
+
+    /**
+     * @param enabled 为false时每次调用都创建新的对象，与未共享时一致
+     */
+    public DocumentationInterner(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @param type 模型类型
+     * @return 同一类型共享的ModelRef
+     */
+    public ModelRef modelRef(String type) {
+        if (!enabled || type == null) {
+            return new ModelRef(type);
+        }
+        return modelRefs.computeIfAbsent(type, ModelRef::new);
+    }
+
+    /**
+     * 由配置创建全局参数，配置相同的参数在各分组间共享
+     *
+     * @param parameter 全局参数配置
+     * @return 全局参数
+     */
+    public Parameter parameter(SwaggerProperties.GlobalOperationParameter parameter) {
+        if (!enabled) {
+            return buildParameter(parameter);
+        }
+        List<Object> key = Arrays.asList(parameter.getName(), parameter.getDescription(), parameter.getModelRef(),
+                parameter.getParameterType(), parameter.isRequired(), parameter.getDefaultValue());
+        return parameters.computeIfAbsent(key, k -> buildParameter(parameter));
+    }
+
+    /**
+     * 由配置创建全局响应消息，内容相同的响应消息在各分组间共享
+     *
+     * @param body 全局响应消息配置
+     * @return 全局响应消息
+     */
+    public ResponseMessage responseMessage(SwaggerProperties.GlobalResponseMessageBody body) {
+        if (!enabled) {
+            return buildResponseMessage(body);
+        }
+        List<Object> key = Arrays.asList(body.getCode(), body.getMessage(), body.getModelRef());
+        return responseMessages.computeIfAbsent(key, k -> buildResponseMessage(body));
+    }
+
+    /**
+     * @return springfox默认的各请求方法响应消息，开启共享时只创建一次
+     */
+    public Map<RequestMethod, List<ResponseMessage>> defaultResponseMessages() {
+        if (!enabled) {
+            return new Defaults().defaultResponseMessages();
+        }
+        Map<RequestMethod, List<ResponseMessage>> defaults = defaultResponseMessages;
+        if (defaults == null) {
+            defaults = Collections.unmodifiableMap(new Defaults().defaultResponseMessages());
+            defaultResponseMessages = defaults;
+        }
+        return defaults;
+    }
+
+    /**
+     * 将分组文档中的模型替换为共享实例
+     *
+     * @param documentation 扫描得到的分组文档
+     */
+    public void internModels(Documentation documentation) {
+        if (!enabled) {
+            return;
+        }
+        for (ApiListing listing : documentation.getApiListings().values()) {
+            Map<String, Model> listingModels = listing.getModels();
+            if (listingModels == null || listingModels.isEmpty()) {
+                continue;
+            }
+            try {
+                listingModels.replaceAll((name, model) -> canonical(model));
+            } catch (UnsupportedOperationException e) {
+                // 自定义插件生成的不可变集合，保持原样
+            }
+        }
+    }
+
+    /**
+     * @return 被共享实例替换的模型数量
+     */
+    public synchronized int getInternedModels() {
+        return internedModels;
+    }
+
+    /**
+     * @return 共享的模型实例数量
+     */
+    public synchronized int getCanonicalModels() {
+        int count = 0;
+        for (List<Model> candidates : models.values()) {
+            count += candidates.size();
+        }
+        return count;
+    }
+
+    /**
+     * 容器停止时释放共享的模型
+     */
+    public synchronized void clear() {
+        models.clear();
+        internedModels = 0;
+    }
+
+    private synchronized Model canonical(Model model) {
+        if (model == null) {
+            return null;
+        }
+        List<Model> candidates = models.computeIfAbsent(String.valueOf(model.getId()), id -> new ArrayList<>(1));
+        for (Model candidate : candidates) {
+            if (candidate == model) {
+                return model;
+            }
+            if (sameModel(candidate, model)) {
+                internedModels++;
+                return candidate;
+            }
+        }
+        candidates.add(model);
+        return model;
+    }
+
+    private ResponseMessage buildResponseMessage(SwaggerProperties.GlobalResponseMessageBody body) {
+        ResponseMessageBuilder builder = new ResponseMessageBuilder()
+                .code(body.getCode())
+                .message(body.getMessage());
+        if (!StringUtils.isEmpty(body.getModelRef())) {
+            builder.responseModel(modelRef(body.getModelRef()));
+        }
+        return builder.build();
+    }
+
+    private Parameter buildParameter(SwaggerProperties.GlobalOperationParameter parameter) {
+        return new ParameterBuilder()
+                .name(parameter.getName())
+                .description(parameter.getDescription())
+                .modelRef(modelRef(parameter.getModelRef()))
+                .parameterType(parameter.getParameterType())
+                .required(parameter.isRequired())
+                .defaultValue(parameter.getDefaultValue())
+                .build();
+    }
+
+    /**
+     * springfox的模型没有实现equals，逐项比较Swagger2映射会用到的内容;
+     * 无法比较的内容(自定义的示例对象、扩展属性)只有同一实例时才视为相同
+     */
+    static boolean sameModel(Model a, Model b) {
+        if (!Objects.equals(a.getId(), b.getId())
+                || !Objects.equals(a.getName(), b.getName())
+                || !Objects.equals(a.getQualifiedType(), b.getQualifiedType())
+                || !Objects.equals(a.getType(), b.getType())
+                || !Objects.equals(a.getDescription(), b.getDescription())
+                || !Objects.equals(a.getBaseModel(), b.getBaseModel())
+                || !Objects.equals(a.getDiscriminator(), b.getDiscriminator())
+                || !sameValue(a.getExample(), b.getExample())
+                || !Objects.equals(a.getXml(), b.getXml())
+                || !sameReferences(a.getSubTypes(), b.getSubTypes())) {
+            return false;
+        }
+        Map<String, ModelProperty> properties = a.getProperties();
+        Map<String, ModelProperty> others = b.getProperties();
+        if (properties == null || others == null) {
+            return properties == others;
+        }
+        if (properties.size() != others.size()) {
+            return false;
+        }
+        for (Map.Entry<String, ModelProperty> entry : properties.entrySet()) {
+            ModelProperty other = others.get(entry.getKey());
+            if (other == null || !sameProperty(entry.getValue(), other)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameProperty(ModelProperty a, ModelProperty b) {
+        return Objects.equals(a.getName(), b.getName())
+                && Objects.equals(a.getType(), b.getType())
+                && Objects.equals(a.getQualifiedType(), b.getQualifiedType())
+                && a.getPosition() == b.getPosition()
+                && Objects.equals(a.isRequired(), b.isRequired())
+                && a.isHidden() == b.isHidden()
+                && Objects.equals(a.isReadOnly(), b.isReadOnly())
+                && Objects.equals(a.isAllowEmptyValue(), b.isAllowEmptyValue())
+                && Objects.equals(a.getDescription(), b.getDescription())
+                && sameAllowableValues(a.getAllowableValues(), b.getAllowableValues())
+                && sameValue(a.getExample(), b.getExample())
+                && Objects.equals(a.getPattern(), b.getPattern())
+                && Objects.equals(a.getDefaultValue(), b.getDefaultValue())
+                && Objects.equals(a.getXml(), b.getXml())
+                && (isEmpty(a.getVendorExtensions()) && isEmpty(b.getVendorExtensions())
+                || a.getVendorExtensions() == b.getVendorExtensions())
+                && sameReference(a.getModelRef(), b.getModelRef());
+    }
+
+    private static boolean sameReferences(List<ModelReference> a, List<ModelReference> b) {
+        if (isEmpty(a) || isEmpty(b)) {
+            return isEmpty(a) && isEmpty(b);
+        }
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!sameReference(a.get(i), b.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameReference(ModelReference a, ModelReference b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        if (!Objects.equals(a.getType(), b.getType())
+                || a.isCollection() != b.isCollection()
+                || a.isMap() != b.isMap()
+                || !Objects.equals(a.getItemType(), b.getItemType())
+                || !sameAllowableValues(a.getAllowableValues(), b.getAllowableValues())) {
+            return false;
+        }
+        ModelReference item = a.itemModel().orNull();
+        ModelReference otherItem = b.itemModel().orNull();
+        return sameReference(item, otherItem);
+    }
+
+    private static boolean sameAllowableValues(AllowableValues a, AllowableValues b) {
+        if (a == b) {
+            return true;
+        }
+        if (a instanceof AllowableListValues && b instanceof AllowableListValues) {
+            AllowableListValues list = (AllowableListValues) a;
+            AllowableListValues other = (AllowableListValues) b;
+            return Objects.equals(list.getValues(), other.getValues())
+                    && Objects.equals(list.getValueType(), other.getValueType());
+        }
+        if (a instanceof AllowableRangeValues && b instanceof AllowableRangeValues) {
+            AllowableRangeValues range = (AllowableRangeValues) a;
+            AllowableRangeValues other = (AllowableRangeValues) b;
+            return Objects.equals(range.getMin(), other.getMin())
+                    && Objects.equals(range.getMax(), other.getMax())
+                    && Objects.equals(range.getExclusiveMin(), other.getExclusiveMin())
+                    && Objects.equals(range.getExclusiveMax(), other.getExclusiveMax());
+        }
+        return false;
+    }
+
+    private static boolean sameValue(Object a, Object b) {
+        if (a == b) {
+            return true;
+        }
+        if (a instanceof CharSequence || a instanceof Number || a instanceof Boolean) {
+            return a.equals(b);
+        }
+        return false;
+    }
+
+    private static boolean isEmpty(List<?> list) {
+        return list == null || list.isEmpty();
+    }
+}
@@ -0,0 +1,75 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import springfox.documentation.OperationNameGenerator;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 替换springfox的CachingOperationNameGenerator;
+ * springfox的计数在所有分组间共享，operationId的后缀依赖分组的扫描顺序，
+ * 这里按分组单独计数，使并行或按需扫描时生成的operationId保持确定
+ */
+public class GroupScopedOperationNameGenerator implements OperationNameGenerator {
+
+    private final Map<String, Integer> shared = new HashMap<>();
+
+    private final ThreadLocal<Map<String, Integer>> groupScope = new ThreadLocal<>();
+
+    private final ThreadLocal<Set<String>> reservedNames = new ThreadLocal<>();
+
+    /**
+     * 当前线程开始扫描一个分组
+     */
+    public void beginGroup() {
+        beginGroup(Collections.emptySet());
+    }
+
+    /**
+     * 当前线程开始扫描分组的一部分，分组中其余operation已使用的名称不会再生成
+     *
+     * @param reserved 已使用的operationId
+     */
+    public void beginGroup(Collection<String> reserved) {
+        groupScope.set(new HashMap<>());
+        reservedNames.set(new HashSet<>(reserved));
+    }
+
+    /**
+     * 当前线程结束分组扫描
+     */
+    public void endGroup() {
+        groupScope.remove();
+        reservedNames.remove();
+    }
+
+    @Override
+    public String startingWith(String prefix) {
+        Map<String, Integer> generated = groupScope.get();
+        if (generated != null) {
+            Set<String> reserved = reservedNames.get();
+            String name = next(generated, prefix);
+            while (reserved.contains(name)) {
+                name = next(generated, prefix);
+            }
+            return name;
+        }
+        synchronized (shared) {
+            return next(shared, prefix);
+        }
+    }
+
+    private static String next(Map<String, Integer> generated, String prefix) {
+        Integer count = generated.get(prefix);
+        if (count == null) {
+            generated.put(prefix, 0);
+            return prefix;
+        }
+        generated.put(prefix, count + 1);
+        return String.format("%s_%s", prefix, count + 1);
+    }
+}
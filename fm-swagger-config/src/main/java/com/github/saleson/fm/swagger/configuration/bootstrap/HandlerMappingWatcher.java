@@ -0,0 +1,137 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import com.github.saleson.fm.swagger.configuration.snapshot.SpecSnapshotStore;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 应用启动完成后定期比较handler映射，发生变化或收到 {@link HandlerMappingsChangedEvent} 时
+ * 由 {@link SwaggerDocumentationBootstrapper#refreshHandlers()} 增量更新文档，并只清除变化分组的序列化缓存与快照
+ */
+public class HandlerMappingWatcher implements ApplicationListener<ApplicationEvent>, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(HandlerMappingWatcher.class);
+
+    private final ObjectProvider<SwaggerDocumentationBootstrapper> bootstrapper;
+
+    private final ObjectProvider<RequestMappingInfoHandlerMapping> handlerMappings;
+
+    private final ObjectProvider<SwaggerSpecCache> specCache;
+
+    private final ObjectProvider<SpecSnapshotStore> snapshotStore;
+
+    private final long interval;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * 上次更新文档时的handler映射
+     */
+    private List<Map<RequestMappingInfo, HandlerMethod>> observed;
+
+    /**
+     * @param bootstrapper    文档扫描器
+     * @param handlerMappings 应用的handler映射
+     * @param specCache       序列化后的文档缓存
+     * @param snapshotStore   文档快照，未开启时为空
+     * @param interval        检查间隔，毫秒，小于等于0时只响应事件
+     */
+    public HandlerMappingWatcher(
+            ObjectProvider<SwaggerDocumentationBootstrapper> bootstrapper,
+            ObjectProvider<RequestMappingInfoHandlerMapping> handlerMappings,
+            ObjectProvider<SwaggerSpecCache> specCache,
+            ObjectProvider<SpecSnapshotStore> snapshotStore,
+            long interval) {
+        this.bootstrapper = bootstrapper;
+        this.handlerMappings = handlerMappings;
+        this.specCache = specCache;
+        this.snapshotStore = snapshotStore;
+        this.interval = interval;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (event instanceof HandlerMappingsChangedEvent) {
+            refresh(true);
+        } else if (event instanceof ApplicationReadyEvent) {
+            start();
+        }
+    }
+
+    private synchronized void start() {
+        observed = handlerMethods();
+        if (interval <= 0 || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "swagger-handler-watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> refresh(false), interval, interval, TimeUnit.MILLISECONDS);
+        log.info("Watching request handler mappings every {} ms for incremental documentation refresh", interval);
+    }
+
+    /**
+     * @param force 为true时不比较handler映射，直接更新
+     */
+    private synchronized void refresh(boolean force) {
+        try {
+            List<Map<RequestMappingInfo, HandlerMethod>> current = handlerMethods();
+            if (!force && current.equals(observed)) {
+                return;
+            }
+            SwaggerDocumentationBootstrapper documentationBootstrapper = bootstrapper.getIfAvailable();
+            Set<String> changedGroups = documentationBootstrapper == null ? null : documentationBootstrapper.refreshHandlers();
+            if (changedGroups == null) {
+                // 初始扫描尚未完成，下次检查时重试
+                return;
+            }
+            observed = current;
+            SwaggerSpecCache cache = specCache.getIfAvailable();
+            SpecSnapshotStore store = snapshotStore.getIfAvailable();
+            for (String group : changedGroups) {
+                if (store != null) {
+                    store.invalidate(group);
+                }
+                if (cache != null) {
+                    cache.invalidate(group);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not refresh documentation after request handler mappings changed", e);
+        }
+    }
+
+    private List<Map<RequestMappingInfo, HandlerMethod>> handlerMethods() {
+        List<Map<RequestMappingInfo, HandlerMethod>> methods = new ArrayList<>();
+        handlerMappings.orderedStream().forEach(each -> methods.add(new LinkedHashMap<>(each.getHandlerMethods())));
+        return methods;
+    }
+
+    @Override
+    public synchronized void destroy() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 应用在运行时注册或移除handler映射后发布，开启 swagger.build.incremental 时立即增量更新文档，不必等待下一次检查
+ */
+public class HandlerMappingsChangedEvent extends ApplicationEvent {
+
+    /**
+     * @param source 发生变化的handler映射或发布事件的对象
+     */
+    public HandlerMappingsChangedEvent(Object source) {
+        super(source);
+    }
+}
@@ -0,0 +1,169 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import com.fasterxml.classmate.ResolvedType;
+import com.google.common.base.Optional;
+import org.springframework.http.MediaType;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.condition.NameValueExpression;
+import org.springframework.web.servlet.mvc.condition.PatternsRequestCondition;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import springfox.documentation.RequestHandler;
+import springfox.documentation.RequestHandlerKey;
+import springfox.documentation.service.ResolvedMethodParameter;
+
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存反射结果的RequestHandler，由 {@link RequestHandlerIndex} 创建并在所有分组间共享;
+ * 参数与返回值类型在创建时解析一次，注解按类型缓存查找结果
+ */
+class IndexedRequestHandler implements RequestHandler {
+
+    private final RequestHandler delegate;
+
+    private final String packageName;
+
+    private final List<Object> identity;
+
+    private final List<ResolvedMethodParameter> parameters;
+
+    private final ResolvedType returnType;
+
+    private final Map<Class<?>, Boolean> annotated = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, Optional<?>> annotations = new ConcurrentHashMap<>();
+
+    private final Map<Class<?>, Optional<?>> controllerAnnotations = new ConcurrentHashMap<>();
+
+    IndexedRequestHandler(RequestHandler delegate) {
+        this.delegate = delegate;
+        this.packageName = ClassUtils.getPackageName(delegate.declaringClass());
+        this.identity = identity(delegate);
+        this.parameters = delegate.getParameters();
+        this.returnType = delegate.getReturnType();
+    }
+
+    String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * @return handler方法与映射条件，相同时视为同一个handler
+     */
+    List<Object> getIdentity() {
+        return identity;
+    }
+
+    static List<Object> identity(RequestHandler handler) {
+        if (handler instanceof IndexedRequestHandler) {
+            return ((IndexedRequestHandler) handler).identity;
+        }
+        HandlerMethod handlerMethod = handler.getHandlerMethod();
+        return Arrays.asList(handlerMethod == null ? handler.getName() : handlerMethod.getMethod(), handler.getRequestMapping());
+    }
+
+    @Override
+    public Class<?> declaringClass() {
+        return delegate.declaringClass();
+    }
+
+    @Override
+    public boolean isAnnotatedWith(Class<? extends Annotation> annotation) {
+        return annotated.computeIfAbsent(annotation, key -> delegate.isAnnotatedWith(annotation));
+    }
+
+    @Override
+    public PatternsRequestCondition getPatternsCondition() {
+        return delegate.getPatternsCondition();
+    }
+
+    @Override
+    public String groupName() {
+        return delegate.groupName();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Set<RequestMethod> supportedMethods() {
+        return delegate.supportedMethods();
+    }
+
+    @Override
+    public Set<? extends MediaType> produces() {
+        return delegate.produces();
+    }
+
+    @Override
+    public Set<? extends MediaType> consumes() {
+        return delegate.consumes();
+    }
+
+    @Override
+    public Set<NameValueExpression<String>> headers() {
+        return delegate.headers();
+    }
+
+    @Override
+    public Set<NameValueExpression<String>> params() {
+        return delegate.params();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Annotation> Optional<T> findAnnotation(Class<T> annotation) {
+        return (Optional<T>) annotations.computeIfAbsent(annotation, key -> delegate.findAnnotation(annotation));
+    }
+
+    @Override
+    public RequestHandlerKey key() {
+        return delegate.key();
+    }
+
+    @Override
+    public List<ResolvedMethodParameter> getParameters() {
+        return parameters;
+    }
+
+    @Override
+    public ResolvedType getReturnType() {
+        return returnType;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends Annotation> Optional<T> findControllerAnnotation(Class<T> annotation) {
+        return (Optional<T>) controllerAnnotations.computeIfAbsent(annotation,
+                key -> delegate.findControllerAnnotation(annotation));
+    }
+
+    @Override
+    public RequestMappingInfo getRequestMapping() {
+        return delegate.getRequestMapping();
+    }
+
+    @Override
+    public HandlerMethod getHandlerMethod() {
+        return delegate.getHandlerMethod();
+    }
+
+    @Override
+    public RequestHandler combine(RequestHandler other) {
+        return delegate.combine(other instanceof IndexedRequestHandler ? ((IndexedRequestHandler) other).delegate : other);
+    }
+
+    @Override
+    public String toString() {
+        return delegate.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import springfox.documentation.spring.web.plugins.Docket;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * 按需构建模式下登记的分组，启动时只保存分组名称与docket的构建方法
+ */
+public class LazyDocketRegistry {
+
+    private final Map<String, Supplier<Docket>> dockets = new LinkedHashMap<>();
+
+    /**
+     * 登记分组
+     *
+     * @param group  分组名称
+     * @param docket docket的构建方法
+     */
+    public void register(String group, Supplier<Docket> docket) {
+        dockets.put(group, docket);
+    }
+
+    /**
+     * @return 登记的分组名称
+     */
+    public Set<String> groups() {
+        return dockets.keySet();
+    }
+
+    /**
+     * 构建分组的docket
+     *
+     * @param group 分组名称
+     * @return 分组未登记时返回null
+     */
+    public Docket create(String group) {
+        Supplier<Docket> docket = dockets.get(group);
+        return docket == null ? null : docket.get();
+    }
+}
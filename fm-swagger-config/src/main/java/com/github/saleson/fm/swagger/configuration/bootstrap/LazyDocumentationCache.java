@@ -0,0 +1,201 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import springfox.documentation.service.Documentation;
+import springfox.documentation.spring.web.DocumentationCache;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.function.Function;
+
+/**
+ * 替换springfox的DocumentationCache，支持按需扫描:
+ * 登记的分组在首次获取文档时才扫描，同一分组的并发请求只扫描一次;
+ * {@link #all()} 返回的视图只在读取value时扫描，列出分组名称不会触发扫描
+ */
+public class LazyDocumentationCache extends DocumentationCache {
+
+    private final ConcurrentMap<String, FutureTask<Documentation>> documentations = new ConcurrentHashMap<>();
+
+    private volatile Set<String> lazyGroups = Collections.emptySet();
+
+    private volatile Function<String, Documentation> loader;
+
+    /**
+     * 登记按需扫描的分组
+     *
+     * @param groups 分组名称
+     * @param loader 分组文档的扫描方法，扫描失败时返回null
+     */
+    public void register(Collection<String> groups, Function<String, Documentation> loader) {
+        this.loader = loader;
+        this.lazyGroups = Collections.unmodifiableSet(new TreeSet<>(groups));
+    }
+
+    @Override
+    public void addDocumentation(Documentation documentation) {
+        FutureTask<Documentation> task = new FutureTask<>(() -> documentation);
+        task.run();
+        documentations.put(documentation.getGroupName(), task);
+    }
+
+    @Override
+    public Documentation documentationByGroup(String groupName) {
+        FutureTask<Documentation> task = documentations.get(groupName);
+        if (task == null) {
+            Function<String, Documentation> load = loader;
+            if (load == null || !lazyGroups.contains(groupName)) {
+                return null;
+            }
+            FutureTask<Documentation> created = new FutureTask<>(() -> load.apply(groupName));
+            task = documentations.putIfAbsent(groupName, created);
+            if (task == null) {
+                task = created;
+                task.run();
+            }
+        }
+        Documentation documentation;
+        try {
+            documentation = await(task);
+        } catch (RuntimeException e) {
+            documentations.remove(groupName, task);
+            throw e;
+        }
+        if (documentation == null) {
+            // 扫描失败，移除后下次请求重新扫描
+            documentations.remove(groupName, task);
+        }
+        return documentation;
+    }
+
+    /**
+     * @return 已扫描与已登记的全部分组名称
+     */
+    public Set<String> groups() {
+        Set<String> groups = new TreeSet<>(documentations.keySet());
+        groups.addAll(lazyGroups);
+        return groups;
+    }
+
+    /**
+     * @param groupName 分组名称
+     * @return 分组文档是否已扫描完成
+     */
+    public boolean isMaterialized(String groupName) {
+        FutureTask<Documentation> task = documentations.get(groupName);
+        return task != null && task.isDone();
+    }
+
+    @Override
+    public Map<String, Documentation> all() {
+        Set<String> groups = Collections.unmodifiableSet(groups());
+        return new AbstractMap<String, Documentation>() {
+
+            @Override
+            public Documentation get(Object key) {
+                return key instanceof String && groups.contains(key) ? documentationByGroup((String) key) : null;
+            }
+
+            @Override
+            public boolean containsKey(Object key) {
+                return groups.contains(key);
+            }
+
+            @Override
+            public Set<String> keySet() {
+                return groups;
+            }
+
+            @Override
+            public Set<Entry<String, Documentation>> entrySet() {
+                return new AbstractSet<Entry<String, Documentation>>() {
+
+                    @Override
+                    public Iterator<Entry<String, Documentation>> iterator() {
+                        Iterator<String> names = groups.iterator();
+                        return new Iterator<Entry<String, Documentation>>() {
+
+                            @Override
+                            public boolean hasNext() {
+                                return names.hasNext();
+                            }
+
+                            @Override
+                            public Entry<String, Documentation> next() {
+                                return new LazyEntry(names.next());
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return groups.size();
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public void clear() {
+        documentations.clear();
+        lazyGroups = Collections.emptySet();
+        loader = null;
+    }
+
+    private Documentation await(FutureTask<Documentation> task) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return task.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private class LazyEntry implements Map.Entry<String, Documentation> {
+
+        private final String group;
+
+        LazyEntry(String group) {
+            this.group = group;
+        }
+
+        @Override
+        public String getKey() {
+            return group;
+        }
+
+        @Override
+        public Documentation getValue() {
+            return documentationByGroup(group);
+        }
+
+        @Override
+        public Documentation setValue(Documentation value) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
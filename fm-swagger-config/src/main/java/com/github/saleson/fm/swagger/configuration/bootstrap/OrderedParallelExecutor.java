@@ -0,0 +1,78 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 在有界的fork-join线程池中并行执行，结果按输入顺序返回
+ */
+public final class OrderedParallelExecutor {
+
+    private OrderedParallelExecutor() {
+    }
+
+    /**
+     * 并行转换列表元素
+     *
+     * @param items       输入
+     * @param parallelism 并行度
+     * @param threadName  线程名前缀
+     * @param function    转换函数
+     * @param <T>         输入类型
+     * @param <R>         输出类型
+     * @return 与输入顺序一致的输出
+     */
+    public static <T, R> List<R> map(List<T> items, int parallelism, String threadName, Function<T, R> function) {
+        if (items.size() <= 1 || parallelism <= 1) {
+            List<R> results = new ArrayList<>(items.size());
+            for (T item : items) {
+                results.add(function.apply(item));
+            }
+            return results;
+        }
+        ForkJoinPool pool = new ForkJoinPool(
+                Math.min(parallelism, items.size()), new ThreadFactory(threadName), null, false);
+        try {
+            List<ForkJoinTask<R>> tasks = new ArrayList<>(items.size());
+            for (T item : items) {
+                tasks.add(pool.submit(() -> function.apply(item)));
+            }
+            List<R> results = new ArrayList<>(items.size());
+            for (ForkJoinTask<R> task : tasks) {
+                results.add(task.join());
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 工作线程沿用调用线程的类加载器，避免在可执行jar中找不到应用的类
+     */
+    private static class ThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+
+        private final String threadName;
+
+        private final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+        private final AtomicInteger counter = new AtomicInteger();
+
+        ThreadFactory(String threadName) {
+            this.threadName = threadName;
+        }
+
+        @Override
+        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName(threadName + "-" + counter.incrementAndGet());
+            thread.setContextClassLoader(classLoader);
+            return thread;
+        }
+    }
+}
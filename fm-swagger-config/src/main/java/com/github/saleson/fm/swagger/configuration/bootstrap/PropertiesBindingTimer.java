@@ -0,0 +1,54 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 记录 {@link SwaggerProperties} 的绑定耗时;
+ * 优先于 ConfigurationPropertiesBindingPostProcessor 执行，初始化前开始计时，初始化后结束
+ */
+public class PropertiesBindingTimer implements BeanPostProcessor, PriorityOrdered, BeanFactoryAware {
+
+    private final Map<String, Long> starts = new ConcurrentHashMap<>();
+
+    private BeanFactory beanFactory;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof SwaggerProperties) {
+            starts.put(beanName, System.nanoTime());
+        }
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        if (bean instanceof SwaggerProperties) {
+            Long start = starts.remove(beanName);
+            if (start != null) {
+                long nanos = System.nanoTime() - start;
+                beanFactory.getBeanProvider(DocumentationBootstrapReport.class)
+                        .ifAvailable(report -> report.recordBinding(nanos));
+            }
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,107 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import springfox.documentation.RequestHandler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 启动时读取一次全部RequestHandler，所有分组共享同一份handler及其反射结果;
+ * 分组按 base-package 从索引中选取handler，不再各自枚举与解析
+ */
+public class RequestHandlerIndex {
+
+    private final List<IndexedRequestHandler> handlers;
+
+    private final Map<List<Object>, IndexedRequestHandler> byIdentity;
+
+    private final Map<String, List<RequestHandler>> byBasePackage = new ConcurrentHashMap<>();
+
+    /**
+     * @param requestHandlers 合并后的全部RequestHandler
+     */
+    public RequestHandlerIndex(List<RequestHandler> requestHandlers) {
+        this(requestHandlers, Collections.emptyMap());
+    }
+
+    private RequestHandlerIndex(List<RequestHandler> requestHandlers, Map<List<Object>, IndexedRequestHandler> previous) {
+        List<IndexedRequestHandler> indexed = new ArrayList<>(requestHandlers.size());
+        Map<List<Object>, IndexedRequestHandler> identities = new HashMap<>();
+        for (RequestHandler each : requestHandlers) {
+            IndexedRequestHandler handler = previous.get(IndexedRequestHandler.identity(each));
+            if (handler == null) {
+                handler = new IndexedRequestHandler(each);
+            }
+            indexed.add(handler);
+            identities.put(handler.getIdentity(), handler);
+        }
+        this.handlers = Collections.unmodifiableList(indexed);
+        this.byIdentity = identities;
+    }
+
+    /**
+     * 由handler映射变化后的全部RequestHandler创建新的索引，未变化的handler沿用已解析的实例
+     *
+     * @param requestHandlers 合并后的全部RequestHandler
+     * @return 新的索引
+     */
+    public RequestHandlerIndex update(List<RequestHandler> requestHandlers) {
+        return new RequestHandlerIndex(requestHandlers, byIdentity);
+    }
+
+    /**
+     * @param previous 变化前的索引
+     * @return 相对 previous 新增与移除的handler
+     */
+    public List<RequestHandler> changedSince(RequestHandlerIndex previous) {
+        Map<List<Object>, IndexedRequestHandler> changed = new LinkedHashMap<>();
+        for (IndexedRequestHandler each : handlers) {
+            if (!previous.byIdentity.containsKey(each.getIdentity())) {
+                changed.put(each.getIdentity(), each);
+            }
+        }
+        for (IndexedRequestHandler each : previous.handlers) {
+            if (!byIdentity.containsKey(each.getIdentity())) {
+                changed.put(each.getIdentity(), each);
+            }
+        }
+        return new ArrayList<>(changed.values());
+    }
+
+    /**
+     * @return 全部handler
+     */
+    public List<RequestHandler> all() {
+        return Collections.unmodifiableList(handlers);
+    }
+
+    /**
+     * 选取包名以 basePackage 开头的handler，与 RequestHandlerSelectors.basePackage 的判断一致
+     *
+     * @param basePackage 包名前缀，为空时返回全部handler
+     * @return 选取的handler，顺序与索引一致
+     */
+    public List<RequestHandler> select(String basePackage) {
+        if (basePackage == null || basePackage.isEmpty()) {
+            return all();
+        }
+        return byBasePackage.computeIfAbsent(basePackage, key -> {
+            List<RequestHandler> selected = new ArrayList<>();
+            for (IndexedRequestHandler each : handlers) {
+                if (each.getPackageName().startsWith(basePackage)) {
+                    selected.add(each);
+                }
+            }
+            return Collections.unmodifiableList(selected);
+        });
+    }
+
+    public int size() {
+        return handlers.size();
+    }
+}
@@ -0,0 +1,713 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import com.fasterxml.classmate.TypeResolver;
+import com.google.common.base.Predicate;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.Multimap;
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import com.github.saleson.fm.swagger.configuration.snapshot.SpecSnapshotManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.util.ClassUtils;
+import springfox.documentation.OperationNameGenerator;
+import springfox.documentation.RequestHandler;
+import springfox.documentation.builders.DocumentationBuilder;
+import springfox.documentation.builders.ResourceListingBuilder;
+import springfox.documentation.schema.AlternateTypeRule;
+import springfox.documentation.schema.AlternateTypeRuleConvention;
+import springfox.documentation.schema.Model;
+import springfox.documentation.service.ApiDescription;
+import springfox.documentation.service.ApiListing;
+import springfox.documentation.service.ApiListingReference;
+import springfox.documentation.service.Documentation;
+import springfox.documentation.service.Operation;
+import springfox.documentation.service.Tag;
+import springfox.documentation.service.Tags;
+import springfox.documentation.spi.service.DocumentationPlugin;
+import springfox.documentation.spi.service.RequestHandlerCombiner;
+import springfox.documentation.spi.service.RequestHandlerProvider;
+import springfox.documentation.spi.service.contexts.Defaults;
+import springfox.documentation.spi.service.contexts.DocumentationContext;
+import springfox.documentation.spi.service.contexts.DocumentationContextBuilder;
+import springfox.documentation.spring.web.DocumentationCache;
+import springfox.documentation.spring.web.plugins.DefaultConfiguration;
+import springfox.documentation.spring.web.plugins.DocumentationPluginsBootstrapper;
+import springfox.documentation.spring.web.plugins.DocumentationPluginsManager;
+import springfox.documentation.spring.web.plugins.Docket;
+import springfox.documentation.spring.web.scanners.ApiDocumentationScanner;
+
+import javax.servlet.ServletContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static springfox.documentation.spi.service.contexts.Orderings.pluginOrdering;
+
+/**
+ * 替换springfox的DocumentationPluginsBootstrapper，默认行为与其一致;
+ * 开启 swagger.build.parallel 时在有界线程池中并行扫描各分组，扫描结果仍按分组顺序写入文档缓存;
+ * 开启 swagger.build.lazy 时只向 {@link LazyDocumentationCache} 登记分组，首次请求时才构建docket并扫描;
+ * 开启 swagger.snapshot.enabled 时启动阶段不扫描，由 {@link SpecSnapshotManager} 复用磁盘快照或在后台重新生成;
+ * 开启 swagger.build.async 时应用启动完成后才在后台扫描，进度记录在 {@link DocumentationBootstrapProgress};
+ * 后台扫描与快照的重新生成在名为 {@value #BOOTSTRAP_EXECUTOR} 的 Executor bean 中执行，未声明时使用容器关闭时停止的单线程线程池;
+ * 各分组共享一份 {@link RequestHandlerIndex}，handler只枚举与解析一次，扫描得到的模型由 {@link DocumentationInterner} 去重;
+ * 开启 swagger.build.incremental 时由 {@link #refreshHandlers()} 在handler映射变化后只重新扫描受影响的resource
+ */
+public class SwaggerDocumentationBootstrapper extends DocumentationPluginsBootstrapper
+        implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SwaggerDocumentationBootstrapper.class);
+
+    /**
+     * 执行后台扫描的 Executor bean 名称
+     */
+    public static final String BOOTSTRAP_EXECUTOR = "swaggerBootstrapExecutor";
+
+    /**
+     * 容器关闭时等待后台任务结束的最长时间，秒
+     */
+    private static final long SHUTDOWN_TIMEOUT = 10;
+
+    /**
+     * springfox默认的RequestHandlerCombiner不是public的，只能反射创建
+     */
+    private static final String DEFAULT_COMBINER = "springfox.documentation.spring.web.plugins.DefaultRequestHandlerCombiner";
+
+    private final DocumentationPluginsManager documentationPluginsManager;
+    private final List<RequestHandlerProvider> handlerProviders;
+    private final DocumentationCache scanned;
+    private final ApiDocumentationScanner resourceListing;
+    private final DefaultConfiguration defaultConfiguration;
+    private final SwaggerProperties swaggerProperties;
+    private final SwaggerProperties.Build build;
+
+    private RequestHandlerIndex requestHandlerIndex;
+
+    private final AtomicBoolean initialized = new AtomicBoolean(false);
+
+    private volatile boolean applicationReady;
+
+    /**
+     * 等待应用启动完成后在后台扫描的文档插件
+     */
+    private List<DocumentationPlugin> pendingPlugins;
+
+    /**
+     * 已扫描的分组及其文档插件，handler映射变化时按插件重新扫描
+     */
+    private final Map<String, DocumentationPlugin> scannedPlugins = new ConcurrentHashMap<>();
+
+    /**
+     * 由快照提供的分组
+     */
+    private volatile Set<String> snapshotGroups = Collections.emptySet();
+
+    @Autowired(required = false)
+    private RequestHandlerCombiner combiner;
+    @Autowired(required = false)
+    private List<AlternateTypeRuleConvention> typeConventions;
+    @Autowired(required = false)
+    private OperationNameGenerator operationNameGenerator;
+    @Autowired(required = false)
+    private DocumentationBootstrapReport report;
+    @Autowired(required = false)
+    private LazyDocketRegistry lazyDocketRegistry;
+    @Autowired(required = false)
+    private List<DocumentationPlugin> documentationPluginBeans;
+    @Autowired(required = false)
+    private SpecSnapshotManager snapshotManager;
+    @Autowired(required = false)
+    private DocumentationBootstrapProgress progress;
+    @Autowired(required = false)
+    private DocumentationInterner interner;
+    @Autowired(required = false)
+    @Qualifier(BOOTSTRAP_EXECUTOR)
+    private Executor bootstrapExecutor;
+
+    /**
+     * 未声明 {@value #BOOTSTRAP_EXECUTOR} 时创建的线程池，由本类关闭
+     */
+    private ThreadPoolExecutor fallbackExecutor;
+
+    @Autowired
+    public SwaggerDocumentationBootstrapper(
+            DocumentationPluginsManager documentationPluginsManager,
+            List<RequestHandlerProvider> handlerProviders,
+            DocumentationCache scanned,
+            ApiDocumentationScanner resourceListing,
+            TypeResolver typeResolver,
+            Defaults defaults,
+            ServletContext servletContext,
+            Environment environment,
+            SwaggerProperties swaggerProperties) {
+        super(documentationPluginsManager, handlerProviders, scanned, resourceListing, typeResolver, defaults,
+                servletContext, environment);
+        this.documentationPluginsManager = documentationPluginsManager;
+        this.handlerProviders = handlerProviders;
+        this.scanned = scanned;
+        this.resourceListing = resourceListing;
+        this.defaultConfiguration = new DefaultConfiguration(defaults, typeResolver, servletContext);
+        this.swaggerProperties = swaggerProperties;
+        this.build = swaggerProperties.getBuild();
+    }
+
+    @Override
+    public void start() {
+        if (initialized.compareAndSet(false, true)) {
+            log.info("Context refreshed");
+            List<DocumentationPlugin> plugins = pluginOrdering().sortedCopy(eagerPlugins());
+            log.info("Found {} custom documentation plugin(s)", plugins.size());
+            List<DocumentationPlugin> enabledPlugins = new ArrayList<>();
+            for (DocumentationPlugin each : plugins) {
+                if (each.isEnabled()) {
+                    enabledPlugins.add(each);
+                } else {
+                    log.info("Skipping initializing disabled plugin bean {} v{}",
+                            each.getDocumentationType().getName(), each.getDocumentationType().getVersion());
+                }
+            }
+
+            if (snapshotManager != null && scanned instanceof LazyDocumentationCache) {
+                deferToSnapshot(enabledPlugins);
+                if (progress != null) {
+                    // 快照模式下分组按需扫描，文档接口不需要等待
+                    progress.start(0);
+                    progress.finish();
+                }
+                return;
+            }
+            if (progress != null) {
+                deferToApplicationReady(enabledPlugins);
+                return;
+            }
+            scanAll(enabledPlugins, false);
+        }
+    }
+
+    /**
+     * 扫描文档插件并按顺序写入文档缓存，随后登记按需构建的分组
+     *
+     * @param enabledPlugins 启用的文档插件
+     * @param background     是否为后台扫描，后台扫描时记录进度
+     */
+    private void scanAll(List<DocumentationPlugin> enabledPlugins, boolean background) {
+        int parallelism = build.isParallel() ? build.getParallelism() : 1;
+        List<Documentation> documentations =
+                OrderedParallelExecutor.map(enabledPlugins, parallelism, "swagger-bootstrap", plugin -> {
+                    Documentation documentation = scanDocumentation(plugin);
+                    if (background) {
+                        progress.groupCompleted(documentation != null);
+                        log.info("Scanned documentation group {} ({}/{})",
+                                plugin.getGroupName(), progress.getCompleted(), progress.getTotal());
+                    }
+                    return documentation;
+                });
+        if (!initialized.get()) {
+            // 后台扫描期间容器已停止
+            return;
+        }
+        for (Documentation documentation : documentations) {
+            if (documentation != null) {
+                scanned.addDocumentation(documentation);
+            }
+        }
+        if (lazyDocketRegistry != null && scanned instanceof LazyDocumentationCache) {
+            ((LazyDocumentationCache) scanned).register(lazyDocketRegistry.groups(), this::materialize);
+            log.info("Registered {} lazy documentation group(s): {}",
+                    lazyDocketRegistry.groups().size(), lazyDocketRegistry.groups());
+        }
+        if (report != null && !documentations.isEmpty()) {
+            log.info(report.summary());
+        }
+        if (interner != null && interner.isEnabled() && !documentations.isEmpty()) {
+            log.info("Shared {} duplicate model(s) across documentation listings, {} distinct model(s) retained",
+                    interner.getInternedModels(), interner.getCanonicalModels());
+        }
+    }
+
+    /**
+     * 异步模式下启动阶段不扫描，应用启动完成后在后台线程扫描
+     *
+     * @param enabledPlugins 启用的文档插件
+     */
+    private void deferToApplicationReady(List<DocumentationPlugin> enabledPlugins) {
+        synchronized (this) {
+            pendingPlugins = enabledPlugins;
+        }
+        if (applicationReady) {
+            scanInBackground();
+        } else {
+            log.info("Deferring documentation scan of {} group(s) until the application is ready", enabledPlugins.size());
+        }
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        applicationReady = true;
+        scanInBackground();
+    }
+
+    private void scanInBackground() {
+        List<DocumentationPlugin> plugins;
+        synchronized (this) {
+            plugins = pendingPlugins;
+            pendingPlugins = null;
+        }
+        if (plugins == null) {
+            return;
+        }
+        progress.start(plugins.size());
+        try {
+            executor().execute(() -> {
+                try {
+                    scanAll(plugins, true);
+                } catch (RuntimeException e) {
+                    log.error("Unable to scan documentation in background", e);
+                } finally {
+                    // 写入文档缓存之后才标记完成，文档接口放行时能看到全部分组
+                    progress.finish();
+                }
+                log.info("Scanned {} documentation group(s) in background in {} ms ({} failed)", progress.getTotal(),
+                        TimeUnit.NANOSECONDS.toMillis(progress.getElapsedNanos()), progress.getFailed());
+            });
+        } catch (RejectedExecutionException e) {
+            log.error("Unable to schedule documentation scan in background", e);
+            progress.finish();
+        }
+    }
+
+    /**
+     * @return 执行后台任务的线程池
+     */
+    private synchronized Executor executor() {
+        if (bootstrapExecutor != null) {
+            return bootstrapExecutor;
+        }
+        if (fallbackExecutor == null) {
+            fallbackExecutor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "swagger-async-bootstrap");
+                thread.setDaemon(true);
+                return thread;
+            });
+            fallbackExecutor.allowCoreThreadTimeOut(true);
+        }
+        return fallbackExecutor;
+    }
+
+    /**
+     * 停止自建的线程池，等待正在执行的后台任务结束; 声明的 {@value #BOOTSTRAP_EXECUTOR} 由其自身的生命周期管理
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        ThreadPoolExecutor executor;
+        synchronized (this) {
+            executor = fallbackExecutor;
+            fallbackExecutor = null;
+        }
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        if (!executor.awaitTermination(SHUTDOWN_TIMEOUT, TimeUnit.SECONDS)) {
+            log.warn("Background documentation tasks did not finish within {} seconds", SHUTDOWN_TIMEOUT);
+        }
+    }
+
+    /**
+     * 使用快照时启动阶段不扫描，全部分组登记为按需扫描，由 {@link SpecSnapshotManager} 决定是否在后台重新生成
+     *
+     * @param enabledPlugins 启用的文档插件
+     */
+    private void deferToSnapshot(List<DocumentationPlugin> enabledPlugins) {
+        Map<String, DocumentationPlugin> deferred = new LinkedHashMap<>();
+        for (DocumentationPlugin each : enabledPlugins) {
+            deferred.put(each.getGroupName(), each);
+        }
+        Set<String> groups = new LinkedHashSet<>(deferred.keySet());
+        if (lazyDocketRegistry != null) {
+            groups.addAll(lazyDocketRegistry.groups());
+        }
+        ((LazyDocumentationCache) scanned).register(groups, group -> {
+            DocumentationPlugin plugin = deferred.get(group);
+            return plugin != null ? scanDocumentation(plugin) : materialize(group);
+        });
+        log.info("Registered {} documentation group(s) backed by snapshot: {}", groups.size(), groups);
+        snapshotGroups = Collections.unmodifiableSet(groups);
+        snapshotManager.start(groups, executor());
+    }
+
+    @Override
+    public void stop() {
+        initialized.getAndSet(false);
+        if (snapshotManager != null) {
+            snapshotManager.stop();
+        }
+        scanned.clear();
+        scannedPlugins.clear();
+        if (interner != null) {
+            interner.clear();
+        }
+        if (progress != null) {
+            progress.reset();
+        }
+        synchronized (this) {
+            requestHandlerIndex = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return initialized.get();
+    }
+
+    /**
+     * 没有docket时springfox会补充一个默认分组，按需构建时分组已登记在 {@link LazyDocketRegistry}，只扫描应用自己声明的docket
+     *
+     * @return 启动时扫描的文档插件
+     */
+    private Iterable<DocumentationPlugin> eagerPlugins() {
+        if (lazyDocketRegistry == null) {
+            return documentationPluginsManager.documentationPlugins();
+        }
+        return documentationPluginBeans == null ? new ArrayList<>() : documentationPluginBeans;
+    }
+
+    /**
+     * 按需构建分组的docket并扫描文档，由 {@link LazyDocumentationCache} 保证同一分组只调用一次
+     *
+     * @param group 分组名称
+     * @return 扫描失败时返回null
+     */
+    private Documentation materialize(String group) {
+        Docket docket = lazyDocketRegistry.create(group);
+        if (docket == null || !docket.isEnabled()) {
+            return null;
+        }
+        Documentation documentation = scanDocumentation(docket);
+        if (report != null) {
+            DocumentationBootstrapReport.GroupTiming timing = report.getGroup(group);
+            log.info("Lazily materialized documentation group {}: build {} ms, scan {} ms", group,
+                    TimeUnit.NANOSECONDS.toMillis(timing.getBuildNanos()), TimeUnit.NANOSECONDS.toMillis(timing.getScanNanos()));
+        }
+        return documentation;
+    }
+
+    private Documentation scanDocumentation(DocumentationPlugin plugin) {
+        long start = System.nanoTime();
+        long allocated = ThreadAllocation.current();
+        DocumentationContext context = plugin.configure(defaultContextBuilder(plugin));
+        GroupScopedOperationNameGenerator groupScope = operationNameGenerator instanceof GroupScopedOperationNameGenerator
+                ? (GroupScopedOperationNameGenerator) operationNameGenerator : null;
+        if (groupScope != null) {
+            groupScope.beginGroup();
+        }
+        if (report != null) {
+            report.beginScan(context.getGroupName());
+        }
+        Documentation documentation = null;
+        try {
+            documentation = resourceListing.scan(context);
+            if (interner != null) {
+                interner.internModels(documentation);
+            }
+            scannedPlugins.put(context.getGroupName(), plugin);
+            return documentation;
+        } catch (Exception e) {
+            log.error(String.format("Unable to scan documentation context %s", context.getGroupName()), e);
+            return null;
+        } finally {
+            if (groupScope != null) {
+                groupScope.endGroup();
+            }
+            if (report != null) {
+                if (documentation != null) {
+                    recordModels(documentation);
+                }
+                report.recordScan(context.getGroupName(), System.nanoTime() - start, ThreadAllocation.since(allocated));
+            }
+        }
+    }
+
+    /**
+     * 统计分组文档保留的模型，同一模型被多个resource引用时只计一次
+     *
+     * @param documentation 分组文档
+     */
+    private void recordModels(Documentation documentation) {
+        Map<String, Model> models = new HashMap<>();
+        for (ApiListing listing : documentation.getApiListings().values()) {
+            models.putAll(listing.getModels());
+        }
+        int properties = 0;
+        for (Model model : models.values()) {
+            if (model.getProperties() != null) {
+                properties += model.getProperties().size();
+            }
+        }
+        report.recordModels(documentation.getGroupName(), models.size(), properties);
+    }
+
+    /**
+     * handler映射变化后增量更新文档:
+     * 只对新增或移除的handler判断各分组的选择规则，受影响的分组只重新扫描这些handler所属的resource(controller)，
+     * 其余resource的扫描结果与模型保持不变;尚未扫描的分组之后直接使用新的handler
+     *
+     * @return 文档发生变化的分组，由快照提供且尚未扫描的分组都视为已变化; 初始扫描尚未完成时返回null，需要稍后重试
+     */
+    public Set<String> refreshHandlers() {
+        if (!initialized.get() || progress != null && !progress.isReady()) {
+            return null;
+        }
+        Set<String> changedGroups = new TreeSet<>();
+        for (String group : snapshotGroups) {
+            if (!scannedPlugins.containsKey(group)) {
+                changedGroups.add(group);
+            }
+        }
+        synchronized (this) {
+            RequestHandlerIndex previous = requestHandlerIndex;
+            if (previous == null) {
+                return changedGroups;
+            }
+            long start = System.nanoTime();
+            requestHandlerIndex = previous.update(combinedRequestHandlers());
+            List<RequestHandler> changed = requestHandlerIndex.changedSince(previous);
+            if (changed.isEmpty()) {
+                return changedGroups;
+            }
+            for (DocumentationPlugin each : new ArrayList<>(scannedPlugins.values())) {
+                if (rescan(each, changed)) {
+                    changedGroups.add(each.getGroupName());
+                }
+            }
+            log.info("Refreshed {} changed request handler(s) in {} ms, changed documentation group(s): {}",
+                    changed.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), changedGroups);
+        }
+        return changedGroups;
+    }
+
+    /**
+     * 重新扫描分组中受handler变化影响的resource，并与其余resource的扫描结果合并
+     *
+     * @param plugin  分组的文档插件
+     * @param changed 新增与移除的handler
+     * @return 分组文档发生变化时返回true
+     */
+    private boolean rescan(DocumentationPlugin plugin, List<RequestHandler> changed) {
+        String group = plugin.getGroupName();
+        Documentation previous = scanned.documentationByGroup(group);
+        if (previous == null) {
+            return false;
+        }
+        String basePackage = basePackage(group);
+        List<RequestHandler> candidates = requestHandlerIndex.select(basePackage);
+        Predicate<RequestHandler> selector = plugin.configure(defaultContextBuilder(plugin, candidates))
+                .getApiSelector().getRequestHandlerSelector();
+        Set<String> resources = new TreeSet<>();
+        for (RequestHandler each : changed) {
+            boolean inPackage = basePackage == null || basePackage.isEmpty()
+                    || ((IndexedRequestHandler) each).getPackageName().startsWith(basePackage);
+            if (inPackage && selector.apply(each)) {
+                resources.add(each.groupName());
+            }
+        }
+        if (resources.isEmpty()) {
+            return false;
+        }
+        long start = System.nanoTime();
+        List<RequestHandler> handlers = new ArrayList<>();
+        for (RequestHandler each : candidates) {
+            if (resources.contains(each.groupName())) {
+                handlers.add(each);
+            }
+        }
+        DocumentationContext context = plugin.configure(defaultContextBuilder(plugin, handlers));
+        GroupScopedOperationNameGenerator groupScope = operationNameGenerator instanceof GroupScopedOperationNameGenerator
+                ? (GroupScopedOperationNameGenerator) operationNameGenerator : null;
+        if (groupScope != null) {
+            groupScope.beginGroup(operationIds(previous, resources));
+        }
+        Documentation partial;
+        try {
+            partial = resourceListing.scan(context);
+        } catch (Exception e) {
+            log.error(String.format("Unable to rescan documentation context %s", group), e);
+            return false;
+        } finally {
+            if (groupScope != null) {
+                groupScope.endGroup();
+            }
+        }
+        if (interner != null) {
+            interner.internModels(partial);
+        }
+        scanned.addDocumentation(merge(previous, partial, resources, context));
+        log.info("Rescanned {} resource(s) of documentation group {} in {} ms: {}", resources.size(), group,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), resources);
+        return true;
+    }
+
+    /**
+     * @return 分组中不重新扫描的resource已使用的operationId
+     */
+    private static Set<String> operationIds(Documentation documentation, Set<String> resources) {
+        Set<String> operationIds = new HashSet<>();
+        for (Map.Entry<String, ApiListing> entry : documentation.getApiListings().entries()) {
+            if (resources.contains(entry.getKey())) {
+                continue;
+            }
+            for (ApiDescription api : entry.getValue().getApis()) {
+                for (Operation operation : api.getOperations()) {
+                    operationIds.add(operation.getUniqueId());
+                }
+            }
+        }
+        return operationIds;
+    }
+
+    /**
+     * 与 ApiDocumentationScanner 组装分组文档的方式一致，resources 的扫描结果替换原有的resource
+     */
+    private static Documentation merge(
+            Documentation previous, Documentation partial, Set<String> resources, DocumentationContext context) {
+        Multimap<String, ApiListing> listings = LinkedListMultimap.create();
+        for (Map.Entry<String, ApiListing> entry : previous.getApiListings().entries()) {
+            if (!resources.contains(entry.getKey())) {
+                listings.put(entry.getKey(), entry.getValue());
+            }
+        }
+        for (Map.Entry<String, ApiListing> entry : partial.getApiListings().entries()) {
+            if (resources.contains(entry.getKey())) {
+                listings.put(entry.getKey(), entry.getValue());
+            }
+        }
+        Set<Tag> tags = Tags.toTags(listings);
+        tags.addAll(context.getTags());
+
+        List<ApiListingReference> references = new ArrayList<>();
+        for (ApiListingReference each : previous.getResourceListing().getApis()) {
+            if (!resources.contains(resourceOf(each))) {
+                references.add(each);
+            }
+        }
+        for (ApiListingReference each : partial.getResourceListing().getApis()) {
+            if (resources.contains(resourceOf(each))) {
+                references.add(each);
+            }
+        }
+        references.sort(context.getListingReferenceOrdering());
+
+        return new DocumentationBuilder()
+                .name(previous.getGroupName())
+                .apiListingsByResourceGroupName(listings)
+                .produces(new LinkedHashSet<>(partial.getProduces()))
+                .consumes(new LinkedHashSet<>(partial.getConsumes()))
+                .host(partial.getHost())
+                .schemes(new LinkedHashSet<>(partial.getSchemes()))
+                .basePath(partial.getBasePath())
+                .extensions(partial.getVendorExtensions())
+                .tags(tags)
+                .resourceListing(new ResourceListingBuilder()
+                        .apiVersion(context.getApiInfo().getVersion())
+                        .apis(references)
+                        .securitySchemes(context.getSecuritySchemes())
+                        .info(context.getApiInfo())
+                        .build())
+                .build();
+    }
+
+    /**
+     * @return resource listing的路径以resource名称结尾
+     */
+    private static String resourceOf(ApiListingReference reference) {
+        String path = reference.getPath();
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private DocumentationContextBuilder defaultContextBuilder(DocumentationPlugin plugin) {
+        return defaultContextBuilder(plugin, requestHandlerIndex().select(basePackage(plugin.getGroupName())));
+    }
+
+    private DocumentationContextBuilder defaultContextBuilder(DocumentationPlugin plugin, List<RequestHandler> requestHandlers) {
+        List<AlternateTypeRule> rules = new ArrayList<>();
+        if (typeConventions != null) {
+            for (AlternateTypeRuleConvention each : typeConventions) {
+                rules.addAll(each.rules());
+            }
+        }
+        return documentationPluginsManager
+                .createContextBuilder(plugin.getDocumentationType(), defaultConfiguration)
+                .rules(rules)
+                .requestHandlers(requestHandlers);
+    }
+
+    /**
+     * 所有分组共享的handler索引，首次扫描时创建
+     *
+     * @return handler索引
+     */
+    private synchronized RequestHandlerIndex requestHandlerIndex() {
+        if (requestHandlerIndex == null) {
+            long start = System.nanoTime();
+            requestHandlerIndex = new RequestHandlerIndex(combinedRequestHandlers());
+            long nanos = System.nanoTime() - start;
+            log.info("Indexed {} request handler(s) in {} ms", requestHandlerIndex.size(), TimeUnit.NANOSECONDS.toMillis(nanos));
+            if (report != null) {
+                report.recordHandlerIndex(nanos, requestHandlerIndex.size());
+            }
+        }
+        return requestHandlerIndex;
+    }
+
+    private List<RequestHandler> combinedRequestHandlers() {
+        List<RequestHandler> requestHandlers = new ArrayList<>();
+        for (RequestHandlerProvider each : handlerProviders) {
+            requestHandlers.addAll(each.requestHandlers());
+        }
+        return combiner().combine(requestHandlers);
+    }
+
+    /**
+     * 由配置创建的分组只会选取 base-package 下的handler，可以预先从索引中筛选;
+     * 应用自己声明的docket返回null，交给其自身的选择规则
+     *
+     * @param group 分组名称
+     * @return 分组的 base-package
+     */
+    private String basePackage(String group) {
+        if (swaggerProperties.getDocket().isEmpty()) {
+            return Docket.DEFAULT_GROUP_NAME.equals(group) ? swaggerProperties.getDocketSelect().getBasePackage() : null;
+        }
+        SwaggerProperties.DocketInfo docketInfo = swaggerProperties.getDocket().get(group);
+        return docketInfo == null ? null : docketInfo.getDocketSelect().getBasePackage();
+    }
+
+    private RequestHandlerCombiner combiner() {
+        if (combiner == null) {
+            combiner = (RequestHandlerCombiner) BeanUtils.instantiateClass(
+                    ClassUtils.resolveClassName(DEFAULT_COMBINER, getClass().getClassLoader()));
+        }
+        return combiner;
+    }
+}
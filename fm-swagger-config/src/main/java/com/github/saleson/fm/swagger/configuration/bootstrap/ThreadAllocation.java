@@ -0,0 +1,51 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * 读取当前线程累计分配的堆内存，用于统计单个阶段的内存开销;
+ * 依赖HotSpot的 com.sun.management.ThreadMXBean，不支持时返回-1
+ */
+public final class ThreadAllocation {
+
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN = threadBean();
+
+    private ThreadAllocation() {
+    }
+
+    /**
+     * @return 当前线程累计分配的字节数，不支持统计时返回-1
+     */
+    public static long current() {
+        if (THREAD_BEAN == null || !THREAD_BEAN.isThreadAllocatedMemoryEnabled()) {
+            return -1;
+        }
+        return THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * @param start 阶段开始时 {@link #current()} 的返回值
+     * @return 阶段内分配的字节数，不支持统计时返回-1
+     */
+    public static long since(long start) {
+        if (start < 0) {
+            return -1;
+        }
+        long now = current();
+        return now < 0 ? -1 : now - start;
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+                return (com.sun.management.ThreadMXBean) bean;
+            }
+        } catch (LinkageError e) {
+            // 非HotSpot虚拟机
+        }
+        return null;
+    }
+}
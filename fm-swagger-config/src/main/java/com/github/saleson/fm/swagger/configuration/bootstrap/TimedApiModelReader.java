@@ -0,0 +1,42 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import com.fasterxml.classmate.TypeResolver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import springfox.documentation.schema.Model;
+import springfox.documentation.schema.ModelProvider;
+import springfox.documentation.spi.service.contexts.RequestMappingContext;
+import springfox.documentation.spring.web.plugins.DocumentationPluginsManager;
+import springfox.documentation.spring.web.scanners.ApiModelReader;
+
+import java.util.Map;
+
+/**
+ * 替换springfox的ApiModelReader，行为不变，按分组累计模型解析的耗时
+ */
+public class TimedApiModelReader extends ApiModelReader {
+
+    @Autowired(required = false)
+    private DocumentationBootstrapReport report;
+
+    @Autowired
+    public TimedApiModelReader(
+            @Qualifier("cachedModels") ModelProvider modelProvider,
+            TypeResolver typeResolver,
+            DocumentationPluginsManager pluginsManager) {
+        super(modelProvider, typeResolver, pluginsManager);
+    }
+
+    @Override
+    public Map<String, Model> read(RequestMappingContext context) {
+        long start = System.nanoTime();
+        try {
+            return super.read(context);
+        } finally {
+            if (report != null) {
+                report.recordModelResolution(
+                        context.getDocumentationContext().getGroupName(), System.nanoTime() - start);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.github.saleson.fm.swagger.configuration.metrics;
+
+import com.github.saleson.fm.swagger.configuration.bootstrap.DocumentationBootstrapProgress;
+import com.github.saleson.fm.swagger.configuration.bootstrap.DocumentationBootstrapReport;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 将 {@link DocumentationBootstrapReport} 发布为Micrometer指标:
+ * swagger.bootstrap 记录配置绑定与handler索引的耗时;
+ * swagger.bootstrap.group 按分组记录docket构建、扫描、模型解析与首次序列化的耗时;
+ * swagger.documentation.* 按分组记录文档保留的模型数量与序列化大小，swagger.bootstrap.allocated 记录扫描与序列化分配的内存;
+ * 异步扫描时 swagger.bootstrap.progress 记录后台已扫描的分组比例
+ */
+public class DocumentationBootstrapMetrics implements MeterBinder {
+
+    private final DocumentationBootstrapReport report;
+
+    private final DocumentationBootstrapProgress progress;
+
+    public DocumentationBootstrapMetrics(DocumentationBootstrapReport report) {
+        this(report, null);
+    }
+
+    /**
+     * @param report   启动报告
+     * @param progress 后台扫描的进度，未开启异步扫描时为null
+     */
+    public DocumentationBootstrapMetrics(DocumentationBootstrapReport report, DocumentationBootstrapProgress progress) {
+        this.report = report;
+        this.progress = progress;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (progress != null) {
+            Gauge.builder("swagger.bootstrap.progress", progress, DocumentationBootstrapMetrics::completedRatio)
+                    .description("Fraction of documentation groups scanned in background")
+                    .register(registry);
+        }
+        // 按需构建的分组在首次请求时才记录，注册监听器后新的阶段耗时直接写入registry
+        report.addListener((phase, group, nanos) -> record(registry, phase, group, nanos));
+    }
+
+    private void record(MeterRegistry registry, String phase, String group, long nanos) {
+        if (group == null) {
+            Timer.builder("swagger.bootstrap")
+                    .description("Time spent in swagger documentation bootstrap phases shared by all groups")
+                    .tag("phase", phase)
+                    .register(registry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+            return;
+        }
+        Timer.builder("swagger.bootstrap.group")
+                .description("Time spent in swagger documentation bootstrap phases of a group")
+                .tag("phase", phase)
+                .tag("group", group)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        bindGroup(registry, group);
+    }
+
+    /**
+     * 注册分组的gauge，重复注册时Micrometer返回已存在的gauge
+     *
+     * @param registry registry
+     * @param group    分组名称
+     */
+    private void bindGroup(MeterRegistry registry, String group) {
+        gauge(registry, "swagger.documentation.models", group, null,
+                "Distinct models retained by the documentation of a group",
+                r -> r.getGroup(group).getModels());
+        gauge(registry, "swagger.documentation.model.properties", group, null,
+                "Model properties retained by the documentation of a group",
+                r -> r.getGroup(group).getModelProperties());
+        gauge(registry, "swagger.documentation.size", group, "bytes",
+                "Serialized size of the specification of a group",
+                r -> r.getGroup(group).getSpecBytes());
+        Gauge.builder("swagger.bootstrap.allocated", report, r -> allocated(r.getGroup(group).getScanAllocatedBytes()))
+                .description("Heap allocated by a documentation bootstrap phase of a group")
+                .baseUnit("bytes")
+                .tag("phase", DocumentationBootstrapReport.PHASE_SCAN)
+                .tag("group", group)
+                .register(registry);
+        Gauge.builder("swagger.bootstrap.allocated", report,
+                r -> allocated(r.getGroup(group).getSerializationAllocatedBytes()))
+                .description("Heap allocated by a documentation bootstrap phase of a group")
+                .baseUnit("bytes")
+                .tag("phase", DocumentationBootstrapReport.PHASE_SERIALIZATION)
+                .tag("group", group)
+                .register(registry);
+    }
+
+    private void gauge(MeterRegistry registry, String name, String group, String baseUnit, String description,
+                       ToDoubleFunction<DocumentationBootstrapReport> value) {
+        Gauge.builder(name, report, value)
+                .description(description)
+                .baseUnit(baseUnit)
+                .tag("group", group)
+                .register(registry);
+    }
+
+    private static double completedRatio(DocumentationBootstrapProgress progress) {
+        if (progress.isReady()) {
+            return 1;
+        }
+        int total = progress.getTotal();
+        return total == 0 ? 0 : (double) progress.getCompleted() / total;
+    }
+
+    private static double allocated(long bytes) {
+        return bytes < 0 ? Double.NaN : bytes;
+    }
+}
@@ -0,0 +1,128 @@
+package com.github.saleson.fm.swagger.configuration.metrics;
+
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecCache;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 文档接口的运行时指标:
+ * swagger.requests 按接口、分组与状态码记录请求次数与耗时;
+ * swagger.response.size 记录响应字节数;
+ * swagger.cache.requests 按分组记录文档缓存的命中与未命中次数;
+ * 分组标签只取配置中的分组名称，其余请求记为 unknown，避免任意 group 参数产生无限的标签
+ */
+public class SwaggerRequestMetrics implements MeterBinder {
+
+    public static final String ENDPOINT_API_DOCS = "api-docs";
+    public static final String ENDPOINT_RESOURCES = "resources";
+    public static final String ENDPOINT_UI = "ui";
+
+    /**
+     * 不属于某个分组的接口，例如 swagger-resources 与 swagger-ui 静态资源
+     */
+    public static final String NO_GROUP = "none";
+
+    public static final String UNKNOWN_GROUP = "unknown";
+
+    private final Set<String> groups;
+
+    private final boolean percentileHistogram;
+
+    private final SwaggerSpecCache specCache;
+
+    private final List<MeterRegistry> registries = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param groups              可作为标签的分组名称
+     * @param percentileHistogram 请求耗时是否发布直方图
+     * @param specCache           文档缓存，未开启缓存时为null
+     */
+    public SwaggerRequestMetrics(Collection<String> groups, boolean percentileHistogram, SwaggerSpecCache specCache) {
+        this.groups = new LinkedHashSet<>(groups);
+        this.percentileHistogram = percentileHistogram;
+        this.specCache = specCache;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        registries.add(registry);
+        if (specCache == null) {
+            return;
+        }
+        Gauge.builder("swagger.cache.bytes", specCache, SwaggerSpecCache::retainedBytes)
+                .description("Bytes retained by cached Swagger specifications and their variants")
+                .baseUnit("bytes")
+                .register(registry);
+        FunctionCounter.builder("swagger.cache.evictions", specCache, SwaggerSpecCache::evictionCount)
+                .description("Swagger specifications evicted for exceeding the cache byte budget")
+                .register(registry);
+        for (String group : groups) {
+            FunctionCounter.builder("swagger.cache.requests", specCache, cache -> cache.hitCount(group))
+                    .description("Swagger specification cache lookups")
+                    .tag("group", group)
+                    .tag("result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("swagger.cache.requests", specCache, cache -> cache.missCount(group))
+                    .description("Swagger specification cache lookups")
+                    .tag("group", group)
+                    .tag("result", "miss")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * @return 是否已绑定到MeterRegistry，未绑定时不需要统计请求
+     */
+    public boolean isBound() {
+        return !registries.isEmpty();
+    }
+
+    /**
+     * @param group 请求的分组名称
+     * @return 作为标签的分组名称，未配置的分组返回 {@link #UNKNOWN_GROUP}
+     */
+    public String group(String group) {
+        return groups.contains(group) ? group : UNKNOWN_GROUP;
+    }
+
+    /**
+     * 记录一次请求
+     *
+     * @param endpoint 接口
+     * @param group    分组标签
+     * @param status   响应状态码
+     * @param nanos    耗时，纳秒
+     * @param bytes    响应字节数
+     */
+    public void record(String endpoint, String group, int status, long nanos, long bytes) {
+        String statusTag = String.valueOf(status);
+        for (MeterRegistry registry : registries) {
+            Timer.builder("swagger.requests")
+                    .description("Requests to swagger documentation endpoints")
+                    .tag("endpoint", endpoint)
+                    .tag("group", group)
+                    .tag("status", statusTag)
+                    .publishPercentileHistogram(percentileHistogram)
+                    .register(registry)
+                    .record(nanos, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("swagger.response.size")
+                    .description("Response size of swagger documentation endpoints")
+                    .baseUnit("bytes")
+                    .tag("endpoint", endpoint)
+                    .tag("group", group)
+                    .register(registry)
+                    .record(bytes);
+        }
+    }
+}
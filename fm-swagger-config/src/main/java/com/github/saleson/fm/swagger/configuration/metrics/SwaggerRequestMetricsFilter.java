@@ -0,0 +1,137 @@
+package com.github.saleson.fm.swagger.configuration.metrics;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+import springfox.documentation.spring.web.plugins.Docket;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 统计文档接口与swagger-ui静态资源的请求，注册在文档相关的路径上，其余请求不经过该过滤器
+ */
+public class SwaggerRequestMetricsFilter extends OncePerRequestFilter {
+
+    public static final String RESOURCES_PATH = "/swagger-resources";
+    public static final String UI_PAGE = "/swagger-ui.html";
+    public static final String UI_ASSETS_PATH = "/webjars/springfox-swagger-ui/";
+
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    private final SwaggerRequestMetrics metrics;
+
+    private final String apiDocsPath;
+
+    /**
+     * OpenAPI 3.0 文档的路径，未开启时为null
+     */
+    private final String openApiPath;
+
+    /**
+     * @param metrics     请求指标
+     * @param apiDocsPath 分组文档的路径
+     */
+    public SwaggerRequestMetricsFilter(SwaggerRequestMetrics metrics, String apiDocsPath) {
+        this(metrics, apiDocsPath, null);
+    }
+
+    /**
+     * @param metrics     请求指标
+     * @param apiDocsPath 分组文档的路径
+     * @param openApiPath OpenAPI 3.0 文档的路径，与分组文档计入同一指标，为null时不统计
+     */
+    public SwaggerRequestMetricsFilter(SwaggerRequestMetrics metrics, String apiDocsPath, String openApiPath) {
+        this.metrics = metrics;
+        this.apiDocsPath = apiDocsPath;
+        this.openApiPath = openApiPath;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !metrics.isBound();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = urlPathHelper.getPathWithinApplication(request);
+        String endpoint = endpoint(path);
+        if (endpoint == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        String group = SwaggerRequestMetrics.NO_GROUP;
+        if (SwaggerRequestMetrics.ENDPOINT_API_DOCS.equals(endpoint)) {
+            String requested = request.getParameter("group");
+            group = metrics.group(requested == null ? Docket.DEFAULT_GROUP_NAME : requested);
+        }
+        CountingResponseWrapper counting = new CountingResponseWrapper(response);
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, counting);
+            async = request.isAsyncStarted();
+        } finally {
+            if (async) {
+                // 异步返回的文档在异步处理结束时统计
+                request.getAsyncContext().addListener(new RecordingListener(endpoint, group, counting, start));
+            } else {
+                metrics.record(endpoint, group, counting.getStatus(), System.nanoTime() - start,
+                        counting.getBytesWritten());
+            }
+        }
+    }
+
+    private String endpoint(String path) {
+        if (path.equals(apiDocsPath) || path.equals(openApiPath)) {
+            return SwaggerRequestMetrics.ENDPOINT_API_DOCS;
+        }
+        if (path.equals(RESOURCES_PATH) || path.startsWith(RESOURCES_PATH + "/")) {
+            return SwaggerRequestMetrics.ENDPOINT_RESOURCES;
+        }
+        if (path.equals(UI_PAGE) || path.startsWith(UI_ASSETS_PATH)) {
+            return SwaggerRequestMetrics.ENDPOINT_UI;
+        }
+        return null;
+    }
+
+    private class RecordingListener implements AsyncListener {
+
+        private final String endpoint;
+
+        private final String group;
+
+        private final CountingResponseWrapper counting;
+
+        private final long start;
+
+        RecordingListener(String endpoint, String group, CountingResponseWrapper counting, long start) {
+            this.endpoint = endpoint;
+            this.group = group;
+            this.counting = counting;
+            this.start = start;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            metrics.record(endpoint, group, counting.getStatus(), System.nanoTime() - start, counting.getBytesWritten());
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.github.saleson.fm.swagger.configuration.prebuilt;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import springfox.documentation.annotations.ApiIgnore;
+import springfox.documentation.swagger.web.SecurityConfiguration;
+import springfox.documentation.swagger.web.SecurityConfigurationBuilder;
+import springfox.documentation.swagger.web.SwaggerResource;
+import springfox.documentation.swagger.web.SwaggerResourcesProvider;
+import springfox.documentation.swagger.web.UiConfiguration;
+import springfox.documentation.swagger.web.UiConfigurationBuilder;
+
+import java.util.List;
+
+/**
+ * prebuilt模式下不加载springfox，由此提供swagger-ui所需的 swagger-resources 接口
+ */
+@RestController
+@ApiIgnore
+@RequestMapping("/swagger-resources")
+public class PrebuiltApiResourceController {
+
+    @Autowired(required = false)
+    private SecurityConfiguration securityConfiguration;
+
+    @Autowired(required = false)
+    private UiConfiguration uiConfiguration;
+
+    private final SwaggerResourcesProvider swaggerResources;
+
+    public PrebuiltApiResourceController(SwaggerResourcesProvider swaggerResources) {
+        this.swaggerResources = swaggerResources;
+    }
+
+    @RequestMapping(value = "/configuration/security")
+    public ResponseEntity<SecurityConfiguration> securityConfiguration() {
+        return ResponseEntity.ok(
+                securityConfiguration == null ? SecurityConfigurationBuilder.builder().build() : securityConfiguration);
+    }
+
+    @RequestMapping(value = "/configuration/ui")
+    public ResponseEntity<UiConfiguration> uiConfiguration() {
+        return ResponseEntity.ok(uiConfiguration == null ? UiConfigurationBuilder.builder().build() : uiConfiguration);
+    }
+
+    @RequestMapping
+    public ResponseEntity<List<SwaggerResource>> swaggerResources() {
+        return ResponseEntity.ok(swaggerResources.get());
+    }
+}
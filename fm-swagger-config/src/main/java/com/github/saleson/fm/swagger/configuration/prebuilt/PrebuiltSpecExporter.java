@@ -0,0 +1,81 @@
+package com.github.saleson.fm.swagger.configuration.prebuilt;
+
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpec;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecGenerator;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecKey;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecKeyResolver;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+import springfox.documentation.service.Documentation;
+import springfox.documentation.spring.web.DocumentationCache;
+import springfox.documentation.spring.web.json.JacksonModuleRegistrar;
+import springfox.documentation.swagger2.mappers.ServiceModelToSwagger2Mapper;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 构建时启动一次应用，把每个分组的文档写入 META-INF/fm-swagger/&lt;group&gt;.json，分组名称按URL编码;
+ * 由 fm-swagger-maven-plugin 在应用自身的classpath中调用
+ */
+public final class PrebuiltSpecExporter {
+
+    private PrebuiltSpecExporter() {
+    }
+
+    /**
+     * 启动应用并导出全部分组文档
+     *
+     * @param mainClass       应用的启动类
+     * @param outputDirectory 输出目录
+     * @param args            应用启动参数
+     * @return 导出的分组名称
+     * @throws IOException 写入文件失败
+     */
+    public static List<String> export(String mainClass, File outputDirectory, String... args) throws IOException {
+        Class<?> source = ClassUtils.resolveClassName(mainClass, ClassUtils.getDefaultClassLoader());
+        SpringApplication application = new SpringApplication(source);
+        application.setWebApplicationType(WebApplicationType.SERVLET);
+
+        // 命令行参数优先级最高，保证以扫描模式启动且不占用固定端口
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        arguments.add("--swagger.enabled=true");
+        arguments.add("--swagger.mode=scan");
+        arguments.add("--swagger.snapshot.enabled=false");
+        arguments.add("--server.port=0");
+
+        List<String> groups = new ArrayList<>();
+        try (ConfigurableApplicationContext context = application.run(StringUtils.toStringArray(arguments))) {
+            DocumentationCache documentationCache = context.getBean(DocumentationCache.class);
+            SwaggerSpecGenerator generator = new SwaggerSpecGenerator(
+                    new SwaggerSpecKeyResolver(context.getEnvironment()),
+                    documentationCache,
+                    context.getBean(ServiceModelToSwagger2Mapper.class),
+                    new ArrayList<>(context.getBeansOfType(JacksonModuleRegistrar.class).values()));
+
+            if (!outputDirectory.isDirectory() && !outputDirectory.mkdirs()) {
+                throw new IOException("Could not create directory " + outputDirectory);
+            }
+            for (Map.Entry<String, Documentation> entry : documentationCache.all().entrySet()) {
+                Documentation documentation = entry.getValue();
+                // host未配置时不写入文档，运行时按请求填充
+                String host = StringUtils.hasText(documentation.getHost()) ? documentation.getHost() : null;
+                SwaggerSpec spec = generator.generate(new SwaggerSpecKey(entry.getKey(), host, documentation.getBasePath()));
+                try (OutputStream out = new FileOutputStream(new File(outputDirectory, PrebuiltSpecSource.filename(entry.getKey())))) {
+                    spec.writeTo(out);
+                }
+                groups.add(entry.getKey());
+            }
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,155 @@
+package com.github.saleson.fm.swagger.configuration.prebuilt;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpec;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecKey;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecKeyResolver;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecSource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 读取构建时生成在 META-INF/fm-swagger/&lt;group&gt;.json 中的分组文档，文件名中的分组名称经过URL编码;
+ * 文档中的host与basePath在运行时按请求填充
+ */
+public class PrebuiltSpecSource implements SwaggerSpecSource {
+
+    public static final String LOCATION = "META-INF/fm-swagger/";
+
+    public static final String SUFFIX = ".json";
+
+    private static final String HOST = "host";
+
+    private static final String BASE_PATH = "basePath";
+
+    private static final String ENCODING = "UTF-8";
+
+    private final SwaggerSpecKeyResolver keyResolver;
+
+    private final ObjectMapper objectMapper;
+
+    private final Map<String, Template> templates;
+
+    public PrebuiltSpecSource(SwaggerSpecKeyResolver keyResolver, ObjectMapper objectMapper, ResourcePatternResolver resourceResolver)
+            throws IOException {
+        this.keyResolver = keyResolver;
+        this.objectMapper = objectMapper;
+        this.templates = Collections.unmodifiableMap(load(resourceResolver));
+    }
+
+    @Override
+    public Collection<String> groups() {
+        return templates.keySet();
+    }
+
+    @Override
+    public SwaggerSpecKey keyFor(String group, HttpServletRequest request) {
+        Template template = templates.get(group);
+        if (template == null) {
+            return null;
+        }
+        return keyResolver.resolve(group, template.host, template.basePath, request);
+    }
+
+    @Override
+    public SwaggerSpec generate(SwaggerSpecKey key) {
+        Template template = templates.get(key.getGroup());
+        try {
+            ObjectNode prebuilt = (ObjectNode) objectMapper.readTree(template.content);
+            ObjectNode spec = objectMapper.createObjectNode();
+            Iterator<Map.Entry<String, JsonNode>> fields = prebuilt.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                // 保持与springfox一致的字段顺序: host 紧跟在 basePath 之前
+                if (BASE_PATH.equals(field.getKey())) {
+                    if (key.getHost() != null) {
+                        spec.put(HOST, key.getHost());
+                    }
+                    spec.put(BASE_PATH, key.getBasePath());
+                } else if (!HOST.equals(field.getKey())) {
+                    spec.set(field.getKey(), field.getValue());
+                }
+            }
+            return new SwaggerSpec(key, objectMapper.writeValueAsBytes(spec));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read prebuilt specification for group " + key.getGroup(), e);
+        }
+    }
+
+    private Map<String, Template> load(ResourcePatternResolver resourceResolver) throws IOException {
+        Map<String, Template> loaded = new TreeMap<>();
+        for (Resource resource : resourceResolver.getResources(
+                ResourcePatternResolver.CLASSPATH_ALL_URL_PREFIX + LOCATION + "*" + SUFFIX)) {
+            String filename = resource.getFilename();
+            String group = group(filename);
+            if (loaded.containsKey(group)) {
+                continue;
+            }
+            byte[] content;
+            try (InputStream in = resource.getInputStream()) {
+                content = StreamUtils.copyToByteArray(in);
+            }
+            JsonNode prebuilt = objectMapper.readTree(content);
+            loaded.put(group, new Template(content, prebuilt.path(HOST).asText(null), prebuilt.path(BASE_PATH).asText(null)));
+        }
+        return loaded;
+    }
+
+    /**
+     * 分组文档的文件名; 分组名称可能包含 / : * 等不能出现在文件名中的字符，按URL编码
+     *
+     * @param group 分组名称
+     * @return 文件名
+     */
+    static String filename(String group) {
+        try {
+            // URLEncoder 不编码 *
+            return URLEncoder.encode(group, ENCODING).replace("*", "%2A") + SUFFIX;
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param filename {@link #filename(String)} 生成的文件名
+     * @return 分组名称
+     */
+    static String group(String filename) {
+        try {
+            return URLDecoder.decode(filename.substring(0, filename.length() - SUFFIX.length()), ENCODING);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class Template {
+
+        private final byte[] content;
+
+        private final String host;
+
+        private final String basePath;
+
+        Template(byte[] content, String host, String basePath) {
+            this.content = content;
+            this.host = host;
+            this.basePath = basePath;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.github.saleson.fm.swagger.configuration.properties;
 
+import com.github.saleson.fm.swagger.configuration.spec.SpecStorage;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecFormat;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -9,6 +11,7 @@ import springfox.documentation.swagger.web.OperationsSorter;
 import springfox.documentation.swagger.web.TagsSorter;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -22,6 +25,12 @@ public class SwaggerProperties {
      **/
     private boolean enabled;
 
+    /**
+     * 文档生成方式，可选 scan | prebuilt，默认 scan;
+     * prebuilt 时直接读取构建时生成的 META-INF/fm-swagger/&lt;group&gt;.json，不加载springfox的扫描器
+     **/
+    private String mode = "scan";
+
     private ApiInfo apiInfo = new ApiInfo();
 
 
@@ -65,6 +74,48 @@ public class SwaggerProperties {
      **/
     private Authorization authorization = new Authorization();
 
+    /**
+     * 文档缓存配置
+     **/
+    private Cache cache = new Cache();
+
+    /**
+     * docket构建与文档扫描配置
+     **/
+    private Build build = new Build();
+
+    /**
+     * 文档接口的http响应配置
+     **/
+    private Http http = new Http();
+
+    /**
+     * 文档接口的运行时指标配置
+     **/
+    private Metrics metrics = new Metrics();
+
+    /**
+     * 文档快照配置
+     **/
+    private Snapshot snapshot = new Snapshot();
+
+    /**
+     * 文档接口与业务请求的线程隔离配置
+     **/
+    private Isolation isolation = new Isolation();
+
+    /**
+     * 文档输出格式，可选 swagger2 | openapi3，默认 swagger2;
+     * 各格式共用同一次扫描的结果，openapi3 由 Swagger 2.0 文档转换并单独缓存，
+     * swagger-resources 中使用第一个格式的地址
+     **/
+    private List<SwaggerSpecFormat> outputFormats = new ArrayList<>(Collections.singletonList(SwaggerSpecFormat.SWAGGER_2));
+
+    /**
+     * OpenAPI 3.0 文档的路径，默认 /v3/api-docs
+     **/
+    private String openApiPath = "/v3/api-docs";
+
     @Data
     @NoArgsConstructor
     public static class GlobalOperationParameter {
@@ -261,6 +312,12 @@ public class SwaggerProperties {
          * Network
          */
         private String validatorUrl;
+
+        /**
+         * 是否按tag分批加载，默认false; 开启后swagger-ui首次只加载分组的骨架文档(tag与operation摘要)，
+         * 每个tag作为单独的资源，展开时加载该tag的完整operation与模型，适用于operation很多的分组
+         */
+        private Boolean lazyTags = false;
     }
 
     /**
@@ -343,6 +400,202 @@ public class SwaggerProperties {
         private List<String> excludePath = new ArrayList<>();
     }
 
-}
 
+    @Data
+    @NoArgsConstructor
+    public static class Cache {
+        /**
+         * 是否缓存序列化后的分组文档，默认 true
+         **/
+        private boolean enabled = true;
+
+        /**
+         * 最多缓存的文档数量，同一分组在不同host下分别缓存
+         **/
+        private int maxEntries = 16;
+
+        /**
+         * 缓存的文档及其压缩、CBOR等变体与子文档占用的字节上限，默认 64MB，小于等于0时不限制;
+         * 超出时淘汰最久未请求的文档
+         **/
+        private long maxBytes = 64L * 1024 * 1024;
+
+        /**
+         * 缓存文档的存放位置，可选 heap | direct | mapped，默认 direct;
+         * direct 与 mapped 不占用堆内存，响应直接由缓冲区写出
+         **/
+        private SpecStorage.Type storage = SpecStorage.Type.DIRECT;
+
+        /**
+         * storage 为 mapped 时在该目录下创建存放临时文件的目录，应用关闭时删除，默认系统临时目录
+         **/
+        private String storageDirectory;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Build {
+        /**
+         * 是否并行构建docket并扫描文档，默认 false;
+         * 开启后operationId的去重后缀按分组单独计数，不再依赖分组的扫描顺序
+         **/
+        private boolean parallel = false;
+
+        /**
+         * 并行构建的线程数，默认为CPU核数
+         **/
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * 是否按需构建docket，默认 false;
+         * 开启后启动时只登记分组，首次请求分组文档时才构建docket并扫描，同一分组并发请求只构建一次
+         **/
+        private boolean lazy = false;
+
+        /**
+         * 是否在应用启动完成后于后台线程扫描文档，默认 false;
+         * 开启后启动阶段只注册docket，扫描结束前文档接口返回503，开启文档快照时以快照为准;
+         * 扫描在名为 swaggerBootstrapExecutor 的 Executor bean 中执行，未声明时使用单线程的线程池
+         **/
+        private boolean async = false;
+
+        /**
+         * 后台扫描结束前文档接口返回的 Retry-After 秒数，默认 5
+         **/
+        private int retryAfter = 5;
+
+        /**
+         * 是否在各分组间共享全局参数、全局响应消息与结构相同的模型，默认 true
+         **/
+        private boolean intern = true;
+
+        /**
+         * 是否在运行时handler映射变化后增量更新文档，默认 false;
+         * 开启后只重新扫描受影响分组中变化的controller，未受影响分组的文档缓存保持不变，operationId的去重后缀按分组单独计数
+         **/
+        private boolean incremental = false;
 
+        /**
+         * 检查handler映射变化的间隔，毫秒，默认 2000; 小于等于0时不检查，只响应 HandlerMappingsChangedEvent
+         **/
+        private long incrementalInterval = 2000;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Http {
+        /**
+         * 是否返回基于内容摘要的强ETag并对 If-None-Match 返回304，默认 true
+         **/
+        private boolean etag = true;
+
+        /**
+         * 是否按 Accept-Encoding 返回预压缩的文档，默认 true; 压缩结果随文档缓存，每个文档版本只压缩一次
+         **/
+        private boolean compression = true;
+
+        /**
+         * 小于该字节数的文档不压缩，默认 2048
+         **/
+        private int compressionMinSize = 2048;
+
+        /**
+         * 是否按 Accept: application/cbor 返回CBOR编码的文档，默认 true; 与json文档共用缓存，每个文档版本只转换一次;
+         * 需要classpath中存在 jackson-dataformat-cbor
+         **/
+        private boolean cbor = true;
+
+        /**
+         * 是否开启 /swagger-fingerprint 接口，返回各分组每个operation与模型的摘要及其与之前摘要的差异，默认 true
+         **/
+        private boolean fingerprint = true;
+
+        /**
+         * 缓存已满、文档不再缓存时是否由Jackson流式生成器直接写入响应，默认 true;
+         * 流式写出的文档没有ETag与Content-Length，压缩在写出时进行
+         **/
+        private boolean streaming = true;
+
+        /**
+         * 文档响应的 Cache-Control，例如 no-cache，默认不设置
+         **/
+        private String cacheControl;
+
+        /**
+         * 是否在启动时索引swagger-ui静态资源并由专门的过滤器返回，默认 true;
+         * 资源预先计算摘要与压缩，带摘要的地址长期缓存，支持时由servlet容器sendfile发送
+         **/
+        private boolean uiAssets = true;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Metrics {
+        /**
+         * 是否记录 /v2/api-docs、/swagger-resources 与 swagger-ui 静态资源的请求指标，默认 true;
+         * classpath中存在micrometer且容器中有MeterRegistry时才会记录
+         **/
+        private boolean enabled = true;
+
+        /**
+         * 请求耗时是否发布直方图，默认 true
+         **/
+        private boolean percentileHistogram = true;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Snapshot {
+        /**
+         * 是否把序列化后的分组文档保存到磁盘并在重启后复用，默认 false;
+         * 启动时按handler集合、swagger配置、Docket与springfox插件bean的声明类以及可达模型类的字节码计算指纹，
+         * 指纹一致时直接映射快照文件，不再扫描; 指纹不一致时在后台重新扫描并写入新快照。开启后operationId的去重后缀按分组单独计数;
+         * 指纹不包括: 以字符串引用的类型(例如 @ApiImplicitParam(dataType="Foo"))、swagger.* 以外的配置与外部资源文件、
+         * 框架包(spring、springfox、jackson等)中除springfox版本以外的变化、运行时生成的类，以及Docket与插件内容对运行时状态的依赖;
+         * 这些变化后需要删除快照目录
+         **/
+        private boolean enabled = false;
+
+        /**
+         * 快照目录，默认为 ${java.io.tmpdir}/fm-swagger/${spring.application.name}
+         **/
+        private String directory;
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Isolation {
+        /**
+         * 是否以servlet异步方式在独立的有界线程池中生成 /v2/api-docs 与 /v3/api-docs，默认 false;
+         * 需要生成文档的请求不再占用servlet容器的工作线程，超出并发上限时直接拒绝;
+         * 命中缓存与返回304的请求只写出已序列化的内容，仍在当前线程直接返回。
+         * 隔离的只是线程: 文档线程与业务请求仍然共享CPU
+         **/
+        private boolean enabled = false;
+
+        /**
+         * 返回文档的线程数，默认 2
+         **/
+        private int threads = 2;
+
+        /**
+         * 等待线程的请求数上限，默认 32; 队列已满时返回503
+         **/
+        private int queueCapacity = 32;
+
+        /**
+         * 每个分组同时处理(包括排队)的请求数上限，默认 4; 超出时返回429
+         **/
+        private int maxConcurrentPerGroup = 4;
+
+        /**
+         * 请求排队的最长时间，毫秒，默认 10000; 排队超时的请求不再处理，返回503
+         **/
+        private long queueTimeout = 10000;
+
+        /**
+         * 拒绝请求时返回的 Retry-After 秒数，默认 1
+         **/
+        private int retryAfter = 1;
+    }
+}
@@ -0,0 +1,246 @@
+package com.github.saleson.fm.swagger.configuration.snapshot;
+
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import com.github.saleson.fm.swagger.configuration.spec.SpecSupport;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+import springfox.documentation.spring.web.plugins.Docket;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 不经过springfox扫描计算应用文档的指纹，内容包括:
+ * 影响文档内容的swagger配置、springfox版本、所有handler的映射与方法签名，
+ * 声明Docket与springfox插件bean的类的字节码摘要，
+ * 以及handler类和其参数、返回值、字段、getter返回值与注解中引用的类(例如 @ApiResponse(response=)、
+ * &#64;ApiModel(subTypes=)、&#64;ApiImplicitParam(dataTypeClass=))可达的模型类的字节码摘要
+ */
+public final class SnapshotFingerprint {
+
+    /**
+     * 不需要展开的框架类型，其变化由springfox版本与handler签名体现
+     */
+    private static final String[] FRAMEWORK_PACKAGES = {
+            "java.", "javax.", "sun.", "com.sun.", "org.springframework.", "springfox.", "io.swagger.",
+            "com.fasterxml.", "com.google.", "org.apache.", "lombok."
+    };
+
+    private SnapshotFingerprint() {
+    }
+
+    /**
+     * 计算指纹
+     *
+     * @param handlerMappings   应用的handler映射
+     * @param swaggerProperties 绑定后的swagger配置
+     * @param pluginClasses     声明Docket与springfox插件bean的类，factory方法声明的bean为其配置类
+     * @return 十六进制的SHA-256摘要
+     */
+    public static String compute(Iterable<RequestMappingInfoHandlerMapping> handlerMappings,
+                                 SwaggerProperties swaggerProperties, Collection<Class<?>> pluginClasses) {
+        MessageDigest digest = sha256();
+        update(digest, "springfox " + Docket.class.getPackage().getImplementationVersion());
+        update(digest, documentProperties(swaggerProperties));
+
+        // 按映射排序，保证与handler注册顺序无关
+        Map<String, HandlerMethod> handlers = new TreeMap<>();
+        for (RequestMappingInfoHandlerMapping handlerMapping : handlerMappings) {
+            for (Map.Entry<RequestMappingInfo, HandlerMethod> entry : handlerMapping.getHandlerMethods().entrySet()) {
+                handlers.put(entry.getKey() + " " + entry.getValue().getMethod().toGenericString(), entry.getValue());
+            }
+        }
+        Set<Class<?>> visited = new HashSet<>();
+        Deque<Type> pending = new ArrayDeque<>(pluginClasses);
+        for (Map.Entry<String, HandlerMethod> entry : handlers.entrySet()) {
+            update(digest, entry.getKey());
+            Method method = entry.getValue().getMethod();
+            pending.add(entry.getValue().getBeanType());
+            pending.add(method.getGenericReturnType());
+            for (Type parameter : method.getGenericParameterTypes()) {
+                pending.add(parameter);
+            }
+        }
+
+        // 字节码按类名排序后计入摘要
+        Map<String, Class<?>> classes = new TreeMap<>();
+        while (!pending.isEmpty()) {
+            Class<?> type = expand(pending.poll(), pending);
+            if (type == null || !visited.add(type) || isFramework(type)) {
+                continue;
+            }
+            classes.put(type.getName(), type);
+            addReferencedTypes(type.getAnnotations(), pending);
+            for (Field field : type.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    pending.add(field.getGenericType());
+                    addReferencedTypes(field.getAnnotations(), pending);
+                }
+            }
+            for (Method method : type.getDeclaredMethods()) {
+                addReferencedTypes(method.getAnnotations(), pending);
+                for (Annotation[] annotations : method.getParameterAnnotations()) {
+                    addReferencedTypes(annotations, pending);
+                }
+                if (isGetter(method)) {
+                    pending.add(method.getGenericReturnType());
+                }
+            }
+            if (type.getGenericSuperclass() != null) {
+                pending.add(type.getGenericSuperclass());
+            }
+        }
+        for (Class<?> type : classes.values()) {
+            update(digest, type.getName());
+            updateBytecode(digest, type);
+        }
+        return SpecSupport.hex(digest.digest());
+    }
+
+    /**
+     * 只取影响文档内容的配置，构建方式、缓存与http等运行时配置不影响快照
+     */
+    private static String documentProperties(SwaggerProperties properties) {
+        return "apiInfo=" + properties.getApiInfo()
+                + ", ignoredParameterTypes=" + properties.getIgnoredParameterTypes()
+                + ", docketSelect=" + properties.getDocketSelect()
+                + ", docket=" + properties.getDocket()
+                + ", host=" + properties.getHost()
+                + ", globalOperationParameters=" + properties.getGlobalOperationParameters()
+                + ", applyDefaultResponseMessages=" + properties.isApplyDefaultResponseMessages()
+                + ", globalResponseMessage=" + properties.getGlobalResponseMessage()
+                + ", authorization=" + properties.getAuthorization();
+    }
+
+    /**
+     * 展开泛型参数，返回类型本身对应的class
+     */
+    private static Class<?> expand(Type type, Deque<Type> pending) {
+        if (type instanceof Class) {
+            Class<?> clazz = (Class<?>) type;
+            while (clazz.isArray()) {
+                clazz = clazz.getComponentType();
+            }
+            return clazz.isPrimitive() ? null : clazz;
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            for (Type argument : parameterized.getActualTypeArguments()) {
+                pending.add(argument);
+            }
+            return expand(parameterized.getRawType(), pending);
+        }
+        if (type instanceof GenericArrayType) {
+            pending.add(((GenericArrayType) type).getGenericComponentType());
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                pending.add(bound);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 注解属性中引用的类，包括嵌套注解中的类
+     */
+    private static void addReferencedTypes(Annotation[] annotations, Deque<Type> pending) {
+        for (Annotation annotation : annotations) {
+            if (annotation.annotationType().getName().startsWith("java.lang.")) {
+                continue;
+            }
+            for (Method attribute : annotation.annotationType().getDeclaredMethods()) {
+                if (attribute.getParameterCount() > 0) {
+                    continue;
+                }
+                try {
+                    attribute.setAccessible(true);
+                    addReferencedTypes(attribute.invoke(annotation), pending);
+                } catch (ReflectiveOperationException | RuntimeException e) {
+                    // 无法读取的属性不影响指纹
+                }
+            }
+        }
+    }
+
+    private static void addReferencedTypes(Object value, Deque<Type> pending) {
+        if (value instanceof Class) {
+            pending.add((Class<?>) value);
+        } else if (value instanceof Class[]) {
+            pending.addAll(Arrays.asList((Class<?>[]) value));
+        } else if (value instanceof Annotation) {
+            addReferencedTypes(new Annotation[]{(Annotation) value}, pending);
+        } else if (value instanceof Annotation[]) {
+            addReferencedTypes((Annotation[]) value, pending);
+        }
+    }
+
+    private static boolean isGetter(Method method) {
+        String name = method.getName();
+        return Modifier.isPublic(method.getModifiers()) && !Modifier.isStatic(method.getModifiers())
+                && method.getParameterCount() == 0 && method.getReturnType() != void.class
+                && (name.startsWith("get") && name.length() > 3 || name.startsWith("is") && name.length() > 2);
+    }
+
+    private static boolean isFramework(Class<?> type) {
+        if (type.getClassLoader() == null) {
+            return true;
+        }
+        for (String prefix : FRAMEWORK_PACKAGES) {
+            if (type.getName().startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void updateBytecode(MessageDigest digest, Class<?> type) {
+        String resource = ClassUtils.convertClassNameToResourcePath(type.getName()) + ClassUtils.CLASS_FILE_SUFFIX;
+        try (InputStream in = type.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                // 运行时生成的类没有class文件，只计入类名
+                return;
+            }
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, n);
+            }
+        } catch (IOException e) {
+            update(digest, "unreadable " + e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.saleson.fm.swagger.configuration.snapshot;
+
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpec;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecKey;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecKeyResolver;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecSource;
+import springfox.documentation.service.Documentation;
+import springfox.documentation.spring.web.DocumentationCache;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+
+/**
+ * 优先从 {@link SpecSnapshotStore} 读取文档，快照中没有时由springfox的扫描结果生成并写入快照;
+ * 快照记录了分组文档的host与basePath，解析请求对应的key不需要扫描文档
+ */
+public class SnapshotSpecSource implements SwaggerSpecSource {
+
+    private final SwaggerSpecSource delegate;
+
+    private final SpecSnapshotStore store;
+
+    private final SwaggerSpecKeyResolver keyResolver;
+
+    private final DocumentationCache documentationCache;
+
+    public SnapshotSpecSource(
+            SwaggerSpecSource delegate,
+            SpecSnapshotStore store,
+            SwaggerSpecKeyResolver keyResolver,
+            DocumentationCache documentationCache) {
+        this.delegate = delegate;
+        this.store = store;
+        this.keyResolver = keyResolver;
+        this.documentationCache = documentationCache;
+    }
+
+    @Override
+    public Collection<String> groups() {
+        return delegate.groups();
+    }
+
+    @Override
+    public SwaggerSpecKey keyFor(String group, HttpServletRequest request) {
+        SpecSnapshotStore.GroupInfo info = store.group(group);
+        if (info == null) {
+            return delegate.keyFor(group, request);
+        }
+        return keyResolver.resolve(group, info.getHost(), info.getBasePath(), request);
+    }
+
+    @Override
+    public SwaggerSpec generate(SwaggerSpecKey key) {
+        SwaggerSpec snapshot = store.read(key);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        SwaggerSpec spec = delegate.generate(key);
+        Documentation documentation = documentationCache.documentationByGroup(key.getGroup());
+        if (documentation != null) {
+            store.write(spec, documentation.getHost(), documentation.getBasePath());
+        }
+        return spec;
+    }
+
+    @Override
+    public void writeTo(SwaggerSpecKey key, OutputStream out) throws IOException {
+        SwaggerSpec snapshot = store.read(key);
+        if (snapshot != null) {
+            snapshot.writeTo(out);
+            return;
+        }
+        delegate.writeTo(key, out);
+    }
+}
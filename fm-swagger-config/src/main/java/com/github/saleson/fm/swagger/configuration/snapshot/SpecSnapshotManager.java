@@ -0,0 +1,160 @@
+package com.github.saleson.fm.swagger.configuration.snapshot;
+
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecKey;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.plugin.core.Plugin;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfoHandlerMapping;
+import springfox.documentation.spring.web.DocumentationCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 启动时比较应用指纹与磁盘快照:
+ * 一致时分组文档直接从快照映射，springfox只在请求快照中没有的文档时才扫描;
+ * 不一致时丢弃旧快照，在后台扫描各分组并按旧快照中出现过的key重新生成文档;
+ * {@link #stop()} 之后不再写入快照，容器关闭时不会留下写了一半的文档
+ */
+public class SpecSnapshotManager {
+
+    private static final Logger log = LoggerFactory.getLogger(SpecSnapshotManager.class);
+
+    private final SpecSnapshotStore store;
+
+    private final ObjectProvider<RequestMappingInfoHandlerMapping> handlerMappings;
+
+    private final SwaggerProperties swaggerProperties;
+
+    private final SwaggerSpecSource source;
+
+    private final DocumentationCache documentationCache;
+
+    private final ConfigurableListableBeanFactory beanFactory;
+
+    private volatile boolean stopped;
+
+    /**
+     * @param store              快照存储
+     * @param handlerMappings    应用的handler映射，用于计算指纹
+     * @param swaggerProperties  swagger配置，用于计算指纹
+     * @param source             读写快照的文档来源
+     * @param documentationCache springfox的文档缓存
+     * @param beanFactory        用于查找声明Docket与springfox插件bean的类，计入指纹
+     */
+    public SpecSnapshotManager(
+            SpecSnapshotStore store,
+            ObjectProvider<RequestMappingInfoHandlerMapping> handlerMappings,
+            SwaggerProperties swaggerProperties,
+            SwaggerSpecSource source,
+            DocumentationCache documentationCache,
+            ConfigurableListableBeanFactory beanFactory) {
+        this.store = store;
+        this.handlerMappings = handlerMappings;
+        this.swaggerProperties = swaggerProperties;
+        this.source = source;
+        this.documentationCache = documentationCache;
+        this.beanFactory = beanFactory;
+    }
+
+    /**
+     * 打开快照，分组需已登记为按需扫描
+     *
+     * @param groups   分组名称
+     * @param executor 快照过期时执行后台重新生成
+     * @return 快照可以直接使用时返回true
+     */
+    public boolean start(Collection<String> groups, Executor executor) {
+        stopped = false;
+        long start = System.nanoTime();
+        String fingerprint = SnapshotFingerprint.compute(
+                handlerMappings.orderedStream().collect(Collectors.toList()), swaggerProperties, pluginClasses());
+        boolean matched = store.open(fingerprint);
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        if (matched) {
+            log.info("Reusing swagger snapshot {} in {} (fingerprint computed in {} ms)",
+                    fingerprint.substring(0, 12), store.getDirectory(), millis);
+        } else {
+            log.info("Swagger snapshot in {} is stale, regenerating {} group(s) in background (fingerprint computed in {} ms)",
+                    store.getDirectory(), groups.size(), millis);
+            regenerate(new ArrayList<>(groups), store.previousKeys(), executor);
+        }
+        return matched;
+    }
+
+    /**
+     * 停止后台重新生成并关闭快照写入，正在写入的文档完成后返回
+     */
+    public void stop() {
+        stopped = true;
+        store.close();
+    }
+
+    /**
+     * Docket与springfox插件都是 {@link Plugin}，factory方法声明的bean取其配置类，不实例化bean
+     */
+    private Collection<Class<?>> pluginClasses() {
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        for (String name : beanFactory.getBeanNamesForType(Plugin.class, true, false)) {
+            String declaring = name;
+            if (beanFactory.containsBeanDefinition(name)) {
+                String factoryBeanName = beanFactory.getBeanDefinition(name).getFactoryBeanName();
+                if (factoryBeanName != null) {
+                    declaring = factoryBeanName;
+                }
+            }
+            Class<?> type = beanFactory.getType(declaring, false);
+            if (type != null) {
+                classes.add(ClassUtils.getUserClass(type));
+            }
+        }
+        return classes;
+    }
+
+    private void regenerate(List<String> groups, List<SwaggerSpecKey> previousKeys, Executor executor) {
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                for (String group : groups) {
+                    try {
+                        if (isStopped() || documentationCache.documentationByGroup(group) == null) {
+                            continue;
+                        }
+                        for (SwaggerSpecKey key : previousKeys) {
+                            if (key.getGroup().equals(group) && !isStopped()) {
+                                source.generate(key);
+                            }
+                        }
+                    } catch (RuntimeException e) {
+                        log.warn("Could not regenerate swagger snapshot of group {}", group, e);
+                    }
+                }
+                if (isStopped()) {
+                    log.info("Stopped regenerating swagger snapshot");
+                    return;
+                }
+                log.info("Regenerated swagger snapshot of {} group(s) in {} ms",
+                        groups.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("Could not schedule swagger snapshot regeneration, groups are scanned on first request: {}",
+                    e.toString());
+        }
+    }
+
+    private boolean isStopped() {
+        return stopped || Thread.currentThread().isInterrupted();
+    }
+}
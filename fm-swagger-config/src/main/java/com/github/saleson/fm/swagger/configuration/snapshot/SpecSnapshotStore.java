@@ -0,0 +1,308 @@
+package com.github.saleson.fm.swagger.configuration.snapshot;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpec;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecKey;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 磁盘上的文档快照: manifest.json 记录指纹、各分组文档的host与basePath以及每个文档key对应的文件;
+ * 文件先写入临时文件再原子替换，读取时以只读方式映射到内存，不复制到堆中
+ */
+public class SpecSnapshotStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SpecSnapshotStore.class);
+
+    private static final String MANIFEST = "manifest.json";
+
+    private static final String SPEC_PREFIX = "spec-";
+
+    private static final String SUFFIX = ".json";
+
+    private final Path directory;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<SwaggerSpecKey, String> specs = new LinkedHashMap<>();
+
+    private final Map<String, GroupInfo> groups = new TreeMap<>();
+
+    private List<SwaggerSpecKey> previousKeys = Collections.emptyList();
+
+    /**
+     * 运行时handler映射变化过的分组，其文档与启动时计算的指纹不再对应
+     */
+    private final Set<String> detached = new HashSet<>();
+
+    private String fingerprint;
+
+    private boolean writable;
+
+    public SpecSnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 打开快照目录
+     *
+     * @param fingerprint 当前应用的指纹
+     * @return 快照的指纹与当前一致时返回true，否则丢弃旧快照并返回false
+     */
+    public synchronized boolean open(String fingerprint) {
+        this.fingerprint = fingerprint;
+        specs.clear();
+        groups.clear();
+        detached.clear();
+        previousKeys = Collections.emptyList();
+        try {
+            Files.createDirectories(directory);
+            writable = true;
+        } catch (IOException e) {
+            log.warn("Could not create swagger snapshot directory {}, snapshot is disabled: {}", directory, e.toString());
+            writable = false;
+            return false;
+        }
+        JsonNode manifest = readManifest();
+        if (manifest != null && fingerprint.equals(manifest.path("fingerprint").asText())) {
+            for (JsonNode group : manifest.path("groups")) {
+                groups.put(group.path("group").asText(),
+                        new GroupInfo(group.path("host").asText(null), group.path("basePath").asText(null)));
+            }
+            for (JsonNode spec : manifest.path("specs")) {
+                String file = spec.path("file").asText();
+                if (Files.isRegularFile(directory.resolve(file))) {
+                    specs.put(key(spec), file);
+                }
+            }
+            return true;
+        }
+        if (manifest != null) {
+            // 旧快照中出现过的key在后台按新代码重新生成
+            List<SwaggerSpecKey> keys = new ArrayList<>();
+            for (JsonNode spec : manifest.path("specs")) {
+                keys.add(key(spec));
+                delete(spec.path("file").asText());
+            }
+            previousKeys = Collections.unmodifiableList(keys);
+        }
+        writeManifest();
+        return false;
+    }
+
+    /**
+     * @param group 分组名称
+     * @return 快照中记录的分组信息，未记录时返回null
+     */
+    public synchronized GroupInfo group(String group) {
+        return groups.get(group);
+    }
+
+    /**
+     * @return 旧快照中出现过的文档key，指纹一致时为空
+     */
+    public synchronized List<SwaggerSpecKey> previousKeys() {
+        return previousKeys;
+    }
+
+    /**
+     * 以只读方式映射快照中的文档
+     *
+     * @param key 文档key
+     * @return 快照中没有该文档时返回null
+     */
+    public SwaggerSpec read(SwaggerSpecKey key) {
+        String file;
+        synchronized (this) {
+            file = specs.get(key);
+        }
+        if (file == null) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(directory.resolve(file), StandardOpenOption.READ)) {
+            MappedByteBuffer content = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new SwaggerSpec(key, content);
+        } catch (IOException e) {
+            log.warn("Could not map swagger snapshot {}, regenerating: {}", file, e.toString());
+            synchronized (this) {
+                specs.remove(key, file);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 写入文档，同一个key的文档会被替换
+     *
+     * @param spec     序列化后的文档
+     * @param host     分组文档中配置的host
+     * @param basePath 分组文档中配置的basePath
+     */
+    public synchronized void write(SwaggerSpec spec, String host, String basePath) {
+        SwaggerSpecKey key = spec.getKey();
+        if (!writable || detached.contains(key.getGroup())) {
+            return;
+        }
+        String file = SPEC_PREFIX + DigestUtils.md5DigestAsHex(
+                (fingerprint + '\n' + key.getGroup() + '\n' + key.getHost() + '\n' + key.getBasePath())
+                        .getBytes(StandardCharsets.UTF_8)) + SUFFIX;
+        try {
+            Path temp = Files.createTempFile(directory, SPEC_PREFIX, ".tmp");
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                spec.writeTo(out);
+            }
+            move(temp, file);
+            specs.put(key, file);
+            groups.put(key.getGroup(), new GroupInfo(host, basePath));
+            writeManifest();
+        } catch (IOException e) {
+            log.warn("Could not write swagger snapshot of group {}: {}", key.getGroup(), e.toString());
+        }
+    }
+
+    /**
+     * 停止写入快照，正在进行的写入完成后才返回，之后的写入被忽略，直到再次 {@link #open(String)}
+     */
+    public synchronized void close() {
+        writable = false;
+    }
+
+    /**
+     * 删除分组的快照; 运行时变化后的文档与启动时的指纹不再对应，本次运行期间不再写入该分组，重启后重新扫描
+     *
+     * @param group 分组名称
+     */
+    public synchronized void invalidate(String group) {
+        detached.add(group);
+        boolean removed = false;
+        Iterator<Map.Entry<SwaggerSpecKey, String>> iterator = specs.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<SwaggerSpecKey, String> entry = iterator.next();
+            if (entry.getKey().getGroup().equals(group)) {
+                iterator.remove();
+                delete(entry.getValue());
+                removed = true;
+            }
+        }
+        if (removed && writable) {
+            writeManifest();
+        }
+    }
+
+    private JsonNode readManifest() {
+        Path manifest = directory.resolve(MANIFEST);
+        if (!Files.isRegularFile(manifest)) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(manifest.toFile());
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable swagger snapshot manifest {}: {}", manifest, e.toString());
+            return null;
+        }
+    }
+
+    private void writeManifest() {
+        ObjectNode manifest = objectMapper.createObjectNode();
+        manifest.put("fingerprint", fingerprint);
+        ArrayNode groupNodes = manifest.putArray("groups");
+        for (Map.Entry<String, GroupInfo> entry : groups.entrySet()) {
+            groupNodes.addObject()
+                    .put("group", entry.getKey())
+                    .put("host", entry.getValue().getHost())
+                    .put("basePath", entry.getValue().getBasePath());
+        }
+        ArrayNode specNodes = manifest.putArray("specs");
+        for (Map.Entry<SwaggerSpecKey, String> entry : specs.entrySet()) {
+            specNodes.addObject()
+                    .put("group", entry.getKey().getGroup())
+                    .put("host", entry.getKey().getHost())
+                    .put("basePath", entry.getKey().getBasePath())
+                    .put("file", entry.getValue());
+        }
+        try {
+            Path temp = Files.createTempFile(directory, "manifest-", ".tmp");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(temp.toFile(), manifest);
+            move(temp, MANIFEST);
+        } catch (IOException e) {
+            log.warn("Could not write swagger snapshot manifest in {}: {}", directory, e.toString());
+        }
+    }
+
+    private void move(Path temp, String file) throws IOException {
+        try {
+            Files.move(temp, directory.resolve(file), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private void delete(String file) {
+        if (!file.startsWith(SPEC_PREFIX)) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(file));
+        } catch (NoSuchFileException e) {
+            // 已被其他实例删除
+        } catch (IOException e) {
+            log.debug("Could not delete stale swagger snapshot {}: {}", file, e.toString());
+        }
+    }
+
+    private static SwaggerSpecKey key(JsonNode spec) {
+        return new SwaggerSpecKey(spec.path("group").asText(), spec.path("host").asText(null), spec.path("basePath").asText(null));
+    }
+
+    /**
+     * 分组文档中配置的host与basePath，用于不扫描文档直接解析请求对应的key
+     */
+    public static class GroupInfo {
+
+        private final String host;
+
+        private final String basePath;
+
+        GroupInfo(String host, String basePath) {
+            this.host = host;
+            this.basePath = basePath;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public String getBasePath() {
+            return basePath;
+        }
+    }
+}
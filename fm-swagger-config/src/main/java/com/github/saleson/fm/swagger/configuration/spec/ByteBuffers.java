@@ -0,0 +1,70 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import org.springframework.util.ReflectionUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 将缓冲区写入响应输出流; 输出流支持 write(ByteBuffer) 时(例如Tomcat的CoyoteOutputStream)直接写出，
+ * 堆外的内容不会先复制到堆内数组
+ */
+public final class ByteBuffers {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final ConcurrentMap<Class<?>, Optional<Method>> WRITE_METHODS = new ConcurrentHashMap<>();
+
+    private ByteBuffers() {
+    }
+
+    /**
+     * 写出缓冲区的剩余内容，缓冲区的position随之移动
+     *
+     * @param buffer 内容
+     * @param out    输出流，写入后不关闭
+     * @throws IOException 写入失败
+     */
+    public static void write(ByteBuffer buffer, OutputStream out) throws IOException {
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+        Optional<Method> write = WRITE_METHODS.computeIfAbsent(out.getClass(), ByteBuffers::writeMethod);
+        if (write.isPresent()) {
+            try {
+                write.get().invoke(out, buffer);
+                return;
+            } catch (InvocationTargetException e) {
+                if (e.getTargetException() instanceof IOException) {
+                    throw (IOException) e.getTargetException();
+                }
+                ReflectionUtils.rethrowRuntimeException(e.getTargetException());
+            } catch (IllegalAccessException e) {
+                WRITE_METHODS.put(out.getClass(), Optional.empty());
+            }
+        }
+        byte[] chunk = new byte[Math.min(buffer.remaining(), CHUNK_SIZE)];
+        while (buffer.hasRemaining()) {
+            int n = Math.min(chunk.length, buffer.remaining());
+            buffer.get(chunk, 0, n);
+            out.write(chunk, 0, n);
+        }
+    }
+
+    private static Optional<Method> writeMethod(Class<?> type) {
+        Method method = ReflectionUtils.findMethod(type, "write", ByteBuffer.class);
+        if (method == null) {
+            return Optional.empty();
+        }
+        ReflectionUtils.makeAccessible(method);
+        return Optional.of(method);
+    }
+}
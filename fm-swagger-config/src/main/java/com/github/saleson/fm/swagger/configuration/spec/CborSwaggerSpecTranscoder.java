@@ -0,0 +1,71 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+
+/**
+ * 由 jackson-dataformat-cbor 将json文档逐个token转换为CBOR(RFC 8949)，解析时无需处理转义与数字文本;
+ * 超出long的整数写为bignum，无法由double精确表示的小数写为decimal fraction，与json文本的数值一致
+ */
+public class CborSwaggerSpecTranscoder implements SwaggerSpecTranscoder {
+
+    public static final String MEDIA_TYPE = "application/cbor";
+
+    private final JsonFactory jsonFactory;
+
+    private final CBORFactory cborFactory;
+
+    public CborSwaggerSpecTranscoder() {
+        this(new JsonFactory(), new CBORFactory());
+    }
+
+    public CborSwaggerSpecTranscoder(JsonFactory jsonFactory, CBORFactory cborFactory) {
+        this.jsonFactory = jsonFactory;
+        this.cborFactory = cborFactory;
+    }
+
+    @Override
+    public String getMediaType() {
+        return MEDIA_TYPE;
+    }
+
+    @Override
+    public byte[] transcode(ByteBuffer json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(json.remaining() * 3 / 4, 512));
+        try (JsonParser parser = jsonFactory.createParser(new ByteBufferBackedInputStream(json));
+             JsonGenerator generator = cborFactory.createGenerator(out)) {
+            for (JsonToken token = parser.nextToken(); token != null; token = parser.nextToken()) {
+                if (token == JsonToken.VALUE_NUMBER_FLOAT) {
+                    number(parser, generator);
+                } else {
+                    generator.copyCurrentEvent(parser);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 小数优先写为float32或float64，二者都不能还原json文本中的数值时写为decimal fraction
+     */
+    private static void number(JsonParser parser, JsonGenerator generator) throws IOException {
+        BigDecimal decimal = parser.getDecimalValue();
+        double value = decimal.doubleValue();
+        if (Double.isInfinite(value) || BigDecimal.valueOf(value).compareTo(decimal) != 0) {
+            generator.writeNumber(decimal);
+        } else if ((float) value == value) {
+            generator.writeNumber((float) value);
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip编码，每个文档版本只压缩一次，因此使用最高压缩级别;
+ * 流式写出的文档每次请求都要压缩，使用默认压缩级别
+ */
+public class GzipSwaggerSpecEncoder implements SwaggerSpecEncoder {
+
+    public static final String ENCODING = "gzip";
+
+    @Override
+    public String getEncoding() {
+        return ENCODING;
+    }
+
+    @Override
+    public byte[] encode(ByteBuffer content) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(content.remaining() / 8, 512));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            byte[] chunk = new byte[8192];
+            while (content.hasRemaining()) {
+                int n = Math.min(chunk.length, content.remaining());
+                content.get(chunk, 0, n);
+                gzip.write(chunk, 0, n);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public OutputStream encodingStream(OutputStream out) throws IOException {
+        // 结束压缩时不关闭响应的输出流
+        return new GZIPOutputStream(new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.flush();
+            }
+        }, 8192);
+    }
+}
@@ -0,0 +1,545 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 将 Swagger 2.0 文档转换为 OpenAPI 3.0 文档，两种格式共用同一次扫描与模型解析的结果:
+ * definitions、parameters、responses、securityDefinitions 移入 components 并改写 $ref;
+ * body 与 formData 参数转换为 requestBody，响应与请求体按 produces、consumes 展开为 content;
+ * schemes、host、basePath 转换为 servers
+ */
+public class OpenApi3Converter {
+
+    public static final String VERSION = "3.0.3";
+
+    /**
+     * Swagger 2.0 参数中描述取值的字段，在 OpenAPI 3.0 中移入参数的schema
+     */
+    private static final List<String> PARAMETER_SCHEMA_FIELDS = Arrays.asList(
+            "type", "format", "items", "default", "maximum", "exclusiveMaximum", "minimum", "exclusiveMinimum",
+            "maxLength", "minLength", "pattern", "maxItems", "minItems", "uniqueItems", "enum", "multipleOf");
+
+    private static final String FORM_URLENCODED = "application/x-www-form-urlencoded";
+
+    private static final String MULTIPART = "multipart/form-data";
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter streamingWriter;
+
+    public OpenApi3Converter() {
+        this(new ObjectMapper());
+    }
+
+    public OpenApi3Converter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.streamingWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * @param swagger2 Swagger 2.0 文档
+     * @param key      OpenAPI 3.0 文档的key
+     * @return OpenAPI 3.0 文档
+     */
+    public SwaggerSpec convert(SwaggerSpec swagger2, SwaggerSpecKey key) {
+        try {
+            return new SwaggerSpec(key, objectMapper.writeValueAsBytes(convert(read(swagger2))));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not convert specification of group " + key.getGroup(), e);
+        }
+    }
+
+    /**
+     * 转换并直接写入输出流
+     *
+     * @param swagger2 Swagger 2.0 文档
+     * @param out      输出流，写入后不关闭
+     * @throws IOException 写入失败
+     */
+    public void writeTo(SwaggerSpec swagger2, OutputStream out) throws IOException {
+        streamingWriter.writeValue(out, convert(read(swagger2)));
+    }
+
+    private JsonNode read(SwaggerSpec spec) throws IOException {
+        return objectMapper.readTree(new ByteBufferBackedInputStream(spec.content()));
+    }
+
+    /**
+     * @param swagger Swagger 2.0 文档
+     * @return OpenAPI 3.0 文档
+     */
+    public ObjectNode convert(JsonNode swagger) {
+        ObjectNode openApi = objectMapper.createObjectNode();
+        openApi.put("openapi", VERSION);
+        copy(swagger, openApi, "info");
+        openApi.set("servers", servers(swagger));
+        copy(swagger, openApi, "tags");
+        copy(swagger, openApi, "security");
+        copy(swagger, openApi, "externalDocs");
+
+        List<String> consumes = strings(swagger.path("consumes"));
+        List<String> produces = strings(swagger.path("produces"));
+        ObjectNode paths = openApi.putObject("paths");
+        for (Iterator<Map.Entry<String, JsonNode>> it = swagger.path("paths").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> path = it.next();
+            paths.set(path.getKey(), pathItem(swagger, path.getValue(), consumes, produces));
+        }
+
+        ObjectNode components = objectMapper.createObjectNode();
+        for (Iterator<Map.Entry<String, JsonNode>> it = swagger.path("definitions").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> definition = it.next();
+            components.with("schemas").set(definition.getKey(), schema(definition.getValue()));
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> it = swagger.path("parameters").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> parameter = it.next();
+            String in = parameter.getValue().path("in").asText();
+            if ("body".equals(in)) {
+                components.with("requestBodies").set(parameter.getKey(), requestBody(parameter.getValue(), consumes));
+            } else if ("formData".equals(in)) {
+                components.with("requestBodies").set(parameter.getKey(),
+                        formBody(Collections.singletonList(parameter.getValue()), consumes));
+            } else {
+                components.with("parameters").set(parameter.getKey(), parameter(parameter.getValue()));
+            }
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> it = swagger.path("responses").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> response = it.next();
+            components.with("responses").set(response.getKey(), response(response.getValue(), produces));
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> it = swagger.path("securityDefinitions").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> scheme = it.next();
+            components.with("securitySchemes").set(scheme.getKey(), securityScheme(scheme.getValue()));
+        }
+        if (components.size() > 0) {
+            openApi.set("components", components);
+        }
+        copyExtensions(swagger, openApi);
+        return openApi;
+    }
+
+    private ArrayNode servers(JsonNode swagger) {
+        ArrayNode servers = objectMapper.createArrayNode();
+        String host = swagger.path("host").asText("");
+        String basePath = swagger.path("basePath").asText("/");
+        if (host.isEmpty()) {
+            servers.addObject().put("url", basePath);
+            return servers;
+        }
+        List<String> schemes = strings(swagger.path("schemes"));
+        if (schemes.isEmpty()) {
+            servers.addObject().put("url", "//" + host + basePath);
+        }
+        for (String scheme : schemes) {
+            servers.addObject().put("url", scheme + "://" + host + basePath);
+        }
+        return servers;
+    }
+
+    private ObjectNode pathItem(JsonNode swagger, JsonNode item, List<String> consumes, List<String> produces) {
+        ObjectNode result = objectMapper.createObjectNode();
+        copy(item, result, "$ref");
+        // body与formData参数在 OpenAPI 3.0 中属于各个operation的requestBody
+        List<JsonNode> shared = new ArrayList<>();
+        ArrayNode parameters = objectMapper.createArrayNode();
+        for (JsonNode parameter : item.path("parameters")) {
+            String in = resolve(swagger, parameter).path("in").asText();
+            if ("body".equals(in) || "formData".equals(in)) {
+                shared.add(parameter);
+            } else {
+                parameters.add(parameterOrRef(parameter));
+            }
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> it = item.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            if (SpecSupport.METHODS.contains(field.getKey())) {
+                result.set(field.getKey(), operation(swagger, field.getValue(), shared, consumes, produces));
+            }
+        }
+        if (parameters.size() > 0) {
+            result.set("parameters", parameters);
+        }
+        copyExtensions(item, result);
+        return result;
+    }
+
+    private ObjectNode operation(
+            JsonNode swagger, JsonNode operation, List<JsonNode> shared, List<String> consumes, List<String> produces) {
+        ObjectNode result = objectMapper.createObjectNode();
+        copy(operation, result, "tags");
+        copy(operation, result, "summary");
+        copy(operation, result, "description");
+        copy(operation, result, "externalDocs");
+        copy(operation, result, "operationId");
+        if (operation.has("consumes")) {
+            consumes = strings(operation.path("consumes"));
+        }
+        if (operation.has("produces")) {
+            produces = strings(operation.path("produces"));
+        }
+
+        List<JsonNode> declared = new ArrayList<>(shared);
+        for (JsonNode parameter : operation.path("parameters")) {
+            declared.add(parameter);
+        }
+        ArrayNode parameters = objectMapper.createArrayNode();
+        List<JsonNode> formParameters = new ArrayList<>();
+        JsonNode requestBody = null;
+        for (JsonNode parameter : declared) {
+            JsonNode resolved = resolve(swagger, parameter);
+            String in = resolved.path("in").asText();
+            if ("body".equals(in)) {
+                requestBody = parameter.has("$ref")
+                        ? reference("#/components/requestBodies/" + refName(parameter))
+                        : requestBody(parameter, consumes);
+            } else if ("formData".equals(in)) {
+                formParameters.add(resolved);
+            } else {
+                parameters.add(parameterOrRef(parameter));
+            }
+        }
+        if (parameters.size() > 0) {
+            result.set("parameters", parameters);
+        }
+        if (!formParameters.isEmpty()) {
+            requestBody = formBody(formParameters, consumes);
+        }
+        if (requestBody != null) {
+            result.set("requestBody", requestBody);
+        }
+
+        ObjectNode responses = result.putObject("responses");
+        for (Iterator<Map.Entry<String, JsonNode>> it = operation.path("responses").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> response = it.next();
+            responses.set(response.getKey(), response.getValue().has("$ref")
+                    ? reference(ref(response.getValue().path("$ref").asText()))
+                    : response(response.getValue(), produces));
+        }
+        copy(operation, result, "deprecated");
+        copy(operation, result, "security");
+        copyExtensions(operation, result);
+        return result;
+    }
+
+    private JsonNode parameterOrRef(JsonNode parameter) {
+        return parameter.has("$ref") ? reference(ref(parameter.path("$ref").asText())) : parameter(parameter);
+    }
+
+    private ObjectNode parameter(JsonNode parameter) {
+        ObjectNode result = objectMapper.createObjectNode();
+        String in = parameter.path("in").asText();
+        copy(parameter, result, "name");
+        result.put("in", in);
+        copy(parameter, result, "description");
+        if ("path".equals(in)) {
+            result.put("required", true);
+        } else {
+            copy(parameter, result, "required");
+        }
+        copy(parameter, result, "allowEmptyValue");
+        ObjectNode schema = parameterSchema(parameter);
+        if ("array".equals(parameter.path("type").asText())) {
+            style(parameter.path("collectionFormat").asText("csv"), in, result);
+        }
+        result.set("schema", schema);
+        if (parameter.has("x-example")) {
+            result.set("example", parameter.get("x-example").deepCopy());
+        }
+        copyExtensions(parameter, result, "x-example");
+        return result;
+    }
+
+    /**
+     * collectionFormat 转换为 style 与 explode
+     */
+    private static void style(String collectionFormat, String in, ObjectNode parameter) {
+        boolean simple = "path".equals(in) || "header".equals(in);
+        switch (collectionFormat) {
+            case "multi":
+                parameter.put("style", "form");
+                parameter.put("explode", true);
+                break;
+            case "ssv":
+                parameter.put("style", "spaceDelimited");
+                parameter.put("explode", false);
+                break;
+            case "pipes":
+                parameter.put("style", "pipeDelimited");
+                parameter.put("explode", false);
+                break;
+            case "csv":
+                parameter.put("style", simple ? "simple" : "form");
+                parameter.put("explode", false);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Swagger 2.0 非body参数、header与items的取值定义转换为schema
+     */
+    private ObjectNode parameterSchema(JsonNode parameter) {
+        ObjectNode schema = objectMapper.createObjectNode();
+        for (String field : PARAMETER_SCHEMA_FIELDS) {
+            if (!parameter.has(field)) {
+                continue;
+            }
+            if ("items".equals(field)) {
+                schema.set("items", parameterSchema(parameter.get("items")));
+            } else if ("type".equals(field) && "file".equals(parameter.get(field).asText())) {
+                schema.put("type", "string");
+                schema.put("format", "binary");
+            } else {
+                schema.set(field, parameter.get(field).deepCopy());
+            }
+        }
+        if (parameter.has("$ref")) {
+            schema.put("$ref", ref(parameter.get("$ref").asText()));
+        }
+        return schema;
+    }
+
+    private ObjectNode requestBody(JsonNode parameter, List<String> consumes) {
+        ObjectNode result = objectMapper.createObjectNode();
+        copy(parameter, result, "description");
+        ObjectNode content = result.putObject("content");
+        JsonNode schema = schema(parameter.path("schema"));
+        for (String mediaType : consumes.isEmpty() ? Collections.singletonList("application/json") : consumes) {
+            content.putObject(mediaType).set("schema", schema.deepCopy());
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> it = parameter.path("x-examples").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> example = it.next();
+            content.with(example.getKey()).set("example", example.getValue().deepCopy());
+        }
+        if (parameter.path("required").asBoolean(false)) {
+            result.put("required", true);
+        }
+        copyExtensions(parameter, result, "x-examples");
+        return result;
+    }
+
+    private ObjectNode formBody(List<JsonNode> parameters, List<String> consumes) {
+        ObjectNode schema = objectMapper.createObjectNode();
+        schema.put("type", "object");
+        ObjectNode properties = schema.putObject("properties");
+        ArrayNode required = objectMapper.createArrayNode();
+        boolean multipart = consumes.contains(MULTIPART);
+        for (JsonNode parameter : parameters) {
+            ObjectNode property = parameterSchema(parameter);
+            copy(parameter, property, "description");
+            properties.set(parameter.path("name").asText(), property);
+            if (parameter.path("required").asBoolean(false)) {
+                required.add(parameter.path("name").asText());
+            }
+            multipart |= "file".equals(parameter.path("type").asText());
+        }
+        if (required.size() > 0) {
+            schema.set("required", required);
+        }
+        ObjectNode result = objectMapper.createObjectNode();
+        String mediaType = multipart ? MULTIPART : FORM_URLENCODED;
+        result.putObject("content").putObject(mediaType).set("schema", schema);
+        return result;
+    }
+
+    private ObjectNode response(JsonNode response, List<String> produces) {
+        ObjectNode result = objectMapper.createObjectNode();
+        result.put("description", response.path("description").asText(""));
+        for (Iterator<Map.Entry<String, JsonNode>> it = response.path("headers").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> header = it.next();
+            ObjectNode converted = result.with("headers").putObject(header.getKey());
+            copy(header.getValue(), converted, "description");
+            converted.set("schema", parameterSchema(header.getValue()));
+        }
+        List<String> mediaTypes = produces.isEmpty() ? Collections.singletonList("*/*") : produces;
+        if (response.has("schema")) {
+            JsonNode schema = schema(response.get("schema"));
+            for (String mediaType : mediaTypes) {
+                result.with("content").putObject(mediaType).set("schema", schema.deepCopy());
+            }
+        }
+        for (Iterator<Map.Entry<String, JsonNode>> it = response.path("examples").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> example = it.next();
+            result.with("content").with(example.getKey()).set("example", example.getValue().deepCopy());
+        }
+        copyExtensions(response, result);
+        return result;
+    }
+
+    private ObjectNode securityScheme(JsonNode scheme) {
+        ObjectNode result = objectMapper.createObjectNode();
+        String type = scheme.path("type").asText();
+        switch (type) {
+            case "basic":
+                result.put("type", "http");
+                result.put("scheme", "basic");
+                break;
+            case "apiKey":
+                result.put("type", "apiKey");
+                copy(scheme, result, "name");
+                copy(scheme, result, "in");
+                break;
+            case "oauth2":
+                result.put("type", "oauth2");
+                ObjectNode flow = result.putObject("flows").putObject(flowName(scheme.path("flow").asText()));
+                copy(scheme, flow, "authorizationUrl");
+                copy(scheme, flow, "tokenUrl");
+                flow.set("scopes", scheme.has("scopes") ? scheme.get("scopes").deepCopy() : objectMapper.createObjectNode());
+                break;
+            default:
+                result.put("type", type);
+                break;
+        }
+        copy(scheme, result, "description");
+        copyExtensions(scheme, result);
+        return result;
+    }
+
+    private static String flowName(String flow) {
+        switch (flow) {
+            case "application":
+                return "clientCredentials";
+            case "accessCode":
+                return "authorizationCode";
+            default:
+                return flow;
+        }
+    }
+
+    /**
+     * 转换schema: 改写 $ref，去掉springfox的 originalRef，x-nullable 转换为 nullable，file 转换为二进制字符串
+     */
+    private JsonNode schema(JsonNode node) {
+        if (!node.isObject()) {
+            return node.deepCopy();
+        }
+        ObjectNode result = objectMapper.createObjectNode();
+        for (Iterator<Map.Entry<String, JsonNode>> it = node.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            String name = field.getKey();
+            JsonNode value = field.getValue();
+            switch (name) {
+                case "$ref":
+                    result.put("$ref", ref(value.asText()));
+                    break;
+                case "originalRef":
+                    break;
+                case "x-nullable":
+                    result.set("nullable", value.deepCopy());
+                    break;
+                case "type":
+                    if ("file".equals(value.asText())) {
+                        result.put("type", "string");
+                        result.put("format", "binary");
+                    } else {
+                        result.set("type", value.deepCopy());
+                    }
+                    break;
+                case "discriminator":
+                    if (value.isTextual()) {
+                        result.putObject("discriminator").put("propertyName", value.asText());
+                    } else {
+                        result.set("discriminator", value.deepCopy());
+                    }
+                    break;
+                case "properties":
+                    ObjectNode properties = result.putObject("properties");
+                    for (Iterator<Map.Entry<String, JsonNode>> props = value.fields(); props.hasNext(); ) {
+                        Map.Entry<String, JsonNode> property = props.next();
+                        properties.set(property.getKey(), schema(property.getValue()));
+                    }
+                    break;
+                case "items":
+                case "additionalProperties":
+                case "not":
+                    result.set(name, schema(value));
+                    break;
+                case "allOf":
+                case "anyOf":
+                case "oneOf":
+                    ArrayNode schemas = result.putArray(name);
+                    for (JsonNode each : value) {
+                        schemas.add(schema(each));
+                    }
+                    break;
+                default:
+                    result.set(name, value.deepCopy());
+                    break;
+            }
+        }
+        return result;
+    }
+
+    private static JsonNode resolve(JsonNode swagger, JsonNode parameter) {
+        if (!parameter.has("$ref")) {
+            return parameter;
+        }
+        JsonNode resolved = swagger.path("parameters").path(refName(parameter));
+        return resolved.isMissingNode() ? parameter : resolved;
+    }
+
+    private static String refName(JsonNode node) {
+        String ref = node.path("$ref").asText();
+        return ref.substring(ref.lastIndexOf('/') + 1);
+    }
+
+    private static String ref(String ref) {
+        if (ref.startsWith("#/definitions/")) {
+            return "#/components/schemas/" + ref.substring("#/definitions/".length());
+        }
+        if (ref.startsWith("#/parameters/")) {
+            return "#/components/parameters/" + ref.substring("#/parameters/".length());
+        }
+        if (ref.startsWith("#/responses/")) {
+            return "#/components/responses/" + ref.substring("#/responses/".length());
+        }
+        return ref;
+    }
+
+    private ObjectNode reference(String ref) {
+        ObjectNode reference = objectMapper.createObjectNode();
+        reference.put("$ref", ref);
+        return reference;
+    }
+
+    private static void copy(JsonNode source, ObjectNode target, String field) {
+        JsonNode value = source.get(field);
+        if (value != null && !value.isNull()) {
+            target.set(field, value.deepCopy());
+        }
+    }
+
+    private static void copyExtensions(JsonNode source, ObjectNode target, String... excluded) {
+        List<String> skipped = Arrays.asList(excluded);
+        for (Iterator<Map.Entry<String, JsonNode>> it = source.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> field = it.next();
+            if (field.getKey().startsWith("x-") && !skipped.contains(field.getKey())) {
+                target.set(field.getKey(), field.getValue().deepCopy());
+            }
+        }
+    }
+
+    private static List<String> strings(JsonNode array) {
+        List<String> values = new ArrayList<>();
+        for (JsonNode each : array) {
+            values.add(each.asText());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,580 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+import org.springframework.util.AntPathMatcher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Swagger 2.0 文档中operation的倒排索引，按tag、路径段、请求方法、operationId与引用的模型建立;
+ * 索引只记录各operation、模型与tag在序列化内容中的字节区间，子文档直接拼接这些区间，不重新序列化整个文档
+ */
+public class OperationIndex {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private static final String DEFINITION_REF = "#/definitions/";
+
+    private static final String PATHS = "paths";
+
+    private static final String DEFINITIONS = "definitions";
+
+    private static final String TAGS = "tags";
+
+    /**
+     * 文档的顶层字段，按原顺序
+     */
+    private final List<Member> fields = new ArrayList<>();
+
+    private final List<PathItem> pathItems = new ArrayList<>();
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    private final List<Member> definitions = new ArrayList<>();
+
+    private final Map<String, Integer> definitionIndexes = new HashMap<>();
+
+    private final List<Member> tags = new ArrayList<>();
+
+    /**
+     * 各模型直接引用的模型，仅在建立索引时使用
+     */
+    private final Map<Integer, BitSet> definitionRefs = new HashMap<>();
+
+    private final Map<String, BitSet> byTag = new HashMap<>();
+
+    private final Map<String, BitSet> byMethod = new HashMap<>();
+
+    private final Map<String, BitSet> byOperationId = new HashMap<>();
+
+    private final Map<String, BitSet> byModel = new HashMap<>();
+
+    private final Map<String, BitSet> byPath = new HashMap<>();
+
+    /**
+     * key为 路径段序号:路径段
+     */
+    private final Map<String, BitSet> bySegment = new HashMap<>();
+
+    private OperationIndex() {
+    }
+
+    /**
+     * 为 Swagger 2.0 json文档建立索引
+     *
+     * @param spec Swagger 2.0 json文档
+     * @return 文档的索引
+     */
+    public static OperationIndex of(SwaggerSpec spec) {
+        OperationIndex index = new OperationIndex();
+        ByteBuffer content = spec.content();
+        try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(new ByteBufferBackedInputStream(content))) {
+            index.parse(parser);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not index specification of group " + spec.getGroup(), e);
+        }
+        index.link();
+        return index;
+    }
+
+    private void parse(JsonParser parser) throws IOException {
+        Map<Integer, JsonNode> definitionNodes = new HashMap<>();
+        List<JsonNode> operationNodes = new ArrayList<>();
+        expect(parser.nextToken(), JsonToken.START_OBJECT);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.getCurrentName();
+            parser.nextToken();
+            int start = start(parser);
+            if (PATHS.equals(name) && parser.currentToken() == JsonToken.START_OBJECT) {
+                parsePaths(parser, operationNodes);
+            } else if (DEFINITIONS.equals(name) && parser.currentToken() == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String definition = parser.getCurrentName();
+                    parser.nextToken();
+                    int definitionStart = start(parser);
+                    JsonNode node = parser.readValueAsTree();
+                    definitionIndexes.put(definition, definitions.size());
+                    definitionNodes.put(definitions.size(), node);
+                    definitions.add(new Member(definition, definitionStart, end(parser)));
+                }
+            } else if (TAGS.equals(name) && parser.currentToken() == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    int tagStart = start(parser);
+                    JsonNode node = parser.readValueAsTree();
+                    tags.add(new Member(node.path("name").asText(), tagStart, end(parser)));
+                }
+            } else {
+                skip(parser);
+            }
+            fields.add(new Member(name, start, end(parser)));
+        }
+        // 模型名称在解析完 definitions 后才全部可知
+        for (int i = 0; i < operationNodes.size(); i++) {
+            operations.get(i).directRefs = references(operationNodes.get(i));
+        }
+        for (Map.Entry<Integer, JsonNode> entry : definitionNodes.entrySet()) {
+            definitionRefs.put(entry.getKey(), references(entry.getValue()));
+        }
+    }
+
+    private void parsePaths(JsonParser parser, List<JsonNode> operationNodes) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            PathItem item = new PathItem(parser.getCurrentName());
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                int start = start(parser);
+                if (SpecSupport.METHODS.contains(name)) {
+                    JsonNode node = parser.readValueAsTree();
+                    Operation operation = new Operation(pathItems.size(), name, end(parser));
+                    for (JsonNode tag : node.path(TAGS)) {
+                        operation.tags.add(tag.asText());
+                    }
+                    operation.operationId = node.path("operationId").asText(null);
+                    item.members.add(new Member(name, start, operation.end, operations.size()));
+                    operations.add(operation);
+                    operationNodes.add(node);
+                } else {
+                    skip(parser);
+                    item.members.add(new Member(name, start, end(parser)));
+                }
+            }
+            pathItems.add(item);
+        }
+    }
+
+    private BitSet references(JsonNode node) {
+        BitSet refs = new BitSet();
+        for (JsonNode ref : node.findValues("$ref")) {
+            String value = ref.asText();
+            if (value.startsWith(DEFINITION_REF)) {
+                Integer index = definitionIndexes.get(value.substring(DEFINITION_REF.length()));
+                if (index != null) {
+                    refs.set(index);
+                }
+            }
+        }
+        return refs;
+    }
+
+    /**
+     * 计算各operation可达的模型并建立倒排表
+     */
+    private void link() {
+        List<BitSet> closures = new ArrayList<>(definitions.size());
+        for (int i = 0; i < definitions.size(); i++) {
+            closures.add(closure(i));
+        }
+        for (int i = 0; i < operations.size(); i++) {
+            Operation operation = operations.get(i);
+            BitSet reachable = new BitSet();
+            for (int ref = operation.directRefs.nextSetBit(0); ref >= 0; ref = operation.directRefs.nextSetBit(ref + 1)) {
+                reachable.set(ref);
+                reachable.or(closures.get(ref));
+            }
+            operation.definitions = reachable;
+            operation.directRefs = null;
+
+            for (String tag : operation.tags) {
+                posting(byTag, tag).set(i);
+            }
+            posting(byMethod, operation.method).set(i);
+            if (operation.operationId != null) {
+                posting(byOperationId, operation.operationId).set(i);
+            }
+            for (int ref = reachable.nextSetBit(0); ref >= 0; ref = reachable.nextSetBit(ref + 1)) {
+                posting(byModel, definitions.get(ref).name).set(i);
+            }
+            String path = pathItems.get(operation.pathItem).path;
+            posting(byPath, path).set(i);
+            List<String> segments = segments(path);
+            for (int segment = 0; segment < segments.size(); segment++) {
+                posting(bySegment, segment + ":" + segments.get(segment)).set(i);
+            }
+        }
+        definitionRefs.clear();
+    }
+
+    private BitSet closure(int definition) {
+        BitSet reachable = new BitSet();
+        List<Integer> pending = new ArrayList<>();
+        pending.add(definition);
+        while (!pending.isEmpty()) {
+            BitSet refs = definitionRefs.get(pending.remove(pending.size() - 1));
+            if (refs == null) {
+                continue;
+            }
+            for (int ref = refs.nextSetBit(0); ref >= 0; ref = refs.nextSetBit(ref + 1)) {
+                if (!reachable.get(ref)) {
+                    reachable.set(ref);
+                    pending.add(ref);
+                }
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * @param query 筛选条件
+     * @return 匹配的operation
+     */
+    public BitSet select(OperationQuery query) {
+        BitSet selected = new BitSet();
+        selected.set(0, operations.size());
+        if (!query.getTags().isEmpty()) {
+            selected.and(union(byTag, query.getTags()));
+        }
+        if (!query.getMethods().isEmpty()) {
+            selected.and(union(byMethod, query.getMethods()));
+        }
+        if (!query.getOperationIds().isEmpty()) {
+            selected.and(union(byOperationId, query.getOperationIds()));
+        }
+        if (!query.getModels().isEmpty()) {
+            selected.and(union(byModel, query.getModels()));
+        }
+        if (!query.getPaths().isEmpty()) {
+            BitSet matched = new BitSet();
+            for (String pattern : query.getPaths()) {
+                matched.or(matchPath(pattern));
+            }
+            selected.and(matched);
+        }
+        return selected;
+    }
+
+    /**
+     * 按模式开头不含通配符的路径段取交集得到候选operation，只对候选做ant匹配
+     */
+    private BitSet matchPath(String pattern) {
+        if (!PATH_MATCHER.isPattern(pattern)) {
+            BitSet exact = byPath.get(pattern);
+            return exact == null ? new BitSet() : (BitSet) exact.clone();
+        }
+        BitSet candidates = new BitSet();
+        candidates.set(0, operations.size());
+        List<String> segments = segments(pattern);
+        for (int i = 0; i < segments.size() && !PATH_MATCHER.isPattern(segments.get(i)); i++) {
+            BitSet posting = bySegment.get(i + ":" + segments.get(i));
+            if (posting == null) {
+                return new BitSet();
+            }
+            candidates.and(posting);
+        }
+        BitSet matched = new BitSet();
+        Map<Integer, Boolean> pathMatches = new HashMap<>();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            int pathItem = operations.get(i).pathItem;
+            if (pathMatches.computeIfAbsent(pathItem, item -> PATH_MATCHER.match(pattern, pathItems.get(item).path))) {
+                matched.set(i);
+            }
+        }
+        return matched;
+    }
+
+    /**
+     * 拼接子文档: 顶层字段原样保留，paths 只包含匹配的operation，definitions 只包含其可达的模型，tags 只包含用到的tag
+     *
+     * @param content 建立索引时的文档内容
+     * @param query   筛选条件
+     * @return 子文档的内容
+     */
+    public byte[] subSpec(ByteBuffer content, OperationQuery query) {
+        BitSet selected = select(query);
+        BitSet reachable = new BitSet();
+        Set<String> usedTags = new LinkedHashSet<>();
+        for (int i = selected.nextSetBit(0); i >= 0; i = selected.nextSetBit(i + 1)) {
+            reachable.or(operations.get(i).definitions);
+            usedTags.addAll(operations.get(i).tags);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.remaining() / 4 + 256);
+        Writer writer = new Writer(content, out);
+        writer.begin('{');
+        for (Member field : fields) {
+            if (PATHS.equals(field.name)) {
+                writer.name(field.name);
+                writer.begin('{');
+                for (PathItem item : pathItems) {
+                    writePathItem(writer, item, selected);
+                }
+                writer.end('}');
+            } else if (DEFINITIONS.equals(field.name)) {
+                if (reachable.isEmpty()) {
+                    continue;
+                }
+                writer.name(field.name);
+                writer.begin('{');
+                for (int i = reachable.nextSetBit(0); i >= 0; i = reachable.nextSetBit(i + 1)) {
+                    writer.member(definitions.get(i));
+                }
+                writer.end('}');
+            } else if (TAGS.equals(field.name)) {
+                if (usedTags.isEmpty()) {
+                    continue;
+                }
+                writer.name(field.name);
+                writer.begin('[');
+                for (Member tag : tags) {
+                    if (usedTags.contains(tag.name)) {
+                        writer.element(tag);
+                    }
+                }
+                writer.end(']');
+            } else {
+                writer.member(field);
+            }
+        }
+        writer.end('}');
+        return out.toByteArray();
+    }
+
+    private void writePathItem(Writer writer, PathItem item, BitSet selected) {
+        boolean matched = false;
+        for (Member member : item.members) {
+            matched |= member.operation >= 0 && selected.get(member.operation);
+        }
+        if (!matched) {
+            return;
+        }
+        writer.name(item.path);
+        writer.begin('{');
+        for (Member member : item.members) {
+            if (member.operation < 0 || selected.get(member.operation)) {
+                writer.member(member);
+            }
+        }
+        writer.end('}');
+    }
+
+    /**
+     * @return 至少有一个operation的tag，按文档中声明的顺序，未声明的tag排在最后
+     */
+    public List<String> tagNames() {
+        Set<String> names = new LinkedHashSet<>();
+        for (Member tag : tags) {
+            if (byTag.containsKey(tag.name)) {
+                names.add(tag.name);
+            }
+        }
+        names.addAll(new TreeSet<>(byTag.keySet()));
+        return new ArrayList<>(names);
+    }
+
+    /**
+     * @param tag tag名称
+     * @return tag是否至少有一个operation，即是否在 {@link #tagNames()} 中
+     */
+    public boolean hasTag(String tag) {
+        return byTag.containsKey(tag);
+    }
+
+    /**
+     * @return operation数量
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    private static BitSet union(Map<String, BitSet> postings, Collection<String> keys) {
+        BitSet result = new BitSet();
+        for (String key : keys) {
+            BitSet posting = postings.get(key);
+            if (posting != null) {
+                result.or(posting);
+            }
+        }
+        return result;
+    }
+
+    private static BitSet posting(Map<String, BitSet> postings, String key) {
+        return postings.computeIfAbsent(key, k -> new BitSet());
+    }
+
+    private static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    private static int start(JsonParser parser) {
+        return (int) parser.getTokenLocation().getByteOffset();
+    }
+
+    private static int end(JsonParser parser) throws IOException {
+        // 字符串等标量的内容是延迟解析的，先读完当前token再取位置
+        parser.finishToken();
+        return (int) parser.getCurrentLocation().getByteOffset();
+    }
+
+    private static void skip(JsonParser parser) throws IOException {
+        parser.skipChildren();
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but was " + actual);
+        }
+    }
+
+    /**
+     * 对象的成员、数组的元素或operation在文档内容中的字节区间
+     */
+    private static final class Member {
+
+        private final String name;
+
+        private final int start;
+
+        private final int end;
+
+        /**
+         * operation的序号，不是operation时为-1
+         */
+        private final int operation;
+
+        private Member(String name, int start, int end) {
+            this(name, start, end, -1);
+        }
+
+        private Member(String name, int start, int end, int operation) {
+            this.name = name;
+            this.start = start;
+            this.end = end;
+            this.operation = operation;
+        }
+    }
+
+    private static final class PathItem {
+
+        private final String path;
+
+        private final List<Member> members = new ArrayList<>();
+
+        private PathItem(String path) {
+            this.path = path;
+        }
+    }
+
+    private static final class Operation {
+
+        private final int pathItem;
+
+        private final String method;
+
+        private final int end;
+
+        private final Set<String> tags = new LinkedHashSet<>();
+
+        private String operationId;
+
+        private BitSet directRefs;
+
+        /**
+         * 直接或间接引用的模型
+         */
+        private BitSet definitions;
+
+        private Operation(int pathItem, String method, int end) {
+            this.pathItem = pathItem;
+            this.method = method;
+            this.end = end;
+        }
+    }
+
+    /**
+     * 按字节区间拼接json
+     */
+    private static final class Writer {
+
+        private final ByteBuffer content;
+
+        private final int base;
+
+        private final ByteArrayOutputStream out;
+
+        private boolean first = true;
+
+        private Writer(ByteBuffer content, ByteArrayOutputStream out) {
+            this.content = content;
+            this.base = content.position();
+            this.out = out;
+        }
+
+        private void name(String name) {
+            separator();
+            out.write('"');
+            byte[] quoted = JsonStringEncoder.getInstance().quoteAsUTF8(name);
+            out.write(quoted, 0, quoted.length);
+            out.write('"');
+            out.write(':');
+        }
+
+        private void begin(char bracket) {
+            out.write(bracket);
+            first = true;
+        }
+
+        private void end(char bracket) {
+            out.write(bracket);
+            first = false;
+        }
+
+        private void member(Member member) {
+            name(member.name);
+            slice(member);
+            first = false;
+        }
+
+        private void element(Member member) {
+            separator();
+            slice(member);
+            first = false;
+        }
+
+        private void separator() {
+            if (!first) {
+                out.write(',');
+            }
+        }
+
+        private void slice(Member member) {
+            ByteBuffer slice = content.duplicate();
+            slice.limit(base + member.end).position(base + member.start);
+            if (slice.hasArray()) {
+                out.write(slice.array(), slice.arrayOffset() + slice.position(), slice.remaining());
+                return;
+            }
+            byte[] chunk = new byte[Math.min(slice.remaining(), 8192)];
+            while (slice.hasRemaining()) {
+                int n = Math.min(chunk.length, slice.remaining());
+                slice.get(chunk, 0, n);
+                out.write(chunk, 0, n);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import lombok.Value;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * 子文档的筛选条件: 不同条件之间为且，同一条件的多个取值之间为或，未指定的条件不参与筛选
+ */
+@Value
+public class OperationQuery {
+
+    /**
+     * operation的tag
+     **/
+    SortedSet<String> tags;
+
+    /**
+     * 路径的ant模式，例如 /restful/v100/**
+     **/
+    SortedSet<String> paths;
+
+    /**
+     * 请求方法，小写
+     **/
+    SortedSet<String> methods;
+
+    /**
+     * operationId
+     **/
+    SortedSet<String> operationIds;
+
+    /**
+     * operation直接或间接引用的模型名称
+     **/
+    SortedSet<String> models;
+
+    public OperationQuery(Collection<String> tags, Collection<String> paths, Collection<String> methods,
+                          Collection<String> operationIds, Collection<String> models) {
+        this.tags = values(tags, false);
+        this.paths = values(paths, false);
+        this.methods = values(methods, true);
+        this.operationIds = values(operationIds, false);
+        this.models = values(models, false);
+    }
+
+    /**
+     * @return 没有任何筛选条件
+     */
+    public boolean isEmpty() {
+        return tags.isEmpty() && paths.isEmpty() && methods.isEmpty() && operationIds.isEmpty() && models.isEmpty();
+    }
+
+    private static SortedSet<String> values(Collection<String> values, boolean lowerCase) {
+        SortedSet<String> result = new TreeSet<>();
+        if (values != null) {
+            for (String value : values) {
+                if (value != null && !value.isEmpty()) {
+                    result.add(lowerCase ? value.toLowerCase(Locale.ROOT) : value);
+                }
+            }
+        }
+        return Collections.unmodifiableSortedSet(result);
+    }
+}
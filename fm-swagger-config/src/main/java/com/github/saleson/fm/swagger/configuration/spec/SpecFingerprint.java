@@ -0,0 +1,324 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * 分组文档中每个operation与每个模型定义的摘要，用于在不下载完整文档的情况下比较两次部署的接口变化;
+ * 摘要包括其直接或间接引用的全部模型，模型变化时引用它的operation的摘要也随之变化，
+ * 与文档的host、basePath以及字段顺序无关
+ */
+public class SpecFingerprint {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final String DEFINITION_REF = "#/definitions/";
+
+    /**
+     * 摘要保留的十六进制字符数
+     */
+    private static final int LENGTH = 16;
+
+    @JsonIgnore
+    private final String digest;
+
+    private final SortedMap<String, String> operations;
+
+    private final SortedMap<String, String> definitions;
+
+    /**
+     * @param operations  operation的摘要，key为 METHOD path，例如 GET /users/{id}
+     * @param definitions 模型定义的摘要，key为模型名称
+     */
+    @JsonCreator
+    public SpecFingerprint(@JsonProperty("operations") Map<String, String> operations,
+                           @JsonProperty("definitions") Map<String, String> definitions) {
+        this.operations = Collections.unmodifiableSortedMap(
+                operations == null ? new TreeMap<>() : new TreeMap<>(operations));
+        this.definitions = Collections.unmodifiableSortedMap(
+                definitions == null ? new TreeMap<>() : new TreeMap<>(definitions));
+        MessageDigest sha = sha256();
+        for (Map.Entry<String, String> entry : this.operations.entrySet()) {
+            update(sha, "operation " + entry.getKey() + "=" + entry.getValue() + "\n");
+        }
+        for (Map.Entry<String, String> entry : this.definitions.entrySet()) {
+            update(sha, "definition " + entry.getKey() + "=" + entry.getValue() + "\n");
+        }
+        this.digest = hex(sha.digest());
+    }
+
+    /**
+     * 计算 Swagger 2.0 文档的摘要
+     *
+     * @param spec Swagger 2.0 文档
+     * @return 文档的摘要
+     */
+    public static SpecFingerprint of(SwaggerSpec spec) {
+        JsonNode swagger;
+        try {
+            swagger = OBJECT_MAPPER.readTree(new ByteBufferBackedInputStream(spec.content()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read specification of group " + spec.getGroup(), e);
+        }
+        JsonNode definitionNodes = swagger.path("definitions");
+        Map<String, String> own = new TreeMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = definitionNodes.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> definition = it.next();
+            own.put(definition.getKey(), hex(sha256(canonical(definition.getValue())).digest()));
+        }
+
+        Map<String, String> definitions = new TreeMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = definitionNodes.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> definition = it.next();
+            definitions.put(definition.getKey(),
+                    closure(own.get(definition.getKey()), definition.getValue(), definitionNodes, own));
+        }
+
+        Map<String, String> operations = new TreeMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> paths = swagger.path("paths").fields(); paths.hasNext(); ) {
+            Map.Entry<String, JsonNode> path = paths.next();
+            JsonNode shared = path.getValue().path("parameters");
+            for (String method : SpecSupport.METHODS) {
+                JsonNode operation = path.getValue().get(method);
+                if (operation == null) {
+                    continue;
+                }
+                String content = canonical(operation) + canonical(shared);
+                operations.put(method.toUpperCase(Locale.ROOT) + " " + path.getKey(),
+                        closure(content, operation, definitionNodes, own));
+            }
+        }
+        return new SpecFingerprint(operations, definitions);
+    }
+
+    /**
+     * 在自身内容上追加所有可达模型的摘要，循环引用的模型只计入一次
+     */
+    private static String closure(String content, JsonNode node, JsonNode definitionNodes, Map<String, String> own) {
+        SortedSet<String> reachable = new TreeSet<>();
+        Deque<JsonNode> pending = new ArrayDeque<>();
+        pending.push(node);
+        while (!pending.isEmpty()) {
+            for (String name : references(pending.pop())) {
+                if (own.containsKey(name) && reachable.add(name)) {
+                    pending.push(definitionNodes.get(name));
+                }
+            }
+        }
+        MessageDigest sha = sha256(content);
+        for (String name : reachable) {
+            update(sha, "\n" + name + "=" + own.get(name));
+        }
+        return hex(sha.digest());
+    }
+
+    private static Set<String> references(JsonNode node) {
+        Set<String> names = new TreeSet<>();
+        for (JsonNode ref : node.findValues("$ref")) {
+            String value = ref.asText();
+            if (value.startsWith(DEFINITION_REF)) {
+                names.add(value.substring(DEFINITION_REF.length()));
+            }
+        }
+        return names;
+    }
+
+    /**
+     * 字段按名称排序的json，文档中字段顺序的变化不影响摘要
+     */
+    private static String canonical(JsonNode node) {
+        StringBuilder builder = new StringBuilder();
+        canonical(node, builder);
+        return builder.toString();
+    }
+
+    private static void canonical(JsonNode node, StringBuilder builder) {
+        if (node.isObject()) {
+            List<String> names = new ArrayList<>();
+            node.fieldNames().forEachRemaining(names::add);
+            Collections.sort(names);
+            builder.append('{');
+            for (int i = 0; i < names.size(); i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                builder.append(TextNode.valueOf(names.get(i)).toString()).append(':');
+                canonical(node.get(names.get(i)), builder);
+            }
+            builder.append('}');
+        } else if (node.isArray()) {
+            builder.append('[');
+            for (int i = 0; i < node.size(); i++) {
+                if (i > 0) {
+                    builder.append(',');
+                }
+                canonical(node.get(i), builder);
+            }
+            builder.append(']');
+        } else if (!node.isMissingNode()) {
+            builder.append(node.toString());
+        }
+    }
+
+    /**
+     * 与之前的摘要比较
+     *
+     * @param previous 之前的摘要，为null时所有operation与模型都视为新增
+     * @return 变化的operation与模型
+     */
+    public Diff diff(SpecFingerprint previous) {
+        if (previous == null) {
+            previous = new SpecFingerprint(Collections.emptyMap(), Collections.emptyMap());
+        }
+        Changes operationChanges = new Changes(operations, previous.operations);
+        Changes definitionChanges = new Changes(definitions, previous.definitions);
+        return new Diff(digest, !operationChanges.isEmpty() || !definitionChanges.isEmpty(),
+                operationChanges, definitionChanges);
+    }
+
+    /**
+     * @return 所有operation与模型摘要的汇总，任一变化时随之变化
+     */
+    @JsonProperty
+    public String getDigest() {
+        return digest;
+    }
+
+    public SortedMap<String, String> getOperations() {
+        return operations;
+    }
+
+    public SortedMap<String, String> getDefinitions() {
+        return definitions;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static MessageDigest sha256(String content) {
+        MessageDigest sha = sha256();
+        update(sha, content);
+        return sha;
+    }
+
+    private static void update(MessageDigest sha, String content) {
+        sha.update(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String hex(byte[] hash) {
+        return SpecSupport.hex(hash, LENGTH);
+    }
+
+    /**
+     * 与之前摘要的差异
+     */
+    public static class Diff {
+
+        private final String digest;
+
+        private final boolean modified;
+
+        private final Changes operations;
+
+        private final Changes definitions;
+
+        Diff(String digest, boolean modified, Changes operations, Changes definitions) {
+            this.digest = digest;
+            this.modified = modified;
+            this.operations = operations;
+            this.definitions = definitions;
+        }
+
+        /**
+         * @return 当前的汇总摘要
+         */
+        public String getDigest() {
+            return digest;
+        }
+
+        public boolean isModified() {
+            return modified;
+        }
+
+        public Changes getOperations() {
+            return operations;
+        }
+
+        public Changes getDefinitions() {
+            return definitions;
+        }
+    }
+
+    /**
+     * 新增、修改与删除的条目，新增与修改时附带当前的摘要
+     */
+    public static class Changes {
+
+        private final SortedMap<String, String> added = new TreeMap<>();
+
+        private final SortedMap<String, String> changed = new TreeMap<>();
+
+        private final SortedSet<String> removed = new TreeSet<>();
+
+        Changes(Map<String, String> current, Map<String, String> previous) {
+            for (Map.Entry<String, String> entry : current.entrySet()) {
+                String before = previous.get(entry.getKey());
+                if (before == null) {
+                    added.put(entry.getKey(), entry.getValue());
+                } else if (!before.equals(entry.getValue())) {
+                    changed.put(entry.getKey(), entry.getValue());
+                }
+            }
+            for (String name : previous.keySet()) {
+                if (!current.containsKey(name)) {
+                    removed.add(name);
+                }
+            }
+        }
+
+        boolean isEmpty() {
+            return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+        }
+
+        public SortedMap<String, String> getAdded() {
+            return added;
+        }
+
+        public SortedMap<String, String> getChanged() {
+            return changed;
+        }
+
+        public SortedSet<String> getRemoved() {
+            return removed;
+        }
+    }
+}
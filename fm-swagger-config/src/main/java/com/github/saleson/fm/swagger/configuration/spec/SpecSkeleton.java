@@ -0,0 +1,95 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 分组的骨架文档: 只保留tag与operation的摘要，去掉参数、响应结构与全部模型;
+ * swagger-ui首次只需解析与渲染骨架，各tag的完整内容通过tag的 externalDocs 链接按需加载
+ */
+public final class SpecSkeleton {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    /**
+     * operation中保留的字段
+     */
+    private static final String[] OPERATION_FIELDS = {"tags", "summary", "operationId", "deprecated"};
+
+    private SpecSkeleton() {
+    }
+
+    /**
+     * @param spec    Swagger 2.0 json文档
+     * @param tagLink tag名称到其完整内容地址的映射，返回null时不添加链接
+     * @return 骨架文档的内容
+     */
+    public static byte[] of(SwaggerSpec spec, Function<String, String> tagLink) {
+        ObjectNode swagger;
+        try {
+            swagger = (ObjectNode) OBJECT_MAPPER.readTree(new ByteBufferBackedInputStream(spec.content()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read specification of group " + spec.getGroup(), e);
+        }
+        swagger.remove("definitions");
+        swagger.remove("parameters");
+        swagger.remove("responses");
+
+        ObjectNode paths = OBJECT_MAPPER.createObjectNode();
+        for (Iterator<Map.Entry<String, JsonNode>> it = swagger.path("paths").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> path = it.next();
+            ObjectNode item = paths.putObject(path.getKey());
+            for (Iterator<Map.Entry<String, JsonNode>> ops = path.getValue().fields(); ops.hasNext(); ) {
+                Map.Entry<String, JsonNode> op = ops.next();
+                if (SpecSupport.METHODS.contains(op.getKey())) {
+                    item.set(op.getKey(), summary(op.getValue()));
+                }
+            }
+        }
+        swagger.set("paths", paths);
+
+        for (JsonNode tag : swagger.path("tags")) {
+            String link = tagLink.apply(tag.path("name").asText());
+            if (link != null && tag.isObject()) {
+                ObjectNode externalDocs = ((ObjectNode) tag).putObject("externalDocs");
+                externalDocs.put("description", "operations and models");
+                externalDocs.put("url", link);
+            }
+        }
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(swagger);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException("Could not write skeleton of group " + spec.getGroup(), e);
+        }
+    }
+
+    /**
+     * operation的摘要，响应只保留描述以满足 Swagger 2.0 至少一个响应的要求
+     */
+    private static ObjectNode summary(JsonNode operation) {
+        ObjectNode summary = OBJECT_MAPPER.createObjectNode();
+        for (String field : OPERATION_FIELDS) {
+            if (operation.has(field)) {
+                summary.set(field, operation.get(field));
+            }
+        }
+        ObjectNode responses = summary.putObject("responses");
+        for (Iterator<Map.Entry<String, JsonNode>> it = operation.path("responses").fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> response = it.next();
+            responses.putObject(response.getKey()).put("description", response.getValue().path("description").asText(""));
+        }
+        if (responses.size() == 0) {
+            responses.putObject("default").put("description", "");
+        }
+        return summary;
+    }
+}
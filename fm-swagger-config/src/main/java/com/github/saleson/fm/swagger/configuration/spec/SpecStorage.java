@@ -0,0 +1,257 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 缓存文档内容的存放位置: 堆内数组、直接内存或内存映射的临时文件;
+ * 直接内存与内存映射不占用堆，不会随文档常驻进入老年代;
+ * 内存映射的临时文件位于每个存放位置单独创建的临时目录中，{@link #close()} 时删除
+ */
+public abstract class SpecStorage implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SpecStorage.class);
+
+    public enum Type {
+        /**
+         * 堆内数组
+         */
+        HEAP,
+        /**
+         * 直接内存
+         */
+        DIRECT,
+        /**
+         * 内存映射的临时文件，由操作系统的页缓存管理
+         */
+        MAPPED
+    }
+
+    /**
+     * @param type      存放位置
+     * @param directory mapped 时在该目录下创建临时目录，为null时使用系统临时目录
+     * @return 文档内容的存放方式
+     */
+    public static SpecStorage of(Type type, Path directory) {
+        switch (type) {
+            case DIRECT:
+                return new DirectStorage();
+            case MAPPED:
+                return new MappedStorage(directory);
+            default:
+                return new HeapStorage();
+        }
+    }
+
+    /**
+     * 存放文档内容
+     *
+     * @param content 文档内容
+     * @return 存放后的内容
+     * @throws IOException 写入临时文件失败
+     */
+    abstract Payload store(byte[] content) throws IOException;
+
+    /**
+     * 存放已在堆外的内容，例如快照中映射的文件，不再复制
+     */
+    Payload adopt(ByteBuffer content) throws IOException {
+        if (content.isDirect()) {
+            return new Payload(content, null, null);
+        }
+        byte[] copy = new byte[content.remaining()];
+        content.duplicate().get(copy);
+        return store(copy);
+    }
+
+    /**
+     * 为一个缓存的文档及其全部变体分配空间，变体与文档一起计入占用并一起释放
+     *
+     * @return 新的分配
+     */
+    Allocation allocate() {
+        return new Allocation(this);
+    }
+
+    /**
+     * 释放存放位置，例如删除内存映射的临时目录; 已映射的内容在缓冲区被回收前仍然可读
+     */
+    @Override
+    public void close() {
+    }
+
+    /**
+     * 文档内容及其存放信息
+     */
+    static final class Payload {
+
+        final ByteBuffer content;
+
+        /**
+         * 堆内存放时的原始数组
+         */
+        final byte[] array;
+
+        /**
+         * 内存映射时的临时文件
+         */
+        final Path file;
+
+        Payload(ByteBuffer content, byte[] array, Path file) {
+            this.content = content.asReadOnlyBuffer();
+            this.array = array;
+            this.file = file;
+        }
+    }
+
+    /**
+     * 一个缓存文档及其变体的占用
+     */
+    static final class Allocation {
+
+        private final SpecStorage storage;
+
+        private final AtomicLong bytes = new AtomicLong();
+
+        private final Queue<Path> files = new ConcurrentLinkedQueue<>();
+
+        private Allocation(SpecStorage storage) {
+            this.storage = storage;
+        }
+
+        Payload store(byte[] content) {
+            try {
+                return account(storage.store(content));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not store specification content", e);
+            }
+        }
+
+        Payload adopt(ByteBuffer content) {
+            try {
+                return account(storage.adopt(content));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not store specification content", e);
+            }
+        }
+
+        private Payload account(Payload payload) {
+            bytes.addAndGet(payload.content.remaining());
+            if (payload.file != null) {
+                files.add(payload.file);
+            }
+            return payload;
+        }
+
+        long bytes() {
+            return bytes.get();
+        }
+
+        /**
+         * 删除临时文件; 已映射的内容在缓冲区被回收前仍然可读，正在写出的响应不受影响
+         */
+        void release() {
+            for (Path file; (file = files.poll()) != null; ) {
+                MappedStorage.delete(file);
+            }
+        }
+    }
+
+    private static final class HeapStorage extends SpecStorage {
+
+        @Override
+        Payload store(byte[] content) {
+            return new Payload(ByteBuffer.wrap(content), content, null);
+        }
+
+        @Override
+        Payload adopt(ByteBuffer content) {
+            return new Payload(content, null, null);
+        }
+    }
+
+    private static final class DirectStorage extends SpecStorage {
+
+        @Override
+        Payload store(byte[] content) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(content.length);
+            buffer.put(content).flip();
+            return new Payload(buffer, null, null);
+        }
+    }
+
+    private static final class MappedStorage extends SpecStorage {
+
+        private final Path parent;
+
+        /**
+         * 首次存放时创建的临时目录
+         */
+        private Path directory;
+
+        private MappedStorage(Path parent) {
+            this.parent = parent;
+        }
+
+        private synchronized Path directory() throws IOException {
+            if (directory == null) {
+                directory = parent == null
+                        ? Files.createTempDirectory("swagger-spec-")
+                        : Files.createTempDirectory(Files.createDirectories(parent), "swagger-spec-");
+            }
+            return directory;
+        }
+
+        @Override
+        Payload store(byte[] content) throws IOException {
+            Path file = Files.createTempFile(directory(), "swagger-spec-", ".bin");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer source = ByteBuffer.wrap(content);
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+                return new Payload(channel.map(FileChannel.MapMode.READ_ONLY, 0, content.length), null, file);
+            } catch (IOException e) {
+                delete(file);
+                throw e;
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            if (directory == null) {
+                return;
+            }
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator) {
+                    delete(file);
+                }
+            } catch (IOException e) {
+                log.warn("Could not list swagger spec files in {}: {}", directory, e.toString());
+            }
+            delete(directory);
+            directory = null;
+        }
+
+        static void delete(Path file) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete swagger spec file {}: {}", file, e.toString());
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 文档处理共用的常量与工具方法
+ */
+public final class SpecSupport {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /**
+     * paths中每个路径下表示操作的字段，顺序固定
+     */
+    static final List<String> METHODS = Collections.unmodifiableList(Arrays.asList(
+            "get", "put", "post", "delete", "options", "head", "patch"));
+
+    private SpecSupport() {
+    }
+
+    /**
+     * @param hash 摘要
+     * @return 小写的十六进制字符串
+     */
+    public static String hex(byte[] hash) {
+        return hex(hash, hash.length * 2);
+    }
+
+    /**
+     * @param hash   摘要
+     * @param length 保留的十六进制字符数，为偶数且不超过摘要长度的两倍
+     * @return 摘要前length个十六进制字符
+     */
+    public static String hex(byte[] hash, int length) {
+        char[] hex = new char[length];
+        for (int i = 0; i < length / 2; i++) {
+            hex[i * 2] = HEX[(hash[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX[hash[i] & 0xf];
+        }
+        return new String(hex);
+    }
+}
@@ -0,0 +1,343 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 已序列化的分组文档，内容一经创建不可修改;
+ * ETag与各编码、各表示形式的内容在首次使用时计算一次，之后随文档一起缓存;
+ * 存入 {@link SpecStorage} 后各变体与文档存放在同一位置，占用一起计算、一起释放
+ */
+public class SwaggerSpec {
+
+    /**
+     * 每个文档缓存的子文档数量上限，超出后子文档不再缓存
+     */
+    private static final int MAX_SELECTIONS = 64;
+
+    private final SwaggerSpecKey key;
+
+    private final ByteBuffer content;
+
+    /**
+     * 堆内内容的原始数组，只用于写出，不对外暴露
+     */
+    private final byte[] array;
+
+    /**
+     * 文档及其变体的存放与占用，未存入 {@link SpecStorage} 时为null，变体存放在堆内
+     */
+    private final SpecStorage.Allocation allocation;
+
+    /**
+     * 内容的媒体类型，json时为null
+     */
+    private final String mediaType;
+
+    /**
+     * 内容编码，未编码时为null
+     */
+    private final String encoding;
+
+    private volatile String etag;
+
+    private volatile SpecFingerprint fingerprint;
+
+    private volatile OperationIndex operationIndex;
+
+    private volatile SwaggerSpec skeleton;
+
+    private final ConcurrentMap<OperationQuery, SwaggerSpec> selections = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, SwaggerSpec> encoded = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, SwaggerSpec> transcoded = new ConcurrentHashMap<>();
+
+    public SwaggerSpec(SwaggerSpecKey key, byte[] content) {
+        this(key, new SpecStorage.Payload(ByteBuffer.wrap(content), content, null), null, null, null, null);
+    }
+
+    public SwaggerSpec(SwaggerSpecKey key, ByteBuffer content) {
+        this(key, new SpecStorage.Payload(content, null, null), null, null, null, null);
+    }
+
+    private SwaggerSpec(SwaggerSpecKey key, SpecStorage.Payload payload, String mediaType, String encoding,
+                        String etag, SpecStorage.Allocation allocation) {
+        this.key = key;
+        this.content = payload.content;
+        this.array = payload.array;
+        this.mediaType = mediaType;
+        this.encoding = encoding;
+        this.etag = etag;
+        this.allocation = allocation;
+    }
+
+    /**
+     * 将文档存入存放位置，之后生成的编码、表示形式与子文档也存放在同一位置
+     *
+     * @param storage 存放位置
+     * @return 存放后的文档
+     */
+    public SwaggerSpec store(SpecStorage storage) {
+        return copyTo(storage.allocate());
+    }
+
+    private SwaggerSpec copyTo(SpecStorage.Allocation target) {
+        SpecStorage.Payload payload = array != null ? target.store(array) : target.adopt(content());
+        return new SwaggerSpec(key, payload, mediaType, encoding, etag, target);
+    }
+
+    /**
+     * 随文档缓存的变体存放在文档的位置
+     */
+    private SwaggerSpec retain(SwaggerSpec variant) {
+        return allocation == null ? variant : variant.copyTo(allocation);
+    }
+
+    private SwaggerSpec derive(byte[] content, String mediaType, String encoding, String etag) {
+        SpecStorage.Payload payload = allocation == null
+                ? new SpecStorage.Payload(ByteBuffer.wrap(content), content, null) : allocation.store(content);
+        return new SwaggerSpec(key, payload, mediaType, encoding, etag, allocation);
+    }
+
+    /**
+     * @return 文档及随其缓存的全部变体占用的字节数
+     */
+    public long retainedBytes() {
+        return allocation == null ? length() : allocation.bytes();
+    }
+
+    /**
+     * 文档不再缓存时释放存放位置，例如删除内存映射的临时文件
+     */
+    public void release() {
+        if (allocation != null) {
+            allocation.release();
+        }
+    }
+
+    public SwaggerSpecKey getKey() {
+        return key;
+    }
+
+    public String getGroup() {
+        return key.getGroup();
+    }
+
+    /**
+     * @return 内容的媒体类型，json时为null
+     */
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    /**
+     * @return 内容编码，未编码时为null
+     */
+    public String getEncoding() {
+        return encoding;
+    }
+
+    /**
+     * 基于内容摘要的强ETag，编码后的内容在未编码内容的ETag上追加编码名称
+     *
+     * @return 带引号的ETag
+     */
+    public String getETag() {
+        String value = etag;
+        if (value == null) {
+            value = "\"" + digest(content()) + "\"";
+            etag = value;
+        }
+        return value;
+    }
+
+    /**
+     * Swagger 2.0 json文档中各operation与模型的摘要，首次使用时计算一次
+     *
+     * @return 文档的摘要
+     */
+    public SpecFingerprint fingerprint() {
+        SpecFingerprint value = fingerprint;
+        if (value == null) {
+            if (mediaType != null || encoding != null || key.getFormat() != SwaggerSpecFormat.SWAGGER_2) {
+                throw new IllegalStateException("Fingerprints are computed from Swagger 2.0 json specifications");
+            }
+            value = SpecFingerprint.of(this);
+            fingerprint = value;
+        }
+        return value;
+    }
+
+    /**
+     * 获取只包含匹配的operation及其可达模型的子文档; 子文档由索引中记录的字节区间拼接而成，不重新生成或序列化文档
+     *
+     * @param query 筛选条件
+     * @return 子文档，没有筛选条件时为文档本身
+     */
+    public SwaggerSpec select(OperationQuery query) {
+        if (query == null || query.isEmpty()) {
+            return this;
+        }
+        OperationIndex index = operationIndex();
+        return select(query, index, q -> new SwaggerSpec(key, index.subSpec(content(), q)));
+    }
+
+    /**
+     * 获取子文档，未缓存时由factory生成; 用于由 Swagger 2.0 子文档转换得到的其他格式的子文档
+     *
+     * @param index 同一分组 Swagger 2.0 文档的operation索引，用于判断tag是否存在
+     */
+    SwaggerSpec select(OperationQuery query, OperationIndex index, Function<OperationQuery, SwaggerSpec> factory) {
+        if (query == null || query.isEmpty()) {
+            return this;
+        }
+        SwaggerSpec selection = selections.get(query);
+        if (selection != null) {
+            return selection;
+        }
+        // 只按单个已有tag筛选的子文档是骨架文档按需加载的片段，数量不超过tag数量，总是缓存;
+        // tag来自请求参数，不存在的tag与其他条件一样受数量上限约束
+        if (selections.size() < MAX_SELECTIONS || isTagFragment(query, index)) {
+            return selections.computeIfAbsent(query, q -> retain(factory.apply(q)));
+        }
+        return factory.apply(query);
+    }
+
+    private static boolean isTagFragment(OperationQuery query, OperationIndex index) {
+        return query.getTags().size() == 1 && query.getPaths().isEmpty() && query.getMethods().isEmpty()
+                && query.getOperationIds().isEmpty() && query.getModels().isEmpty()
+                && index.hasTag(query.getTags().first());
+    }
+
+    /**
+     * 获取只包含tag与operation摘要的骨架文档，首次使用时生成一次
+     *
+     * @param tagLink tag名称到其完整内容地址的映射
+     * @return 骨架文档
+     */
+    public SwaggerSpec skeleton(Function<String, String> tagLink) {
+        return skeleton(() -> new SwaggerSpec(key, SpecSkeleton.of(this, tagLink)));
+    }
+
+    /**
+     * 获取骨架文档，未生成时由factory生成; 用于由 Swagger 2.0 骨架文档转换得到的其他格式
+     */
+    SwaggerSpec skeleton(Supplier<SwaggerSpec> factory) {
+        SwaggerSpec value = skeleton;
+        if (value == null) {
+            if (mediaType != null || encoding != null) {
+                throw new IllegalStateException("Skeletons are built from json specifications");
+            }
+            synchronized (this) {
+                value = skeleton;
+                if (value == null) {
+                    value = retain(factory.get());
+                    skeleton = value;
+                }
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Swagger 2.0 json文档的operation索引，首次使用时建立一次
+     *
+     * @return operation索引
+     */
+    public OperationIndex operationIndex() {
+        OperationIndex value = operationIndex;
+        if (value == null) {
+            if (mediaType != null || encoding != null || key.getFormat() != SwaggerSpecFormat.SWAGGER_2) {
+                throw new IllegalStateException("Operation indexes are built from Swagger 2.0 json specifications");
+            }
+            value = OperationIndex.of(this);
+            operationIndex = value;
+        }
+        return value;
+    }
+
+    /**
+     * 获取编码后的文档，同一编码只计算一次
+     *
+     * @param encoder 编码器
+     * @return 编码后的文档
+     */
+    public SwaggerSpec encode(SwaggerSpecEncoder encoder) {
+        if (encoding != null) {
+            throw new IllegalStateException("Specification is already encoded with " + encoding);
+        }
+        return encoded.computeIfAbsent(encoder.getEncoding(), name -> {
+            try {
+                String identity = getETag();
+                return derive(encoder.encode(content()), mediaType, name,
+                        identity.substring(0, identity.length() - 1) + "-" + name + "\"");
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not encode specification of group " + key.getGroup(), e);
+            }
+        });
+    }
+
+    /**
+     * 获取文档的其他表示形式，同一媒体类型只转换一次; 转换结果有独立的ETag，可以再编码
+     *
+     * @param transcoder 转换器
+     * @return 转换后的文档
+     */
+    public SwaggerSpec transcode(SwaggerSpecTranscoder transcoder) {
+        if (mediaType != null || encoding != null) {
+            throw new IllegalStateException("Only json specifications can be transcoded");
+        }
+        return transcoded.computeIfAbsent(transcoder.getMediaType(), name -> {
+            try {
+                return derive(transcoder.transcode(content()), name, null, null);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not transcode specification of group " + key.getGroup(), e);
+            }
+        });
+    }
+
+    /**
+     * @return 文档内容的只读视图，每次调用返回独立的position
+     */
+    public ByteBuffer content() {
+        return content.duplicate();
+    }
+
+    public int length() {
+        return content.remaining();
+    }
+
+    /**
+     * 将文档内容写入输出流
+     *
+     * @param out 输出流
+     * @throws IOException 写入失败
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        if (array != null) {
+            out.write(array);
+            return;
+        }
+        // 堆外的内容由支持 write(ByteBuffer) 的输出流直接写出
+        ByteBuffers.write(content(), out);
+    }
+
+    private static String digest(ByteBuffer content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(content);
+            return SpecSupport.hex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,353 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 分组文档缓存，每个分组首次请求时由 {@link SwaggerSpecSource} 生成一次，之后直接返回序列化结果;
+ * OpenAPI 3.0 等其他格式由缓存中同一份 Swagger 2.0 文档转换，各格式分别缓存;
+ * 缓存的文档及其变体存放在 {@link SpecStorage} 中，总占用超出上限时淘汰最久未请求的文档;
+ * springfox在容器刷新时重新扫描docket，此时缓存失效; 子容器(例如运行时创建的Feign客户端容器)的刷新事件不影响缓存
+ */
+public class SwaggerSpecCache implements ApplicationListener<ContextRefreshedEvent>, ApplicationContextAware, Closeable {
+
+    private final SwaggerSpecSource source;
+
+    private final int maxEntries;
+
+    private final SpecStorage storage;
+
+    /**
+     * 缓存文档及其变体的字节上限，小于等于0时不限制
+     */
+    private final long maxBytes;
+
+    /**
+     * 各文档最近一次请求的序号，用于淘汰最久未请求的文档
+     */
+    private final ConcurrentMap<SwaggerSpecKey, Long> accessed = new ConcurrentHashMap<>();
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final Object evictionLock = new Object();
+
+    private final OpenApi3Converter openApi3Converter = new OpenApi3Converter();
+
+    private final ConcurrentMap<SwaggerSpecKey, SwaggerSpec> specs = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LongAdder> hits = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, LongAdder> misses = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存所在的容器，只响应该容器的刷新事件; 不在容器中时为null，响应所有刷新事件
+     */
+    private ApplicationContext applicationContext;
+
+    public SwaggerSpecCache(SwaggerSpecSource source, int maxEntries) {
+        this(source, maxEntries, SpecStorage.of(SpecStorage.Type.HEAP, null), 0);
+    }
+
+    /**
+     * @param source     文档来源
+     * @param maxEntries 最多缓存的文档数量
+     * @param storage    缓存文档的存放位置
+     * @param maxBytes   缓存文档及其变体的字节上限，小于等于0时不限制
+     */
+    public SwaggerSpecCache(SwaggerSpecSource source, int maxEntries, SpecStorage storage, long maxBytes) {
+        this.source = source;
+        this.maxEntries = maxEntries;
+        this.storage = storage;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 获取分组文档
+     *
+     * @param group   分组名称
+     * @param request 当前请求，用于解析文档的host与basePath
+     * @return 分组不存在时返回null
+     */
+    public SwaggerSpec get(String group, HttpServletRequest request) {
+        SwaggerSpecKey key = keyFor(group, request);
+        return key == null ? null : get(key);
+    }
+
+    /**
+     * 解析请求对应的文档key
+     *
+     * @param group   分组名称
+     * @param request 当前请求
+     * @return 分组不存在时返回null
+     */
+    public SwaggerSpecKey keyFor(String group, HttpServletRequest request) {
+        return source.keyFor(group, request);
+    }
+
+    /**
+     * 获取文档，未缓存时生成并在未超出上限时缓存
+     *
+     * @param key 文档key
+     * @return 序列化后的文档
+     */
+    public SwaggerSpec get(SwaggerSpecKey key) {
+        SwaggerSpec spec = specs.get(key);
+        if (spec != null) {
+            counter(hits, key.getGroup()).increment();
+        } else {
+            spec = load(key);
+        }
+        touch(key);
+        return spec;
+    }
+
+    /**
+     * 获取已缓存的文档，未缓存时不生成
+     *
+     * @param key 文档key
+     * @return 未缓存时返回null
+     */
+    public SwaggerSpec getIfPresent(SwaggerSpecKey key) {
+        SwaggerSpec spec = specs.get(key);
+        if (spec != null) {
+            counter(hits, key.getGroup()).increment();
+            touch(key);
+        }
+        return spec;
+    }
+
+    private SwaggerSpec load(SwaggerSpecKey key) {
+        SwaggerSpec spec = specs.get(key);
+        if (spec != null) {
+            return spec;
+        }
+        // 先取得同一分组的 Swagger 2.0 文档，不能在computeIfAbsent内部递归修改缓存
+        SwaggerSpec swagger2 = key.getFormat() == SwaggerSpecFormat.SWAGGER_2
+                ? null : load(key.withFormat(SwaggerSpecFormat.SWAGGER_2));
+        // host来自请求头，超出上限后不再缓存，避免被任意host撑满
+        if (specs.size() >= maxEntries) {
+            return generate(key, swagger2);
+        }
+        return specs.computeIfAbsent(key, k -> generate(k, swagger2).store(storage));
+    }
+
+    private SwaggerSpec generate(SwaggerSpecKey key, SwaggerSpec swagger2) {
+        counter(misses, key.getGroup()).increment();
+        return swagger2 == null ? source.generate(key) : openApi3Converter.convert(swagger2, key);
+    }
+
+    /**
+     * 记录文档的请求顺序，总占用超出上限时从最久未请求的文档开始淘汰;
+     * 变体在文档取出后才生成，其占用在之后的请求中计入
+     */
+    private void touch(SwaggerSpecKey key) {
+        if (maxBytes <= 0 || !specs.containsKey(key)) {
+            return;
+        }
+        accessed.put(key, clock.incrementAndGet());
+        if (retainedBytes() <= maxBytes) {
+            return;
+        }
+        synchronized (evictionLock) {
+            long total = retainedBytes();
+            while (total > maxBytes) {
+                SwaggerSpecKey eldest = null;
+                long eldestAccess = Long.MAX_VALUE;
+                for (Map.Entry<SwaggerSpecKey, Long> entry : accessed.entrySet()) {
+                    // 当前请求的文档即使单独超出上限也保留
+                    if (!entry.getKey().equals(key) && entry.getValue() < eldestAccess) {
+                        eldest = entry.getKey();
+                        eldestAccess = entry.getValue();
+                    }
+                }
+                if (eldest == null) {
+                    break;
+                }
+                accessed.remove(eldest);
+                SwaggerSpec evicted = specs.remove(eldest);
+                if (evicted != null) {
+                    total -= evicted.retainedBytes();
+                    evicted.release();
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 缓存的文档及其变体占用的字节数
+     */
+    public long retainedBytes() {
+        long total = 0;
+        for (SwaggerSpec spec : specs.values()) {
+            total += spec.retainedBytes();
+        }
+        return total;
+    }
+
+    /**
+     * @return 因超出字节上限被淘汰的文档数量
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    /**
+     * 获取只包含匹配operation的子文档，其他格式的子文档由 Swagger 2.0 子文档转换得到
+     *
+     * @param key   文档key
+     * @param query 筛选条件
+     * @return 子文档，没有筛选条件时为完整文档
+     */
+    public SwaggerSpec select(SwaggerSpecKey key, OperationQuery query) {
+        SwaggerSpec spec = get(key);
+        if (key.getFormat() == SwaggerSpecFormat.SWAGGER_2) {
+            return spec.select(query);
+        }
+        SwaggerSpec swagger2 = load(key.withFormat(SwaggerSpecFormat.SWAGGER_2));
+        return spec.select(query, swagger2.operationIndex(), q -> openApi3Converter.convert(swagger2.select(q), key));
+    }
+
+    /**
+     * 获取只包含tag与operation摘要的骨架文档，其他格式的骨架由 Swagger 2.0 骨架转换得到
+     *
+     * @param key     文档key
+     * @param tagLink tag名称到其完整内容地址的映射
+     * @return 骨架文档
+     */
+    public SwaggerSpec skeleton(SwaggerSpecKey key, Function<String, String> tagLink) {
+        SwaggerSpec spec = get(key);
+        if (key.getFormat() == SwaggerSpecFormat.SWAGGER_2) {
+            return spec.skeleton(tagLink);
+        }
+        SwaggerSpec swagger2 = load(key.withFormat(SwaggerSpecFormat.SWAGGER_2));
+        return spec.skeleton(() -> openApi3Converter.convert(swagger2.skeleton(tagLink), key));
+    }
+
+    /**
+     * @param key 文档key
+     * @return 文档已缓存或缓存未满时返回true，否则该文档每次请求都要重新生成
+     */
+    public boolean isCacheable(SwaggerSpecKey key) {
+        return specs.size() < maxEntries || specs.containsKey(key);
+    }
+
+    /**
+     * 不经过缓存，将文档直接写入输出流，计为一次未命中
+     *
+     * @param key 文档key
+     * @param out 输出流，写入后不关闭
+     * @throws IOException 写入失败
+     */
+    public void writeTo(SwaggerSpecKey key, OutputStream out) throws IOException {
+        if (key.getFormat() == SwaggerSpecFormat.OPENAPI_3) {
+            SwaggerSpec swagger2 = load(key.withFormat(SwaggerSpecFormat.SWAGGER_2));
+            counter(misses, key.getGroup()).increment();
+            openApi3Converter.writeTo(swagger2, out);
+            return;
+        }
+        counter(misses, key.getGroup()).increment();
+        source.writeTo(key, out);
+    }
+
+    /**
+     * @param group 分组名称
+     * @return 分组命中缓存的次数
+     */
+    public long hitCount(String group) {
+        LongAdder counter = hits.get(group);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * @param group 分组名称
+     * @return 分组未命中缓存、重新生成文档的次数
+     */
+    public long missCount(String group) {
+        LongAdder counter = misses.get(group);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    /**
+     * @return 可用的分组名称
+     */
+    public Collection<String> groups() {
+        return source.groups();
+    }
+
+    /**
+     * 清空全部缓存
+     */
+    public void invalidate() {
+        for (SwaggerSpecKey key : specs.keySet()) {
+            remove(key);
+        }
+    }
+
+    /**
+     * 清空分组的缓存
+     *
+     * @param group 分组名称
+     */
+    public void invalidate(String group) {
+        for (SwaggerSpecKey key : specs.keySet()) {
+            if (key.getGroup().equals(group)) {
+                remove(key);
+            }
+        }
+    }
+
+    private void remove(SwaggerSpecKey key) {
+        accessed.remove(key);
+        SwaggerSpec removed = specs.remove(key);
+        if (removed != null) {
+            removed.release();
+        }
+    }
+
+    public int size() {
+        return specs.size();
+    }
+
+    /**
+     * 清空缓存并释放存放位置
+     */
+    @Override
+    public void close() {
+        invalidate();
+        storage.close();
+    }
+
+    private static LongAdder counter(ConcurrentMap<String, LongAdder> counters, String group) {
+        LongAdder counter = counters.get(group);
+        return counter != null ? counter : counters.computeIfAbsent(group, key -> new LongAdder());
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (applicationContext == null || event.getApplicationContext() == applicationContext) {
+            invalidate();
+        }
+    }
+}
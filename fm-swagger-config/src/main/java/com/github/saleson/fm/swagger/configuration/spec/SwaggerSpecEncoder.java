@@ -0,0 +1,37 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * 文档内容编码，每个文档版本只编码一次，结果缓存在 {@link SwaggerSpec} 中;
+ * 多个编码器按 @Order 顺序作为客户端同时接受时的优先级，例如在gzip之前注册br编码器
+ */
+public interface SwaggerSpecEncoder {
+
+    /**
+     * @return Content-Encoding 名称，例如 gzip
+     */
+    String getEncoding();
+
+    /**
+     * 编码文档内容
+     *
+     * @param content 文档内容
+     * @return 编码后的内容
+     * @throws IOException 编码失败
+     */
+    byte[] encode(ByteBuffer content) throws IOException;
+
+    /**
+     * 包装输出流，用于流式写出的文档，每次请求都会重新编码
+     *
+     * @param out 响应的输出流
+     * @return 编码的输出流，关闭时结束编码但不关闭响应的输出流; 不支持流式编码时返回null
+     * @throws IOException 创建失败
+     */
+    default OutputStream encodingStream(OutputStream out) throws IOException {
+        return null;
+    }
+}
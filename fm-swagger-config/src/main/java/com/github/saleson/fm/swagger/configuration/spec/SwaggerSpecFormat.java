@@ -0,0 +1,17 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+/**
+ * 文档输出格式
+ */
+public enum SwaggerSpecFormat {
+
+    /**
+     * springfox扫描生成的 Swagger 2.0 文档
+     */
+    SWAGGER_2,
+
+    /**
+     * 由同一份 Swagger 2.0 文档转换的 OpenAPI 3.0 文档
+     */
+    OPENAPI_3
+}
@@ -0,0 +1,131 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.saleson.fm.swagger.configuration.bootstrap.DocumentationBootstrapReport;
+import com.github.saleson.fm.swagger.configuration.bootstrap.ThreadAllocation;
+import io.swagger.models.Swagger;
+import springfox.documentation.service.Documentation;
+import springfox.documentation.spring.web.DocumentationCache;
+import springfox.documentation.spring.web.json.JacksonModuleRegistrar;
+import springfox.documentation.swagger2.mappers.ServiceModelToSwagger2Mapper;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 由springfox扫描结果生成分组文档，生成结果与springfox的Swagger2Controller保持一致;
+ * 不缓存的文档由Jackson的流式生成器直接写入响应，不生成中间的字符串或字节数组
+ */
+public class SwaggerSpecGenerator implements SwaggerSpecSource {
+
+    private final SwaggerSpecKeyResolver keyResolver;
+    private final DocumentationCache documentationCache;
+    private final ServiceModelToSwagger2Mapper mapper;
+    private final DocumentationBootstrapReport report;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * 流式写出时不关闭响应的输出流
+     **/
+    private final ObjectWriter streamingWriter;
+
+    public SwaggerSpecGenerator(
+            SwaggerSpecKeyResolver keyResolver,
+            DocumentationCache documentationCache,
+            ServiceModelToSwagger2Mapper mapper,
+            List<JacksonModuleRegistrar> moduleRegistrars) {
+        this(keyResolver, documentationCache, mapper, moduleRegistrars, null);
+    }
+
+    /**
+     * @param report 记录分组首次序列化的耗时与大小，为null时不记录
+     */
+    public SwaggerSpecGenerator(
+            SwaggerSpecKeyResolver keyResolver,
+            DocumentationCache documentationCache,
+            ServiceModelToSwagger2Mapper mapper,
+            List<JacksonModuleRegistrar> moduleRegistrars,
+            DocumentationBootstrapReport report) {
+        this.keyResolver = keyResolver;
+        this.documentationCache = documentationCache;
+        this.mapper = mapper;
+        this.report = report;
+        for (JacksonModuleRegistrar each : moduleRegistrars) {
+            each.maybeRegisterModule(objectMapper);
+        }
+        this.streamingWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public Collection<String> groups() {
+        return documentationCache.all().keySet();
+    }
+
+    @Override
+    public SwaggerSpecKey keyFor(String group, HttpServletRequest request) {
+        Documentation documentation = documentationCache.documentationByGroup(group);
+        if (documentation == null) {
+            return null;
+        }
+        return keyResolver.resolve(group, documentation.getHost(), documentation.getBasePath(), request);
+    }
+
+    @Override
+    public SwaggerSpec generate(SwaggerSpecKey key) {
+        Documentation documentation = documentationCache.documentationByGroup(key.getGroup());
+        if (documentation == null) {
+            throw new IllegalStateException("Unable to find specification for group " + key.getGroup());
+        }
+        long start = System.nanoTime();
+        long allocated = ThreadAllocation.current();
+        try {
+            byte[] content = objectMapper.writeValueAsBytes(model(documentation, key));
+            if (report != null) {
+                report.recordSerialization(key.getGroup(), System.nanoTime() - start, content.length,
+                        ThreadAllocation.since(allocated));
+            }
+            return new SwaggerSpec(key, content);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write JSON for group " + key.getGroup(), e);
+        }
+    }
+
+    /**
+     * 以流式生成器逐个写出paths与definitions，生成器的输出缓冲区由Jackson按线程复用
+     *
+     * @param key 文档key
+     * @param out 输出流，写入后不关闭
+     * @throws IOException 写入失败
+     */
+    @Override
+    public void writeTo(SwaggerSpecKey key, OutputStream out) throws IOException {
+        Documentation documentation = documentationCache.documentationByGroup(key.getGroup());
+        if (documentation == null) {
+            throw new IllegalStateException("Unable to find specification for group " + key.getGroup());
+        }
+        streamingWriter.writeValue(out, model(documentation, key));
+    }
+
+    /**
+     * 将文档转换为swagger模型
+     *
+     * @param documentation 分组文档
+     * @param key           文档的host与basePath
+     * @return swagger模型
+     */
+    public Swagger model(Documentation documentation, SwaggerSpecKey key) {
+        Swagger swagger = mapper.mapDocumentation(documentation);
+        swagger.basePath(key.getBasePath());
+        swagger.host(key.getHost());
+        return swagger;
+    }
+
+    public ObjectMapper getObjectMapper() {
+        return objectMapper;
+    }
+}
@@ -0,0 +1,50 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import lombok.Value;
+
+/**
+ * 文档缓存的key，springfox会按请求的host与basePath改写文档，所以二者也是key的一部分;
+ * 同一分组的不同输出格式分别缓存
+ */
+@Value
+public class SwaggerSpecKey {
+
+    /**
+     * 分组名称
+     **/
+    String group;
+
+    /**
+     * 文档中的host
+     **/
+    String host;
+
+    /**
+     * 文档中的basePath
+     **/
+    String basePath;
+
+    /**
+     * 输出格式
+     **/
+    SwaggerSpecFormat format;
+
+    public SwaggerSpecKey(String group, String host, String basePath) {
+        this(group, host, basePath, SwaggerSpecFormat.SWAGGER_2);
+    }
+
+    public SwaggerSpecKey(String group, String host, String basePath, SwaggerSpecFormat format) {
+        this.group = group;
+        this.host = host;
+        this.basePath = basePath;
+        this.format = format;
+    }
+
+    /**
+     * @param format 输出格式
+     * @return 同一分组文档的另一种输出格式
+     */
+    public SwaggerSpecKey withFormat(SwaggerSpecFormat format) {
+        return format == this.format ? this : new SwaggerSpecKey(group, host, basePath, format);
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import org.springframework.core.env.Environment;
+import org.springframework.web.util.UriComponents;
+
+import javax.servlet.http.HttpServletRequest;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static springfox.documentation.swagger.common.HostNameProvider.componentsFrom;
+
+/**
+ * 按请求解析文档的host与basePath，规则与springfox的Swagger2Controller一致
+ */
+public class SwaggerSpecKeyResolver {
+
+    private static final String DEFAULT_HOST = "DEFAULT";
+
+    private final String hostNameOverride;
+
+    public SwaggerSpecKeyResolver(Environment environment) {
+        this.hostNameOverride = environment.getProperty("springfox.documentation.swagger.v2.host", DEFAULT_HOST);
+    }
+
+    /**
+     * 解析文档缓存的key
+     *
+     * @param group    分组名称
+     * @param host     文档中配置的host，为空时取请求的host
+     * @param basePath 文档中配置的basePath
+     * @param request  当前请求
+     * @return 文档缓存的key
+     */
+    public SwaggerSpecKey resolve(String group, String host, String basePath, HttpServletRequest request) {
+        UriComponents uriComponents = componentsFrom(request, basePath);
+        String resolvedBasePath = isNullOrEmpty(uriComponents.getPath()) ? "/" : uriComponents.getPath();
+        String resolvedHost = isNullOrEmpty(host) ? hostName(uriComponents) : host;
+        return new SwaggerSpecKey(group, resolvedHost, resolvedBasePath);
+    }
+
+    private String hostName(UriComponents uriComponents) {
+        if (DEFAULT_HOST.equals(hostNameOverride)) {
+            String host = uriComponents.getHost();
+            int port = uriComponents.getPort();
+            if (port > -1) {
+                return String.format("%s:%d", host, port);
+            }
+            return host;
+        }
+        return hostNameOverride;
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+
+/**
+ * 分组文档的来源，由 {@link SwaggerSpecCache} 负责缓存生成结果
+ */
+public interface SwaggerSpecSource {
+
+    /**
+     * @return 可用的分组名称
+     */
+    Collection<String> groups();
+
+    /**
+     * 解析请求对应的文档key
+     *
+     * @param group   分组名称
+     * @param request 当前请求
+     * @return 分组不存在时返回null
+     */
+    SwaggerSpecKey keyFor(String group, HttpServletRequest request);
+
+    /**
+     * 生成序列化后的文档
+     *
+     * @param key 文档key
+     * @return 序列化后的文档
+     */
+    SwaggerSpec generate(SwaggerSpecKey key);
+
+    /**
+     * 将文档直接写入输出流，不经过缓存，用于不再缓存的文档;
+     * 默认生成完整的文档后写出，来源可以改为流式写出以避免整份文档驻留在内存中
+     *
+     * @param key 文档key
+     * @param out 输出流，写入后不关闭
+     * @throws IOException 写入失败
+     */
+    default void writeTo(SwaggerSpecKey key, OutputStream out) throws IOException {
+        generate(key).writeTo(out);
+    }
+}
@@ -0,0 +1,25 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 文档内容的其他表示形式，按 Accept 协商，例如供内部工具使用的二进制格式;
+ * 每个文档版本只转换一次，结果缓存在 {@link SwaggerSpec} 中，转换后的内容仍可再经 {@link SwaggerSpecEncoder} 压缩
+ */
+public interface SwaggerSpecTranscoder {
+
+    /**
+     * @return 响应的 Content-Type，例如 application/cbor
+     */
+    String getMediaType();
+
+    /**
+     * 转换json文档
+     *
+     * @param json json文档内容
+     * @return 转换后的内容
+     * @throws IOException 转换失败
+     */
+    byte[] transcode(ByteBuffer json) throws IOException;
+}
@@ -0,0 +1,425 @@
+package com.github.saleson.fm.swagger.configuration.web;
+
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import com.github.saleson.fm.swagger.configuration.spec.OperationQuery;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpec;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecCache;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecEncoder;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecFormat;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecKey;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecTranscoder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import springfox.documentation.spring.web.plugins.Docket;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 拦截 /v2/api-docs 与 /v3/api-docs 请求，直接返回缓存中序列化好的文档;
+ * 按 Accept 返回json或已注册的其他表示形式(例如CBOR)，按 Accept-Encoding 返回预压缩的内容，按 If-None-Match 返回304;
+ * 缓存已满时不再生成完整的文档，而是流式写入响应;
+ * 指定 tag、path、method、operationId、model 参数时通过operation索引返回只包含匹配operation的子文档;
+ * view=skeleton 时返回只包含tag与operation摘要的骨架文档;
+ * 指定 {@link DocumentationExecutor} 时需要生成的文档在其线程池中异步返回，不占用servlet容器的工作线程，
+ * 已缓存的文档与304仍在当前线程直接返回;
+ * 分组不存在或请求无法处理时交给springfox的Swagger2Controller
+ */
+public class ApiDocsFilter extends OncePerRequestFilter {
+
+    private static final String VIEW_PARAMETER = "view";
+
+    private static final String SKELETON_VIEW = "skeleton";
+
+    private final SwaggerSpecCache specCache;
+
+    private final SwaggerProperties.Http http;
+
+    private final List<SwaggerSpecEncoder> encoders;
+
+    private final SwaggerSpecFormat format;
+
+    /**
+     * 处理文档请求的线程池，为null时在servlet容器的工作线程中处理
+     */
+    private final DocumentationExecutor executor;
+
+    /**
+     * 可协商的表示形式，key为媒体类型
+     */
+    private final Map<MediaType, SwaggerSpecTranscoder> transcoders = new LinkedHashMap<>();
+
+    /**
+     * @param specCache 文档缓存
+     * @param http      http响应配置
+     * @param encoders  可用的内容编码，按优先级排序
+     */
+    public ApiDocsFilter(SwaggerSpecCache specCache, SwaggerProperties.Http http, List<SwaggerSpecEncoder> encoders) {
+        this(specCache, http, encoders, SwaggerSpecFormat.SWAGGER_2);
+    }
+
+    /**
+     * @param specCache 文档缓存
+     * @param http      http响应配置
+     * @param encoders  可用的内容编码，按优先级排序
+     * @param format    返回的文档格式
+     */
+    public ApiDocsFilter(SwaggerSpecCache specCache, SwaggerProperties.Http http, List<SwaggerSpecEncoder> encoders,
+                         SwaggerSpecFormat format) {
+        this(specCache, http, encoders, Collections.emptyList(), format);
+    }
+
+    /**
+     * @param specCache   文档缓存
+     * @param http        http响应配置
+     * @param encoders    可用的内容编码，按优先级排序
+     * @param transcoders 可按 Accept 协商的其他表示形式
+     * @param format      返回的文档格式
+     */
+    public ApiDocsFilter(SwaggerSpecCache specCache, SwaggerProperties.Http http, List<SwaggerSpecEncoder> encoders,
+                         List<SwaggerSpecTranscoder> transcoders, SwaggerSpecFormat format) {
+        this(specCache, http, encoders, transcoders, format, null);
+    }
+
+    /**
+     * @param specCache   文档缓存
+     * @param http        http响应配置
+     * @param encoders    可用的内容编码，按优先级排序
+     * @param transcoders 可按 Accept 协商的其他表示形式
+     * @param format      返回的文档格式
+     * @param executor    处理文档请求的线程池，为null时在servlet容器的工作线程中处理
+     */
+    public ApiDocsFilter(SwaggerSpecCache specCache, SwaggerProperties.Http http, List<SwaggerSpecEncoder> encoders,
+                         List<SwaggerSpecTranscoder> transcoders, SwaggerSpecFormat format,
+                         DocumentationExecutor executor) {
+        this.specCache = specCache;
+        this.http = http;
+        this.encoders = encoders;
+        this.format = format;
+        this.executor = executor;
+        for (SwaggerSpecTranscoder transcoder : transcoders) {
+            this.transcoders.put(MediaType.parseMediaType(transcoder.getMediaType()), transcoder);
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !HttpMethod.GET.matches(request.getMethod()) || negotiateMediaType(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SwaggerSpecKey key = specCache.keyFor(groupName(request), request);
+        if (key == null) {
+            if (format == SwaggerSpecFormat.SWAGGER_2) {
+                filterChain.doFilter(request, response);
+            } else {
+                // 其他格式没有springfox的controller兜底
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            }
+            return;
+        }
+        SwaggerSpecKey resolved = key.withFormat(format);
+        if (executor != null && request.isAsyncSupported()) {
+            // 命中缓存的请求(包括304)只是写出已序列化的内容，不占用分组的并发数与线程池
+            SwaggerSpec cached = operationQuery(request) == null && !isSkeleton(request)
+                    ? specCache.getIfPresent(resolved) : null;
+            if (cached != null) {
+                write(cached, request, response);
+                return;
+            }
+            executor.execute(resolved.getGroup(), request, response, (req, res) -> serve(resolved, req, res));
+            return;
+        }
+        serve(resolved, request, response);
+    }
+
+    /**
+     * 返回文档
+     *
+     * @param key      文档key
+     * @param request  当前请求
+     * @param response 当前响应
+     * @throws IOException 写入失败
+     */
+    private void serve(SwaggerSpecKey key, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        OperationQuery query = operationQuery(request);
+        boolean skeleton = isSkeleton(request);
+        if (query == null && !skeleton && http.isStreaming() && !specCache.isCacheable(key)
+                && transcoders.get(negotiateMediaType(request)) == null) {
+            if (!transcoders.isEmpty()) {
+                response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+            }
+            stream(key, request, response);
+            return;
+        }
+        SwaggerSpec spec;
+        if (query != null) {
+            spec = specCache.select(key, query);
+        } else if (skeleton) {
+            spec = specCache.skeleton(key, SwaggerSpecResourcesProvider.tagLink(key.getGroup()));
+        } else {
+            spec = specCache.get(key);
+        }
+        write(spec, request, response);
+    }
+
+    /**
+     * 按 Accept、Accept-Encoding 选择表示形式，按 If-None-Match 返回304或写出内容
+     *
+     * @param spec     json格式的文档
+     * @param request  当前请求
+     * @param response 当前响应
+     * @throws IOException 写入失败
+     */
+    private void write(SwaggerSpec spec, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        SwaggerSpecTranscoder transcoder = transcoders.get(negotiateMediaType(request));
+        if (!transcoders.isEmpty()) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        if (transcoder != null) {
+            spec = spec.transcode(transcoder);
+        }
+        SwaggerSpec representation = negotiateEncoding(spec, request, response);
+        if (StringUtils.hasText(http.getCacheControl())) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, http.getCacheControl());
+        }
+        if (http.isEtag()) {
+            String etag = representation.getETag();
+            response.setHeader(HttpHeaders.ETAG, etag);
+            if (notModified(request, etag)) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(representation.getMediaType() == null
+                ? MediaType.APPLICATION_JSON_VALUE : representation.getMediaType());
+        if (representation.getEncoding() != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, representation.getEncoding());
+        }
+        response.setContentLength(representation.length());
+        representation.writeTo(response.getOutputStream());
+    }
+
+    /**
+     * 流式写出不缓存的文档，按 Accept-Encoding 在写出时编码
+     *
+     * @param key      文档key
+     * @param request  当前请求
+     * @param response 当前响应
+     * @throws IOException 写入失败
+     */
+    private void stream(SwaggerSpecKey key, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        if (StringUtils.hasText(http.getCacheControl())) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, http.getCacheControl());
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        OutputStream out = response.getOutputStream();
+        if (http.isCompression() && !encoders.isEmpty()) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            Map<String, Float> accepted = acceptedEncodings(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+            for (SwaggerSpecEncoder encoder : encoders) {
+                if (!accepts(accepted, encoder)) {
+                    continue;
+                }
+                OutputStream encoded = encoder.encodingStream(out);
+                if (encoded != null) {
+                    response.setHeader(HttpHeaders.CONTENT_ENCODING, encoder.getEncoding());
+                    try (OutputStream encoding = encoded) {
+                        specCache.writeTo(key, encoding);
+                    }
+                    return;
+                }
+            }
+        }
+        specCache.writeTo(key, out);
+    }
+
+    /**
+     * 选择客户端接受且优先级最高的编码
+     *
+     * @param spec     未编码的文档
+     * @param request  当前请求
+     * @param response 当前响应
+     * @return 选中的文档内容
+     */
+    private SwaggerSpec negotiateEncoding(SwaggerSpec spec, HttpServletRequest request, HttpServletResponse response) {
+        if (!http.isCompression() || encoders.isEmpty()) {
+            return spec;
+        }
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (spec.length() < http.getCompressionMinSize()) {
+            return spec;
+        }
+        Map<String, Float> accepted = acceptedEncodings(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        for (SwaggerSpecEncoder encoder : encoders) {
+            if (accepts(accepted, encoder)) {
+                return spec.encode(encoder);
+            }
+        }
+        return spec;
+    }
+
+    private static boolean accepts(Map<String, Float> accepted, SwaggerSpecEncoder encoder) {
+        Float quality = accepted.get(encoder.getEncoding().toLowerCase(Locale.ROOT));
+        if (quality == null) {
+            quality = accepted.get("*");
+        }
+        return quality != null && quality > 0;
+    }
+
+    /**
+     * 解析 Accept-Encoding，例如 gzip, br;q=0.8
+     *
+     * @param header 请求头
+     * @return 编码名称与q值
+     */
+    static Map<String, Float> acceptedEncodings(String header) {
+        if (!StringUtils.hasText(header)) {
+            return Collections.emptyMap();
+        }
+        Map<String, Float> accepted = new HashMap<>();
+        for (String token : StringUtils.commaDelimitedListToStringArray(header)) {
+            String[] parts = StringUtils.delimitedListToStringArray(token, ";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            if (coding.isEmpty()) {
+                continue;
+            }
+            float quality = 1f;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.startsWith("q=") || param.startsWith("Q=")) {
+                    try {
+                        quality = Float.parseFloat(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0f;
+                    }
+                }
+            }
+            accepted.put(coding, quality);
+        }
+        return accepted;
+    }
+
+    /**
+     * If-None-Match 使用弱比较，任一ETag与当前内容一致即返回304
+     *
+     * @param request 当前请求
+     * @param etag    当前内容的ETag
+     * @return 是否未修改
+     */
+    static boolean notModified(HttpServletRequest request, String etag) {
+        Enumeration<String> headers = request.getHeaders(HttpHeaders.IF_NONE_MATCH);
+        while (headers != null && headers.hasMoreElements()) {
+            for (String candidate : StringUtils.commaDelimitedListToStringArray(headers.nextElement())) {
+                String value = candidate.trim();
+                if (value.equals("*")) {
+                    return true;
+                }
+                if (value.startsWith("W/")) {
+                    value = value.substring(2);
+                }
+                if (value.equals(etag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isSkeleton(HttpServletRequest request) {
+        return SKELETON_VIEW.equals(request.getParameter(VIEW_PARAMETER));
+    }
+
+    /**
+     * 获取请求的分组名称，与springfox一致，未指定时为default
+     *
+     * @param request 当前请求
+     * @return 分组名称
+     */
+    static String groupName(HttpServletRequest request) {
+        String group = request.getParameter("group");
+        return group == null ? Docket.DEFAULT_GROUP_NAME : group;
+    }
+
+    /**
+     * 解析子文档的筛选条件，同一参数可以重复或以逗号分隔指定多个取值
+     *
+     * @param request 当前请求
+     * @return 没有筛选条件时返回null
+     */
+    static OperationQuery operationQuery(HttpServletRequest request) {
+        OperationQuery query = new OperationQuery(parameterValues(request, "tag"), parameterValues(request, "path"),
+                parameterValues(request, "method"), parameterValues(request, "operationId"),
+                parameterValues(request, "model"));
+        return query.isEmpty() ? null : query;
+    }
+
+    private static Collection<String> parameterValues(HttpServletRequest request, String name) {
+        String[] values = request.getParameterValues(name);
+        if (values == null) {
+            return null;
+        }
+        List<String> result = new ArrayList<>();
+        for (String value : values) {
+            result.addAll(Arrays.asList(StringUtils.commaDelimitedListToStringArray(value)));
+        }
+        return result;
+    }
+
+    /**
+     * 按 Accept 的优先级选择返回的媒体类型，通配符优先匹配json，q=0 的媒体类型不接受
+     *
+     * @param request 当前请求
+     * @return 选中的媒体类型，都不接受时返回null
+     */
+    private MediaType negotiateMediaType(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (!StringUtils.hasText(accept)) {
+            return MediaType.APPLICATION_JSON;
+        }
+        try {
+            List<MediaType> mediaTypes = MediaType.parseMediaTypes(accept);
+            MediaType.sortBySpecificityAndQuality(mediaTypes);
+            for (MediaType mediaType : mediaTypes) {
+                if (mediaType.getQualityValue() <= 0) {
+                    continue;
+                }
+                if (mediaType.isCompatibleWith(MediaType.APPLICATION_JSON)) {
+                    return MediaType.APPLICATION_JSON;
+                }
+                for (MediaType candidate : transcoders.keySet()) {
+                    if (mediaType.equalsTypeAndSubtype(candidate)) {
+                        return candidate;
+                    }
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            return null;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,189 @@
+package com.github.saleson.fm.swagger.configuration.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 在独立的有界线程池中以servlet异步方式处理需要生成文档的请求，文档的生成与写出不占用servlet容器的工作线程;
+ * 分组同时处理的请求超出上限时返回429，线程池队列已满或请求排队超时返回503，均带 Retry-After
+ */
+public class DocumentationExecutor implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentationExecutor.class);
+
+    /**
+     * 429 Too Many Requests，servlet 3.1 的 HttpServletResponse 中没有该常量
+     */
+    static final int SC_TOO_MANY_REQUESTS = 429;
+
+    private final ThreadPoolExecutor executor;
+
+    private final int maxConcurrentPerGroup;
+
+    private final long queueTimeoutNanos;
+
+    private final int retryAfterSeconds;
+
+    private final ConcurrentMap<String, Semaphore> permits = new ConcurrentHashMap<>();
+
+    private final LongAdder throttled = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * @param threads               处理文档请求的线程数
+     * @param queueCapacity         等待线程的请求数上限，为0时不排队
+     * @param maxConcurrentPerGroup 每个分组同时处理(包括排队)的请求数上限
+     * @param queueTimeout          请求排队的最长时间，毫秒，小于等于0时不限制
+     * @param retryAfterSeconds     拒绝请求时返回的 Retry-After 秒数
+     */
+    public DocumentationExecutor(int threads, int queueCapacity, int maxConcurrentPerGroup, long queueTimeout,
+                                 int retryAfterSeconds) {
+        BlockingQueue<Runnable> queue = queueCapacity > 0
+                ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, queue, new ThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.maxConcurrentPerGroup = maxConcurrentPerGroup;
+        this.queueTimeoutNanos = queueTimeout > 0 ? TimeUnit.MILLISECONDS.toNanos(queueTimeout) : Long.MAX_VALUE;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * 开始异步处理请求并交给线程池，超出限制时直接返回429或503;
+     * 线程池中的任务负责结束异步处理，请求在servlet容器中不设超时
+     *
+     * @param group    分组名称
+     * @param request  当前请求
+     * @param response 当前响应
+     * @param handler  在线程池中处理请求
+     * @throws IOException 写入拒绝的响应失败
+     */
+    public void execute(String group, HttpServletRequest request, HttpServletResponse response, Handler handler)
+            throws IOException {
+        Semaphore semaphore = permits.computeIfAbsent(group, key -> new Semaphore(maxConcurrentPerGroup));
+        if (!semaphore.tryAcquire()) {
+            throttled.increment();
+            reject(response, SC_TOO_MANY_REQUESTS);
+            return;
+        }
+        AsyncContext async = request.startAsync(request, response);
+        async.setTimeout(0);
+        long queued = System.nanoTime();
+        try {
+            executor.execute(() -> handle(async, semaphore, queued, handler));
+        } catch (RejectedExecutionException e) {
+            semaphore.release();
+            rejected.increment();
+            try {
+                reject(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            } finally {
+                async.complete();
+            }
+        }
+    }
+
+    private void handle(AsyncContext async, Semaphore semaphore, long queued, Handler handler) {
+        HttpServletResponse response = (HttpServletResponse) async.getResponse();
+        try {
+            // 排队过久的请求，客户端多半已经放弃
+            if (System.nanoTime() - queued > queueTimeoutNanos) {
+                rejected.increment();
+                reject(response, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                return;
+            }
+            handler.handle((HttpServletRequest) async.getRequest(), response);
+        } catch (IOException | RuntimeException e) {
+            log.debug("Could not write api docs response: {}", e.toString());
+            if (!response.isCommitted()) {
+                response.reset();
+                response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+        } finally {
+            semaphore.release();
+            async.complete();
+        }
+    }
+
+    private void reject(HttpServletResponse response, int status) throws IOException {
+        response.setStatus(status);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        response.setContentLength(0);
+        response.flushBuffer();
+    }
+
+    /**
+     * @return 正在处理文档请求的线程数
+     */
+    public int activeCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * @return 等待线程的请求数
+     */
+    public int queuedCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return 超出分组并发上限、返回429的请求数
+     */
+    public long throttledCount() {
+        return throttled.sum();
+    }
+
+    /**
+     * @return 线程池队列已满或排队超时、返回503的请求数
+     */
+    public long rejectedCount() {
+        return rejected.sum();
+    }
+
+    /**
+     * 不再接受新的请求，已接受的请求继续处理
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    /**
+     * 在线程池中处理文档请求
+     */
+    @FunctionalInterface
+    public interface Handler {
+
+        void handle(HttpServletRequest request, HttpServletResponse response) throws IOException;
+    }
+
+    private static class ThreadFactory implements java.util.concurrent.ThreadFactory {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "swagger-docs-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
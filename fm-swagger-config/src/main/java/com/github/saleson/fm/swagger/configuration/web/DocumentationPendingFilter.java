@@ -0,0 +1,50 @@
+package com.github.saleson.fm.swagger.configuration.web;
+
+import com.github.saleson.fm.swagger.configuration.bootstrap.DocumentationBootstrapProgress;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 后台扫描文档结束之前，文档接口返回503与 Retry-After，响应体为当前的扫描进度
+ */
+public class DocumentationPendingFilter extends OncePerRequestFilter {
+
+    private final DocumentationBootstrapProgress progress;
+
+    private final int retryAfterSeconds;
+
+    /**
+     * @param progress          后台扫描的进度
+     * @param retryAfterSeconds 返回的 Retry-After 秒数
+     */
+    public DocumentationPendingFilter(DocumentationBootstrapProgress progress, int retryAfterSeconds) {
+        this.progress = progress;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (progress.isReady()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        byte[] body = ("{\"status\":\"" + progress.getState()
+                + "\",\"completed\":" + progress.getCompleted()
+                + ",\"total\":" + progress.getTotal() + "}").getBytes(StandardCharsets.UTF_8);
+        response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+}
@@ -0,0 +1,98 @@
+package com.github.saleson.fm.swagger.configuration.web;
+
+import com.github.saleson.fm.swagger.configuration.spec.SpecFingerprint;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecCache;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecKey;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import springfox.documentation.annotations.ApiIgnore;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * /swagger-fingerprint: 各分组中每个operation与模型的摘要，摘要随缓存的文档计算一次;
+ * GET 返回当前的摘要，POST 之前获取的摘要时只返回有变化的分组及其新增、修改、删除的operation与模型
+ */
+@RestController
+@ApiIgnore
+@RequestMapping("/swagger-fingerprint")
+public class SwaggerFingerprintController {
+
+    private final SwaggerSpecCache specCache;
+
+    public SwaggerFingerprintController(SwaggerSpecCache specCache) {
+        this.specCache = specCache;
+    }
+
+    /**
+     * @param group   分组名称，不指定时返回所有分组
+     * @param request 当前请求
+     * @return 分组名称与摘要，指定的分组不存在时返回404
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, SpecFingerprint>> fingerprints(
+            @RequestParam(required = false) String group, HttpServletRequest request) {
+        Map<String, SpecFingerprint> fingerprints = new TreeMap<>();
+        for (String name : groups(group)) {
+            SpecFingerprint fingerprint = fingerprint(name, request);
+            if (fingerprint != null) {
+                fingerprints.put(name, fingerprint);
+            }
+        }
+        if (group != null && fingerprints.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(fingerprints);
+    }
+
+    /**
+     * @param previous 之前获取的摘要，格式与GET的响应一致，只需要 operations 与 definitions
+     * @param group    分组名称，不指定时比较所有分组
+     * @param request  当前请求
+     * @return 有变化的分组，已不存在的分组其全部operation与模型都列为删除
+     */
+    @PostMapping
+    public ResponseEntity<Map<String, SpecFingerprint.Diff>> changes(
+            @RequestBody Map<String, SpecFingerprint> previous,
+            @RequestParam(required = false) String group, HttpServletRequest request) {
+        Map<String, SpecFingerprint> current = new TreeMap<>();
+        for (String name : groups(group)) {
+            SpecFingerprint fingerprint = fingerprint(name, request);
+            if (fingerprint != null) {
+                current.put(name, fingerprint);
+            }
+        }
+        SpecFingerprint empty = new SpecFingerprint(Collections.emptyMap(), Collections.emptyMap());
+        Map<String, SpecFingerprint.Diff> changes = new TreeMap<>();
+        for (Map.Entry<String, SpecFingerprint> entry : current.entrySet()) {
+            SpecFingerprint.Diff diff = entry.getValue().diff(previous.get(entry.getKey()));
+            if (diff.isModified()) {
+                changes.put(entry.getKey(), diff);
+            }
+        }
+        for (Map.Entry<String, SpecFingerprint> entry : previous.entrySet()) {
+            if ((group == null || group.equals(entry.getKey())) && !current.containsKey(entry.getKey())) {
+                changes.put(entry.getKey(), empty.diff(entry.getValue()));
+            }
+        }
+        return ResponseEntity.ok(changes);
+    }
+
+    private Collection<String> groups(String group) {
+        return group == null ? specCache.groups() : Collections.singleton(group);
+    }
+
+    private SpecFingerprint fingerprint(String group, HttpServletRequest request) {
+        SwaggerSpecKey key = specCache.keyFor(group, request);
+        return key == null ? null : specCache.get(key).fingerprint();
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.saleson.fm.swagger.configuration.web;
+
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import com.github.saleson.fm.swagger.configuration.spec.OpenApi3Converter;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpec;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecCache;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecFormat;
+import org.springframework.core.env.Environment;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.UriUtils;
+import springfox.documentation.spring.web.plugins.Docket;
+import springfox.documentation.swagger.web.SwaggerResource;
+import springfox.documentation.swagger.web.SwaggerResourcesProvider;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static springfox.documentation.swagger2.web.Swagger2Controller.DEFAULT_URL;
+
+/**
+ * 按 {@link SwaggerSpecCache} 中可用的分组生成 swagger-resources 列表，格式与springfox的InMemorySwaggerResourcesProvider一致;
+ * 按tag分批加载时分组指向骨架文档，分组的每个tag另外作为一个资源，指向只包含该tag的子文档
+ */
+public class SwaggerSpecResourcesProvider implements SwaggerResourcesProvider {
+
+    /**
+     * 请求骨架文档的参数
+     */
+    public static final String SKELETON_PARAMETER = "view=skeleton";
+
+    private static final String UI_PAGE = "swagger-ui.html";
+
+    private final SwaggerSpecCache specCache;
+
+    private final String url;
+
+    private final String swaggerVersion;
+
+    private final boolean lazyTags;
+
+    public SwaggerSpecResourcesProvider(SwaggerSpecCache specCache, Environment environment) {
+        this(specCache, environment, new SwaggerProperties());
+    }
+
+    /**
+     * @param specCache         文档缓存
+     * @param environment       用于解析 Swagger 2.0 文档的路径
+     * @param swaggerProperties swagger-ui加载 output-formats 中第一个格式的文档
+     */
+    public SwaggerSpecResourcesProvider(
+            SwaggerSpecCache specCache, Environment environment, SwaggerProperties swaggerProperties) {
+        this.specCache = specCache;
+        List<SwaggerSpecFormat> formats = swaggerProperties.getOutputFormats();
+        if (!formats.isEmpty() && formats.get(0) == SwaggerSpecFormat.OPENAPI_3) {
+            this.url = swaggerProperties.getOpenApiPath();
+            this.swaggerVersion = OpenApi3Converter.VERSION;
+        } else {
+            this.url = environment.getProperty("springfox.documentation.swagger.v2.path", DEFAULT_URL);
+            this.swaggerVersion = "2.0";
+        }
+        this.lazyTags = Boolean.TRUE.equals(swaggerProperties.getUiConfig().getLazyTags());
+    }
+
+    @Override
+    public List<SwaggerResource> get() {
+        List<SwaggerResource> resources = new ArrayList<>();
+        for (String group : specCache.groups()) {
+            String groupUrl = Docket.DEFAULT_GROUP_NAME.equals(group) ? url + "?" : url + "?group=" + group + "&";
+            if (!lazyTags) {
+                resources.add(resource(group, groupUrl.substring(0, groupUrl.length() - 1)));
+                continue;
+            }
+            resources.add(resource(group, groupUrl + SKELETON_PARAMETER));
+            SwaggerSpec spec = currentSpec(group);
+            if (spec != null) {
+                for (String tag : spec.operationIndex().tagNames()) {
+                    resources.add(resource(tagResourceName(group, tag), groupUrl + "tag=" + encode(tag)));
+                }
+            }
+        }
+        Collections.sort(resources);
+        return resources;
+    }
+
+    private SwaggerResource resource(String name, String location) {
+        SwaggerResource swaggerResource = new SwaggerResource();
+        swaggerResource.setName(name);
+        swaggerResource.setUrl(location);
+        swaggerResource.setSwaggerVersion(swaggerVersion);
+        return swaggerResource;
+    }
+
+    /**
+     * tag列表来自当前请求对应的 Swagger 2.0 文档，不在请求中时不列出tag
+     */
+    private SwaggerSpec currentSpec(String group) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        return specCache.get(group, ((ServletRequestAttributes) attributes).getRequest());
+    }
+
+    /**
+     * @param group 分组名称
+     * @param tag   tag名称
+     * @return tag在 swagger-resources 中的名称
+     */
+    public static String tagResourceName(String group, String tag) {
+        return group + " / " + tag;
+    }
+
+    /**
+     * 骨架文档中tag的链接，在swagger-ui中切换到该tag的资源
+     *
+     * @param group 分组名称
+     * @return tag名称到链接的映射
+     */
+    public static Function<String, String> tagLink(String group) {
+        return tag -> UI_PAGE + "?urls.primaryName=" + encode(tagResourceName(group, tag));
+    }
+
+    private static String encode(String value) {
+        return UriUtils.encodeQueryParam(value, StandardCharsets.UTF_8.name());
+    }
+}
@@ -0,0 +1,365 @@
+package com.github.saleson.fm.swagger.configuration.web;
+
+import com.github.saleson.fm.swagger.configuration.spec.SpecSupport;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.util.FileCopyUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * swagger-ui静态资源的索引: 启动时读取webjar中的全部资源，计算内容摘要并预先编码，写入临时文件后以内存映射方式保存;
+ * swagger-ui.html 与css中对其他资源的引用改写为带内容摘要的地址(?v=摘要)，这些地址的内容不会变化，可以长期缓存
+ */
+public class SwaggerUiAssets implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(SwaggerUiAssets.class);
+
+    private static final String RESOURCES = "META-INF/resources";
+
+    /**
+     * 版本号保留的十六进制字符数
+     */
+    private static final int VERSION_LENGTH = 16;
+
+    /**
+     * 编码后小于原内容该比例时才保留编码结果
+     */
+    private static final double MIN_COMPRESSION_RATIO = 0.9;
+
+    /**
+     * html与css中对其他资源的相对引用，例如 webjars/springfox-swagger-ui/swagger-ui.css?v=2.9.2 与 ./fonts/x.woff2
+     */
+    private static final Pattern REFERENCE = Pattern.compile(
+            "((?:\\./)?(?:[\\w.-]++/)*+[\\w-][\\w.-]*\\.(?:css|js|png|ico|svg|woff2?))(?:\\?v=[\\w.-]*)?(?=[\"')])");
+
+    private static final Map<String, String> CONTENT_TYPES = new HashMap<>();
+
+    static {
+        CONTENT_TYPES.put("woff", "font/woff");
+        CONTENT_TYPES.put("woff2", "font/woff2");
+        CONTENT_TYPES.put("map", MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    private final Path directory;
+
+    private final Map<String, Asset> assets;
+
+    private SwaggerUiAssets(Path directory, Map<String, Asset> assets) {
+        this.directory = directory;
+        this.assets = assets;
+    }
+
+    /**
+     * 读取classpath中的swagger-ui页面与webjar资源
+     *
+     * @param classLoader 资源所在的ClassLoader
+     * @param uiPage      swagger-ui页面的路径，例如 /swagger-ui.html
+     * @param assetsPath  webjar资源的路径前缀，例如 /webjars/springfox-swagger-ui/
+     * @param encoders    预先编码使用的编码器，按优先级排序
+     * @return 资源索引
+     * @throws IOException 读取资源或写入临时文件失败
+     */
+    public static SwaggerUiAssets load(ClassLoader classLoader, String uiPage, String assetsPath,
+                                       List<SwaggerSpecEncoder> encoders) throws IOException {
+        ResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        read(resolver, "classpath*:" + RESOURCES + uiPage, contents);
+        read(resolver, "classpath*:" + RESOURCES + assetsPath + "**", contents);
+
+        // 被引用的资源先计算摘要，css改写字体的引用后再计算摘要，最后改写页面
+        List<String> paths = new ArrayList<>(contents.keySet());
+        paths.sort((a, b) -> Integer.compare(stage(a), stage(b)));
+        Map<String, String> versions = new HashMap<>();
+        Path directory = Files.createTempDirectory("swagger-ui-");
+        Map<String, Asset> assets = new HashMap<>();
+        try {
+            for (String path : paths) {
+                byte[] content = contents.get(path);
+                if (stage(path) > 0) {
+                    content = rewrite(path, content, versions);
+                }
+                String version = version(content);
+                versions.put(path, version);
+                String file = assets.size() + "-" + path.substring(path.lastIndexOf('/') + 1);
+                assets.put(path, new Asset(path, contentType(path), version,
+                        variants(directory.resolve(file), path, version, content, encoders)));
+            }
+        } catch (IOException | RuntimeException e) {
+            delete(directory);
+            throw e;
+        }
+        log.info("Indexed {} swagger-ui assets in {}", assets.size(), directory);
+        return new SwaggerUiAssets(directory, Collections.unmodifiableMap(assets));
+    }
+
+    /**
+     * @param path 相对于应用上下文的请求路径
+     * @return 不是swagger-ui资源时返回null
+     */
+    public Asset get(String path) {
+        return assets.get(path);
+    }
+
+    /**
+     * @return 索引的资源数量
+     */
+    public int size() {
+        return assets.size();
+    }
+
+    /**
+     * 删除临时文件，已映射的内容在缓冲区被回收前仍然可读
+     */
+    @Override
+    public void close() {
+        delete(directory);
+    }
+
+    private static void read(ResourcePatternResolver resolver, String pattern, Map<String, byte[]> contents)
+            throws IOException {
+        for (Resource resource : resolver.getResources(pattern)) {
+            String url = resource.getURL().toString();
+            int index = url.lastIndexOf(RESOURCES + "/");
+            if (!resource.isReadable() || url.endsWith("/") || index < 0) {
+                continue;
+            }
+            String path = url.substring(index + RESOURCES.length());
+            // 多个jar中存在同一资源时与servlet容器一致，使用classpath中靠前的
+            if (!contents.containsKey(path)) {
+                try (InputStream in = resource.getInputStream()) {
+                    contents.put(path, FileCopyUtils.copyToByteArray(in));
+                }
+            }
+        }
+    }
+
+    private static int stage(String path) {
+        if (path.endsWith(".html")) {
+            return 2;
+        }
+        return path.endsWith(".css") ? 1 : 0;
+    }
+
+    /**
+     * 将对已索引资源的引用改写为 引用?v=摘要
+     */
+    private static byte[] rewrite(String path, byte[] content, Map<String, String> versions) {
+        String text = new String(content, StandardCharsets.UTF_8);
+        String base = path.substring(0, path.lastIndexOf('/') + 1);
+        Matcher matcher = REFERENCE.matcher(text);
+        StringBuffer rewritten = new StringBuffer(text.length() + 256);
+        boolean changed = false;
+        while (matcher.find()) {
+            String reference = matcher.group(1);
+            String version = versions.get(StringUtils.cleanPath(base + reference));
+            if (version == null) {
+                matcher.appendReplacement(rewritten, Matcher.quoteReplacement(matcher.group()));
+            } else {
+                matcher.appendReplacement(rewritten, Matcher.quoteReplacement(reference + "?v=" + version));
+                changed = true;
+            }
+        }
+        if (!changed) {
+            return content;
+        }
+        matcher.appendTail(rewritten);
+        return rewritten.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, Variant> variants(Path file, String path, String version, byte[] content,
+                                                 List<SwaggerSpecEncoder> encoders) throws IOException {
+        Map<String, Variant> variants = new LinkedHashMap<>();
+        variants.put(null, Variant.of(file, content, "\"" + version + "\"", null));
+        if (!isCompressible(path)) {
+            return variants;
+        }
+        for (SwaggerSpecEncoder encoder : encoders) {
+            byte[] encoded = encoder.encode(ByteBuffer.wrap(content));
+            if (encoded.length < content.length * MIN_COMPRESSION_RATIO) {
+                String encoding = encoder.getEncoding();
+                variants.put(encoding, Variant.of(file.resolveSibling(file.getFileName() + "." + encoding), encoded,
+                        "\"" + version + "-" + encoding + "\"", encoding));
+            }
+        }
+        return variants;
+    }
+
+    private static boolean isCompressible(String path) {
+        String contentType = contentType(path);
+        return contentType.startsWith("text/") || contentType.contains("javascript") || contentType.contains("json")
+                || contentType.contains("svg");
+    }
+
+    private static String contentType(String path) {
+        String extension = StringUtils.getFilenameExtension(path);
+        String contentType = extension == null ? null : CONTENT_TYPES.get(extension);
+        if (contentType == null) {
+            contentType = MediaTypeFactory.getMediaType(path).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+        }
+        if (contentType.startsWith("text/") || contentType.contains("javascript")) {
+            contentType += ";charset=UTF-8";
+        }
+        return contentType;
+    }
+
+    private static String version(byte[] content) {
+        try {
+            return SpecSupport.hex(MessageDigest.getInstance("SHA-256").digest(content), VERSION_LENGTH);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void delete(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            log.warn("Could not delete swagger-ui assets in {}: {}", directory, e.toString());
+        }
+    }
+
+    /**
+     * 一个swagger-ui资源及其各编码的内容
+     */
+    public static final class Asset {
+
+        private final String path;
+
+        private final String contentType;
+
+        private final String version;
+
+        /**
+         * key为内容编码，未编码的内容key为null，按编码优先级排序
+         */
+        private final Map<String, Variant> variants;
+
+        private Asset(String path, String contentType, String version, Map<String, Variant> variants) {
+            this.path = path;
+            this.contentType = contentType;
+            this.version = version;
+            this.variants = variants;
+        }
+
+        public String getPath() {
+            return path;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        /**
+         * @return 内容摘要，作为引用地址中 v 参数的值
+         */
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * @return 未编码的内容
+         */
+        public Variant identity() {
+            return variants.get(null);
+        }
+
+        /**
+         * @return 各编码的内容，按编码优先级排序，包含key为null的未编码内容
+         */
+        public Map<String, Variant> variants() {
+            return variants;
+        }
+    }
+
+    /**
+     * 资源的一种编码，内容保存在临时文件中并以只读方式映射
+     */
+    public static final class Variant {
+
+        private final Path file;
+
+        private final ByteBuffer content;
+
+        private final String etag;
+
+        private final String encoding;
+
+        private Variant(Path file, ByteBuffer content, String etag, String encoding) {
+            this.file = file;
+            this.content = content;
+            this.etag = etag;
+            this.encoding = encoding;
+        }
+
+        private static Variant of(Path file, byte[] content, String etag, String encoding) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer source = ByteBuffer.wrap(content);
+                while (source.hasRemaining()) {
+                    channel.write(source);
+                }
+                return new Variant(file, channel.map(FileChannel.MapMode.READ_ONLY, 0, content.length)
+                        .asReadOnlyBuffer(), etag, encoding);
+            }
+        }
+
+        /**
+         * @return 保存内容的文件，用于servlet容器的sendfile
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * @return 内容的只读视图，每次调用返回独立的position
+         */
+        public ByteBuffer content() {
+            return content.duplicate();
+        }
+
+        public long length() {
+            return content.remaining();
+        }
+
+        public String getETag() {
+            return etag;
+        }
+
+        /**
+         * @return 内容编码，未编码时为null
+         */
+        public String getEncoding() {
+            return encoding;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.github.saleson.fm.swagger.configuration.web;
+
+import com.github.saleson.fm.swagger.configuration.spec.ByteBuffers;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 由 {@link SwaggerUiAssets} 返回swagger-ui静态资源，不经过Spring MVC的资源处理链;
+ * 带有当前内容摘要(?v=摘要)的地址返回 immutable 的长期缓存头，其余地址(包括页面本身)每次使用ETag协商;
+ * servlet容器支持sendfile时由容器直接发送文件，否则从内存映射的缓冲区写出
+ */
+public class SwaggerUiAssetsFilter extends OncePerRequestFilter {
+
+    /**
+     * 带内容摘要的地址的缓存头，内容变化时地址随之变化
+     */
+    static final String IMMUTABLE = "public, max-age=31536000, immutable";
+
+    /**
+     * 不带内容摘要的地址的缓存头，每次使用ETag协商
+     */
+    static final String REVALIDATE = "no-cache";
+
+    private static final String VERSION_PARAMETER = "v";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    /**
+     * 小于该字节数的内容直接写出，sendfile的开销高于复制，与Tomcat DefaultServlet的默认值一致
+     */
+    private static final long SENDFILE_MIN_SIZE = 48 * 1024;
+
+    private final SwaggerUiAssets assets;
+
+    private final boolean compression;
+
+    /**
+     * @param assets      swagger-ui资源索引
+     * @param compression 是否按 Accept-Encoding 返回预先编码的内容
+     */
+    public SwaggerUiAssetsFilter(SwaggerUiAssets assets, boolean compression) {
+        this.assets = assets;
+        this.compression = compression;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !(HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod()))
+                || assets.get(path(request)) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SwaggerUiAssets.Asset asset = assets.get(path(request));
+        response.setHeader(HttpHeaders.CACHE_CONTROL,
+                asset.getVersion().equals(request.getParameter(VERSION_PARAMETER)) ? IMMUTABLE : REVALIDATE);
+        SwaggerUiAssets.Variant variant = negotiateEncoding(asset, request, response);
+        response.setHeader(HttpHeaders.ETAG, variant.getETag());
+        if (ApiDocsFilter.notModified(request, variant.getETag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(asset.getContentType());
+        if (variant.getEncoding() != null) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, variant.getEncoding());
+        }
+        response.setContentLengthLong(variant.length());
+        if (HttpMethod.HEAD.matches(request.getMethod())) {
+            return;
+        }
+        if (variant.length() >= SENDFILE_MIN_SIZE && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, variant.getFile().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, variant.length());
+            return;
+        }
+        ByteBuffers.write(variant.content(), response.getOutputStream());
+    }
+
+    /**
+     * 选择客户端接受且优先级最高的编码
+     */
+    private SwaggerUiAssets.Variant negotiateEncoding(SwaggerUiAssets.Asset asset, HttpServletRequest request,
+                                                      HttpServletResponse response) {
+        Map<String, SwaggerUiAssets.Variant> variants = asset.variants();
+        if (!compression || variants.size() == 1) {
+            return asset.identity();
+        }
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        Map<String, Float> accepted = ApiDocsFilter.acceptedEncodings(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        for (Map.Entry<String, SwaggerUiAssets.Variant> entry : variants.entrySet()) {
+            if (entry.getKey() == null) {
+                continue;
+            }
+            Float quality = accepted.get(entry.getKey().toLowerCase(Locale.ROOT));
+            if (quality == null) {
+                quality = accepted.get("*");
+            }
+            if (quality != null && quality > 0) {
+                return entry.getValue();
+            }
+        }
+        return asset.identity();
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.saleson.fm.swagger.configuration;
+
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import org.junit.jupiter.api.Test;
+import springfox.documentation.builders.PathSelectors;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@link PathSelectorIndex} 与原先逐个 PathSelectors.ant 经 Predicates.and/or/not 组合的选择器结果一致
+ */
+class PathSelectorIndexTest {
+
+    private static final List<String> PATHS = Arrays.asList(
+            "", "/", "//", "/api", "/api/", "/apix", "/API/v1", "/api/v1", "/api/v1/", "/api/v1/users",
+            "/api/v1/users/", "/api/v1/users/1", "/api/v1/users/1/orders", "/api/v2/users/abc", "/api//v1/users",
+            "//api/v1", "/api/v1/public/info", "/api/v1/public/info/detail", "/api/internal/health",
+            "/api/v10/users", "/v1/users", "/users/12", "/users/ab", "/users/12/", "/files/a.txt", "/files/a.json",
+            "/files/dir/a.txt", "/a/b/c/d", "/restful/v100/getRestful", "/restful/v100/delRestful", " /api", "api/v1");
+
+    /**
+     * base-path 与 exclude-path 的组合，未配置 base-path 时包含所有路径
+     */
+    private static final List<List<List<String>>> SELECTS = Arrays.asList(
+            select(list(), list()),
+            select(list(), list("/api/internal/**")),
+            select(list("/**"), list()),
+            select(list("/api/**"), list()),
+            select(list("/api/*"), list()),
+            select(list("/api/*/users/**"), list("/api/v1/**")),
+            select(list("/api/v?/users"), list()),
+            select(list("/api/v?/**"), list("/api/v1/public/*")),
+            select(list("/users/{id}"), list()),
+            select(list("/users/{id:\\d+}", "/files/*.txt"), list()),
+            select(list("/api/", "/api/v1/"), list()),
+            select(list("/api/**/"), list("/api/v1/users/")),
+            select(list("/api/**", "/api/v1/public/**"), list("/api/v1/**")),
+            select(list("/api/v1/**"), list("/api/**")),
+            select(list("/api/**", "/restful/**"), list("/**/delRestful", "/api/*/users/*")),
+            select(list("/**/info", "/**/users"), list("/api/**/public/**")),
+            select(list("api/**", "/api/v1"), list()),
+            select(list("/files/**/*.txt"), list("/files/dir/**")),
+            select(list("/a/*/c/**", "/*/b/**"), list("/a/b/c")));
+
+    @Test
+    void matchesAntPredicates() {
+        for (List<List<String>> select : SELECTS) {
+            assertSame(select, PATHS);
+        }
+    }
+
+    @Test
+    void matchesAntPredicatesOnGeneratedPaths() {
+        List<String> segments = Arrays.asList("", "api", "v1", "v2", "users", "1", "public", "info", "a.txt");
+        List<String> paths = new ArrayList<>(Collections.singletonList("/"));
+        List<String> previous = Collections.singletonList("");
+        for (int depth = 0; depth < 4; depth++) {
+            List<String> next = new ArrayList<>();
+            for (String prefix : previous) {
+                for (String segment : segments) {
+                    next.add(prefix + "/" + segment);
+                }
+            }
+            paths.addAll(next);
+            previous = next;
+        }
+        for (List<List<String>> select : SELECTS) {
+            assertSame(select, paths);
+        }
+    }
+
+    @Test
+    void repeatedLookupsReturnTheSameResult() {
+        PathSelectorIndex index = PathSelectorIndex.compile(list("/api/**"), list("/api/internal/**"));
+        for (int i = 0; i < 2; i++) {
+            assertTrue(index.apply("/api/v1/users"));
+            assertFalse(index.apply("/api/internal/health"));
+            assertFalse(index.apply("/v1/users"));
+            assertFalse(index.apply(null));
+        }
+    }
+
+    @Test
+    void noIncludesMatchNothing() {
+        PathSelectorIndex index = PathSelectorIndex.compile(list(), list());
+        for (String path : PATHS) {
+            assertFalse(index.apply(path), path);
+        }
+    }
+
+    private static void assertSame(List<List<String>> select, List<String> paths) {
+        SwaggerProperties.DocketSelect docketSelect = new SwaggerProperties.DocketSelect();
+        docketSelect.getBasePath().addAll(select.get(0));
+        docketSelect.getExcludePath().addAll(select.get(1));
+        Predicate<String> expected = legacy(select.get(0), select.get(1));
+        PathSelectorIndex actual = ResolvedDocketConfig.paths(docketSelect);
+        for (String path : paths) {
+            assertEquals(expected.apply(path), actual.apply(path),
+                    "base-path " + select.get(0) + ", exclude-path " + select.get(1) + ", path '" + path + "'");
+        }
+    }
+
+    /**
+     * 原先的选择器
+     */
+    private static Predicate<String> legacy(List<String> basePaths, List<String> excludePaths) {
+        List<Predicate<String>> basePath = new ArrayList<>();
+        for (String path : basePaths.isEmpty() ? list("/**") : basePaths) {
+            basePath.add(PathSelectors.ant(path));
+        }
+        List<Predicate<String>> excludePath = new ArrayList<>();
+        for (String path : excludePaths) {
+            excludePath.add(PathSelectors.ant(path));
+        }
+        return Predicates.and(Predicates.not(Predicates.or(excludePath)), Predicates.or(basePath));
+    }
+
+    private static List<List<String>> select(List<String> basePath, List<String> excludePath) {
+        return Arrays.asList(basePath, excludePath);
+    }
+
+    private static List<String> list(String... values) {
+        return Arrays.asList(values);
+    }
+}
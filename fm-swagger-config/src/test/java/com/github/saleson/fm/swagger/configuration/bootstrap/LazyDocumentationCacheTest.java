@@ -0,0 +1,191 @@
+package com.github.saleson.fm.swagger.configuration.bootstrap;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import springfox.documentation.builders.DocumentationBuilder;
+import springfox.documentation.service.Documentation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 同一分组的并发请求只扫描一次，扫描失败后下次请求重新扫描
+ */
+class LazyDocumentationCacheTest {
+
+    private static final int THREADS = 16;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+    private final LazyDocumentationCache cache = new LazyDocumentationCache();
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentRequestsScanOnce() throws Exception {
+        CountingScanner scanner = new CountingScanner();
+        cache.register(Arrays.asList("a", "b"), scanner);
+
+        List<Future<Documentation>> results = requestConcurrently("a", scanner);
+
+        Documentation first = results.get(0).get(5, TimeUnit.SECONDS);
+        assertNotNull(first);
+        for (Future<Documentation> result : results) {
+            assertSame(first, result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, scanner.scanned("a"));
+        assertTrue(cache.isMaterialized("a"));
+        assertSame(first, cache.documentationByGroup("a"));
+        assertEquals(1, scanner.scanned("a"));
+        assertEquals(0, scanner.scanned("b"));
+        assertFalse(cache.isMaterialized("b"));
+    }
+
+    @Test
+    void failedScanIsRetried() {
+        CountingScanner scanner = new CountingScanner();
+        scanner.failures.set(1);
+        scanner.release.countDown();
+        cache.register(Arrays.asList("a"), scanner);
+
+        assertNull(cache.documentationByGroup("a"));
+        assertFalse(cache.isMaterialized("a"));
+
+        Documentation documentation = cache.documentationByGroup("a");
+        assertNotNull(documentation);
+        assertSame(documentation, cache.documentationByGroup("a"));
+        assertEquals(2, scanner.scanned("a"));
+    }
+
+    @Test
+    void scanExceptionIsRethrownAndRetried() {
+        AtomicInteger calls = new AtomicInteger();
+        cache.register(Arrays.asList("a"), group -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("scan failed");
+            }
+            return documentation(group);
+        });
+
+        assertThrows(IllegalStateException.class, () -> cache.documentationByGroup("a"));
+        assertFalse(cache.isMaterialized("a"));
+        assertNotNull(cache.documentationByGroup("a"));
+        assertEquals(2, calls.get());
+    }
+
+    @Test
+    void concurrentRequestsShareFailureThenRetry() throws Exception {
+        CountingScanner scanner = new CountingScanner();
+        scanner.failures.set(1);
+        cache.register(Arrays.asList("a"), scanner);
+
+        for (Future<Documentation> result : requestConcurrently("a", scanner)) {
+            assertNull(result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, scanner.scanned("a"));
+
+        assertNotNull(cache.documentationByGroup("a"));
+        assertEquals(2, scanner.scanned("a"));
+    }
+
+    @Test
+    void listingGroupsDoesNotScan() {
+        CountingScanner scanner = new CountingScanner();
+        scanner.release.countDown();
+        cache.register(Arrays.asList("b", "a"), scanner);
+
+        Map<String, Documentation> all = cache.all();
+        assertEquals(Arrays.asList("a", "b"), new ArrayList<>(all.keySet()));
+        assertTrue(all.containsKey("a"));
+        assertEquals(0, scanner.scanned("a") + scanner.scanned("b"));
+
+        assertNull(cache.documentationByGroup("unknown"));
+        assertNull(all.get("unknown"));
+        assertNotNull(all.get("b"));
+        assertEquals(1, scanner.scanned("b"));
+        assertEquals(0, scanner.scanned("a"));
+    }
+
+    /**
+     * 所有线程就绪后放行扫描，使其余线程在扫描进行中请求同一分组
+     */
+    private List<Future<Documentation>> requestConcurrently(String group, CountingScanner scanner)
+            throws InterruptedException {
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Documentation>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> {
+                ready.countDown();
+                start.await();
+                return cache.documentationByGroup(group);
+            }));
+        }
+        assertTrue(ready.await(5, TimeUnit.SECONDS));
+        start.countDown();
+        assertTrue(scanner.started.await(5, TimeUnit.SECONDS));
+        // 扫描进行中，给其余线程时间进入等待
+        TimeUnit.MILLISECONDS.sleep(100);
+        scanner.release.countDown();
+        return results;
+    }
+
+    private static Documentation documentation(String group) {
+        return new DocumentationBuilder().name(group).build();
+    }
+
+    /**
+     * 记录每个分组的扫描次数，扫描在 release 放行前阻塞
+     */
+    private static class CountingScanner implements Function<String, Documentation> {
+
+        private final Map<String, AtomicInteger> scanned = new ConcurrentHashMap<>();
+
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        /**
+         * 剩余的失败次数，失败时返回null
+         */
+        private final AtomicInteger failures = new AtomicInteger();
+
+        @Override
+        public Documentation apply(String group) {
+            scanned.computeIfAbsent(group, key -> new AtomicInteger()).incrementAndGet();
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return failures.getAndDecrement() > 0 ? null : documentation(group);
+        }
+
+        int scanned(String group) {
+            AtomicInteger count = scanned.get(group);
+            return count == null ? 0 : count.get();
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Swagger 2.0 文档转换为 OpenAPI 3.0: $ref 改写、body与formData转换为requestBody、按 produces、consumes 展开content、
+ * securityDefinitions 转换为 securitySchemes、host与basePath转换为servers
+ */
+class OpenApi3ConverterTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final OpenApi3Converter converter = new OpenApi3Converter(OBJECT_MAPPER);
+
+    private byte[] content;
+
+    private JsonNode openApi;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/spec/openapi3-converter.json")) {
+            content = StreamUtils.copyToByteArray(in);
+        }
+        openApi = converter.convert(OBJECT_MAPPER.readTree(content));
+    }
+
+    @Test
+    void keepsTopLevelFields() {
+        assertEquals(OpenApi3Converter.VERSION, openApi.path("openapi").asText());
+        assertEquals(list("openapi", "info", "servers", "tags", "paths", "components"), names(openApi));
+        assertEquals(list("/users", "/users/{id}", "/files", "/login"), names(openApi.path("paths")));
+    }
+
+    @Test
+    void rewritesDefinitionRefsToComponentSchemas() {
+        JsonNode schemas = openApi.path("components").path("schemas");
+        assertEquals(list("Address", "User", "Error"), names(schemas));
+
+        JsonNode user = schemas.path("User").path("properties");
+        assertEquals(ref("#/components/schemas/Address"), user.path("address"));
+        assertEquals("#/components/schemas/Address", user.path("tags").path("items").path("$ref").asText());
+        assertTrue(user.path("name").path("nullable").asBoolean());
+        assertFalse(user.path("name").has("x-nullable"));
+
+        JsonNode login = openApi.path("paths").path("/login").path("post").path("responses").path("200");
+        assertEquals("#/components/schemas/User",
+                login.path("content").path("application/json").path("schema").path("items").path("$ref").asText());
+        assertEquals(ref("#/components/schemas/Error"), openApi.path("components").path("responses")
+                .path("NotFound").path("content").path("application/json").path("schema"));
+        // springfox 的 originalRef 与旧的 #/definitions/ 引用都不再出现
+        String json = openApi.toString();
+        assertFalse(json.contains("#/definitions/"), json);
+        assertFalse(json.contains("originalRef"), json);
+    }
+
+    @Test
+    void rewritesParameterAndResponseRefs() {
+        JsonNode item = openApi.path("paths").path("/users/{id}");
+        assertEquals(ref("#/components/parameters/id"), item.path("parameters").path(0));
+        assertEquals(ref("#/components/requestBodies/userBody"), item.path("put").path("requestBody"));
+        assertFalse(item.path("put").has("parameters"));
+
+        JsonNode id = openApi.path("components").path("parameters").path("id");
+        assertTrue(id.path("required").asBoolean());
+        assertEquals("integer", id.path("schema").path("type").asText());
+        assertEquals("int64", id.path("schema").path("format").asText());
+        assertEquals(ref("#/components/schemas/User"), openApi.path("components").path("requestBodies")
+                .path("userBody").path("content").path("application/json").path("schema"));
+
+        assertEquals(ref("#/components/responses/NotFound"),
+                openApi.path("paths").path("/users").path("post").path("responses").path("404"));
+    }
+
+    @Test
+    void bodyParameterBecomesRequestBody() {
+        JsonNode operation = openApi.path("paths").path("/users").path("post");
+        JsonNode requestBody = operation.path("requestBody");
+
+        assertTrue(requestBody.path("required").asBoolean());
+        assertEquals(list("application/json"), names(requestBody.path("content")));
+        assertEquals(ref("#/components/schemas/User"), requestBody.path("content").path("application/json").path("schema"));
+
+        // 只剩下非body参数，collectionFormat 转换为 style 与 explode
+        assertEquals(1, operation.path("parameters").size());
+        JsonNode ids = operation.path("parameters").path(0);
+        assertEquals("ids", ids.path("name").asText());
+        assertEquals("form", ids.path("style").asText());
+        assertTrue(ids.path("explode").asBoolean());
+        assertEquals("array", ids.path("schema").path("type").asText());
+        assertEquals("int64", ids.path("schema").path("items").path("format").asText());
+    }
+
+    @Test
+    void formDataParametersBecomeRequestBody() {
+        JsonNode upload = openApi.path("paths").path("/files").path("post");
+        assertFalse(upload.has("parameters"));
+        JsonNode multipart = upload.path("requestBody").path("content");
+        assertEquals(list("multipart/form-data"), names(multipart));
+        JsonNode schema = multipart.path("multipart/form-data").path("schema");
+        assertEquals("object", schema.path("type").asText());
+        assertEquals(list("file", "comment"), names(schema.path("properties")));
+        assertEquals("string", schema.path("properties").path("file").path("type").asText());
+        assertEquals("binary", schema.path("properties").path("file").path("format").asText());
+        assertEquals("comment", schema.path("properties").path("comment").path("description").asText());
+        assertEquals(list("file"), strings(schema.path("required")));
+
+        JsonNode login = openApi.path("paths").path("/login").path("post").path("requestBody").path("content");
+        assertEquals(list("application/x-www-form-urlencoded"), names(login));
+        assertEquals(list("username", "password"),
+                strings(login.path("application/x-www-form-urlencoded").path("schema").path("required")));
+    }
+
+    @Test
+    void expandsContentByProducesAndConsumes() {
+        // 全局 produces
+        JsonNode created = openApi.path("paths").path("/users").path("post").path("responses").path("200");
+        assertEquals(list("application/json", "application/xml"), names(created.path("content")));
+        for (JsonNode mediaType : created.path("content")) {
+            assertEquals(ref("#/components/schemas/User"), mediaType.path("schema"));
+        }
+
+        // operation 的 produces、consumes 覆盖全局
+        JsonNode update = openApi.path("paths").path("/users/{id}").path("put");
+        assertEquals(list("text/plain"), names(update.path("responses").path("200").path("content")));
+
+        // 没有schema的响应不生成content
+        JsonNode upload = openApi.path("paths").path("/files").path("post").path("responses").path("200");
+        assertEquals("OK", upload.path("description").asText());
+        assertFalse(upload.has("content"));
+    }
+
+    @Test
+    void securityDefinitionsBecomeSecuritySchemes() {
+        JsonNode schemes = openApi.path("components").path("securitySchemes");
+        assertEquals(list("api_key", "basic", "oauth"), names(schemes));
+
+        JsonNode apiKey = schemes.path("api_key");
+        assertEquals("apiKey", apiKey.path("type").asText());
+        assertEquals("X-API-KEY", apiKey.path("name").asText());
+        assertEquals("header", apiKey.path("in").asText());
+
+        assertEquals("http", schemes.path("basic").path("type").asText());
+        assertEquals("basic", schemes.path("basic").path("scheme").asText());
+
+        JsonNode oauth = schemes.path("oauth");
+        assertEquals("oauth2", oauth.path("type").asText());
+        assertEquals(list("authorizationCode"), names(oauth.path("flows")));
+        JsonNode flow = oauth.path("flows").path("authorizationCode");
+        assertEquals("https://auth.example.com/authorize", flow.path("authorizationUrl").asText());
+        assertEquals("https://auth.example.com/token", flow.path("tokenUrl").asText());
+        assertEquals("read access", flow.path("scopes").path("read").asText());
+
+        assertEquals("api_key", names(openApi.path("paths").path("/users").path("post").path("security").path(0)).get(0));
+    }
+
+    @Test
+    void hostAndBasePathBecomeServers() throws IOException {
+        assertEquals(list("http://api.example.com:8080/shop", "https://api.example.com:8080/shop"), servers(openApi));
+
+        ObjectNode swagger = (ObjectNode) OBJECT_MAPPER.readTree(content);
+        swagger.remove("schemes");
+        assertEquals(list("//api.example.com:8080/shop"), servers(converter.convert(swagger)));
+
+        swagger.remove("host");
+        assertEquals(list("/shop"), servers(converter.convert(swagger)));
+
+        swagger.remove("basePath");
+        assertEquals(list("/"), servers(converter.convert(swagger)));
+    }
+
+    @Test
+    void convertedSpecMatchesStreamedSpec() throws IOException {
+        SwaggerSpecKey key = new SwaggerSpecKey("test", "localhost", "/");
+        SwaggerSpec swagger2 = new SwaggerSpec(key, content);
+        SwaggerSpec converted = converter.convert(swagger2, key);
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        converter.writeTo(swagger2, streamed);
+
+        ByteBuffer buffer = converted.content();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        assertArrayEquals(bytes, streamed.toByteArray());
+        assertEquals(openApi, OBJECT_MAPPER.readTree(bytes));
+    }
+
+    private static ObjectNode ref(String ref) {
+        ObjectNode node = OBJECT_MAPPER.createObjectNode();
+        node.put("$ref", ref);
+        return node;
+    }
+
+    private static List<String> servers(JsonNode openApi) {
+        List<String> urls = new ArrayList<>();
+        for (JsonNode server : openApi.path("servers")) {
+            urls.add(server.path("url").asText());
+        }
+        return urls;
+    }
+
+    private static List<String> strings(JsonNode array) {
+        List<String> values = new ArrayList<>();
+        for (JsonNode each : array) {
+            values.add(each.asText());
+        }
+        return values;
+    }
+
+    private static List<String> names(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    private static List<String> list(String... values) {
+        return Arrays.asList(values);
+    }
+}
@@ -0,0 +1,152 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 按tag、路径、请求方法、模型筛选子文档，解析输出的json检查 paths、definitions、tags
+ */
+class OperationIndexTest {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private byte[] content;
+
+    private SwaggerSpec spec;
+
+    private OperationIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/spec/operation-index.json")) {
+            content = StreamUtils.copyToByteArray(in);
+        }
+        spec = new SwaggerSpec(new SwaggerSpecKey("test", "localhost", "/"), content);
+        index = OperationIndex.of(spec);
+    }
+
+    @Test
+    void tagQueryKeepsTaggedOperationsAndTheirModels() throws IOException {
+        JsonNode sub = subSpec(query(list("user"), null, null, null));
+
+        assertEquals(list("/users", "/users/{id}"), names(sub.path("paths")));
+        assertEquals(list("get", "delete"), methods(sub, "/users/{id}"));
+        // User 引用的 Address 一并保留
+        assertEquals(list("Address", "User"), names(sub.path("definitions")));
+        // deleteUser 同时带有 admin
+        assertEquals(list("user", "admin"), tagNames(sub));
+    }
+
+    @Test
+    void pathQueryKeepsSharedAndTransitiveModels() throws IOException {
+        JsonNode sub = subSpec(query(null, list("/orders/**"), null, null));
+
+        assertEquals(list("/orders/{id}"), names(sub.path("paths")));
+        // Order -> User -> Address 与 Order -> LineItem -> Product
+        assertEquals(list("Address", "LineItem", "Order", "Product", "User"), names(sub.path("definitions")));
+        assertEquals(list("order"), tagNames(sub));
+    }
+
+    @Test
+    void exactPathQueryMatchesOnlyThatPath() throws IOException {
+        JsonNode sub = subSpec(query(null, list("/users"), null, null));
+
+        assertEquals(list("/users"), names(sub.path("paths")));
+        assertEquals(list("Address", "User"), names(sub.path("definitions")));
+    }
+
+    @Test
+    void methodQueryKeepsPathItemParameters() throws IOException {
+        JsonNode sub = subSpec(query(null, null, list("GET"), null));
+
+        assertEquals(list("/users/{id}", "/orders/{id}", "/health"), names(sub.path("paths")));
+        assertEquals(list("parameters", "get"), names(sub.path("paths").path("/users/{id}")));
+        assertEquals(list("Address", "LineItem", "Order", "Product", "User"), names(sub.path("definitions")));
+        assertEquals(list("user", "order"), tagNames(sub));
+    }
+
+    @Test
+    void modelQueryMatchesOperationsReachingTheModel() throws IOException {
+        JsonNode product = subSpec(query(null, null, null, list("Product")));
+        assertEquals(list("/orders/{id}"), names(product.path("paths")));
+
+        // User 被 Order 共用，getOrder 间接引用 User
+        JsonNode user = subSpec(query(null, null, null, list("User")));
+        assertEquals(list("/users", "/users/{id}", "/orders/{id}"), names(user.path("paths")));
+        assertEquals(list("get"), methods(user, "/users/{id}"));
+    }
+
+    @Test
+    void conditionsAreCombined() throws IOException {
+        JsonNode sub = subSpec(query(list("user", "admin"), list("/users/*"), list("delete"), null));
+
+        assertEquals(list("/users/{id}"), names(sub.path("paths")));
+        assertEquals(list("parameters", "delete"), names(sub.path("paths").path("/users/{id}")));
+        assertFalse(sub.has("definitions"));
+        assertEquals(list("user", "admin"), tagNames(sub));
+    }
+
+    @Test
+    void noMatchKeepsTopLevelFields() throws IOException {
+        JsonNode sub = subSpec(query(list("unused"), null, null, null));
+
+        assertEquals(list("swagger", "info", "host", "basePath", "paths"), names(sub));
+        assertEquals(0, sub.path("paths").size());
+        assertEquals(OBJECT_MAPPER.readTree(content).path("info"), sub.path("info"));
+    }
+
+    @Test
+    void emptyQueryKeepsUsedTagsAndReachableModels() throws IOException {
+        JsonNode sub = subSpec(query(null, null, null, null));
+
+        assertEquals(list("/users", "/users/{id}", "/orders/{id}", "/health"), names(sub.path("paths")));
+        assertEquals(list("Address", "LineItem", "Order", "Product", "User"), names(sub.path("definitions")));
+        assertEquals(list("user", "order", "admin"), tagNames(sub));
+    }
+
+    private JsonNode subSpec(OperationQuery query) throws IOException {
+        return OBJECT_MAPPER.readTree(index.subSpec(spec.content(), query));
+    }
+
+    private static OperationQuery query(Collection<String> tags, Collection<String> paths, Collection<String> methods,
+                                        Collection<String> models) {
+        return new OperationQuery(tags, paths, methods, null, models);
+    }
+
+    private static List<String> methods(JsonNode sub, String path) {
+        List<String> methods = names(sub.path("paths").path(path));
+        methods.remove("parameters");
+        return methods;
+    }
+
+    private static List<String> tagNames(JsonNode sub) {
+        List<String> names = new ArrayList<>();
+        for (JsonNode tag : sub.path("tags")) {
+            names.add(tag.path("name").asText());
+        }
+        return names;
+    }
+
+    private static List<String> names(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    private static List<String> list(String... values) {
+        return Arrays.asList(values);
+    }
+}
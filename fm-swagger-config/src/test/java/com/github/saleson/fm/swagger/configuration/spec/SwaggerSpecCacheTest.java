@@ -0,0 +1,165 @@
+package com.github.saleson.fm.swagger.configuration.spec;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 按字节上限淘汰最久未请求的文档、按数量上限限制Host请求头产生的key、只响应所在容器的刷新事件
+ */
+class SwaggerSpecCacheTest {
+
+    /**
+     * 每份文档的字节数
+     */
+    private static final int SPEC_BYTES = 1000;
+
+    private final StubSource source = new StubSource("a", "b", "c");
+
+    @Test
+    void evictsLeastRecentlyUsedOverByteBudget() {
+        SwaggerSpecCache cache = new SwaggerSpecCache(source, 100, SpecStorage.of(SpecStorage.Type.HEAP, null), 2500);
+
+        cache.get(key("a"));
+        cache.get(key("b"));
+        cache.get(key("a"));
+        cache.get(key("c"));
+
+        // b 最久未请求
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertEquals(2 * SPEC_BYTES, cache.retainedBytes());
+        assertEquals(1, cache.hitCount("a"));
+
+        cache.get(key("b"));
+        assertEquals(2, source.generated("b"));
+        // 此时 a 最久未请求
+        assertEquals(2, cache.evictionCount());
+        cache.get(key("c"));
+        assertEquals(1, source.generated("c"));
+        cache.get(key("a"));
+        assertEquals(2, source.generated("a"));
+    }
+
+    @Test
+    void keepsRequestedSpecLargerThanBudget() {
+        SwaggerSpecCache cache = new SwaggerSpecCache(source, 100, SpecStorage.of(SpecStorage.Type.HEAP, null), 500);
+
+        cache.get(key("a"));
+        cache.get(key("a"));
+
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.evictionCount());
+        assertEquals(1, source.generated("a"));
+        assertEquals(1, cache.hitCount("a"));
+    }
+
+    @Test
+    void capsKeysFromHostHeaders() {
+        SwaggerSpecCache cache = new SwaggerSpecCache(source, 2);
+
+        cache.get("a", request("one.example.com"));
+        cache.get("a", request("two.example.com"));
+        cache.get("a", request("three.example.com"));
+        cache.get("a", request("three.example.com"));
+        cache.get("a", request("one.example.com"));
+
+        assertEquals(2, cache.size());
+        // 超出上限的host每次请求都重新生成，不进入缓存
+        assertFalse(cache.isCacheable(new SwaggerSpecKey("a", "three.example.com", "/")));
+        assertTrue(cache.isCacheable(new SwaggerSpecKey("a", "one.example.com", "/")));
+        assertEquals(4, source.generated("a"));
+        assertEquals(1, cache.hitCount("a"));
+        assertEquals(4, cache.missCount("a"));
+        assertNull(cache.get("unknown", request("one.example.com")));
+    }
+
+    @Test
+    void ignoresRefreshOfChildContext() {
+        StaticApplicationContext parent = new StaticApplicationContext();
+        StaticApplicationContext child = new StaticApplicationContext(parent);
+        SwaggerSpecCache cache = new SwaggerSpecCache(source, 100);
+        cache.setApplicationContext(parent);
+        cache.get(key("a"));
+
+        cache.onApplicationEvent(new ContextRefreshedEvent(child));
+        assertEquals(1, cache.size());
+
+        cache.onApplicationEvent(new ContextRefreshedEvent(parent));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void invalidatesOnAnyRefreshOutsideContext() {
+        SwaggerSpecCache cache = new SwaggerSpecCache(source, 100);
+        cache.get(key("a"));
+
+        cache.onApplicationEvent(new ContextRefreshedEvent(new StaticApplicationContext()));
+        assertEquals(0, cache.size());
+    }
+
+    private static SwaggerSpecKey key(String group) {
+        return new SwaggerSpecKey(group, "localhost", "/");
+    }
+
+    private static HttpServletRequest request(String host) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v2/api-docs");
+        request.addHeader("Host", host);
+        return request;
+    }
+
+    /**
+     * 文档的host取自请求头，记录每个分组生成的次数
+     */
+    private static class StubSource implements SwaggerSpecSource {
+
+        private final Collection<String> groups;
+
+        private final Map<String, AtomicInteger> generated = new ConcurrentHashMap<>();
+
+        StubSource(String... groups) {
+            this.groups = Arrays.asList(groups);
+        }
+
+        @Override
+        public Collection<String> groups() {
+            return groups;
+        }
+
+        @Override
+        public SwaggerSpecKey keyFor(String group, HttpServletRequest request) {
+            return groups.contains(group) ? new SwaggerSpecKey(group, request.getHeader("Host"), "/") : null;
+        }
+
+        @Override
+        public SwaggerSpec generate(SwaggerSpecKey key) {
+            generated.computeIfAbsent(key.getGroup(), group -> new AtomicInteger()).incrementAndGet();
+            StringBuilder json = new StringBuilder("{\"swagger\":\"2.0\",\"info\":{\"title\":\"")
+                    .append(key.getGroup()).append("\"},\"x-padding\":\"");
+            while (json.length() < SPEC_BYTES - 2) {
+                json.append('.');
+            }
+            json.append("\"}");
+            return new SwaggerSpec(key, json.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        int generated(String group) {
+            AtomicInteger count = generated.get(group);
+            return count == null ? 0 : count.get();
+        }
+    }
+}
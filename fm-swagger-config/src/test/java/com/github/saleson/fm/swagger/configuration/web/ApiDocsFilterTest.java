@@ -0,0 +1,282 @@
+package com.github.saleson.fm.swagger.configuration.web;
+
+import com.github.saleson.fm.swagger.configuration.properties.SwaggerProperties;
+import com.github.saleson.fm.swagger.configuration.spec.CborSwaggerSpecTranscoder;
+import com.github.saleson.fm.swagger.configuration.spec.GzipSwaggerSpecEncoder;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpec;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecCache;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecFormat;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecKey;
+import com.github.saleson.fm.swagger.configuration.spec.SwaggerSpecSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ETag与If-None-Match、Accept-Encoding、Accept 的协商，以及分组不存在时的处理
+ */
+class ApiDocsFilterTest {
+
+    private static final String GROUP = "test";
+
+    private byte[] content;
+
+    private SwaggerSpecCache specCache;
+
+    private SwaggerProperties.Http http;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        try (InputStream in = getClass().getResourceAsStream("/spec/operation-index.json")) {
+            content = StreamUtils.copyToByteArray(in);
+        }
+        specCache = new SwaggerSpecCache(new StubSource(), 100);
+        http = new SwaggerProperties.Http();
+        http.setCompressionMinSize(0);
+    }
+
+    @Test
+    void servesSpecWithEtagAndVary() throws Exception {
+        MockHttpServletResponse response = get(request());
+
+        assertEquals(200, response.getStatus());
+        assertEquals("application/json", response.getContentType());
+        assertArrayEquals(content, response.getContentAsByteArray());
+        assertEquals(content.length, response.getContentLength());
+        String etag = response.getHeader("ETag");
+        assertNotNull(etag);
+        assertTrue(etag.startsWith("\"") && etag.endsWith("\""), etag);
+        assertEquals(Collections.singletonList("Accept"), response.getHeaders("Vary").subList(0, 1));
+        assertTrue(response.getHeaders("Vary").contains("Accept-Encoding"));
+    }
+
+    @Test
+    void weakEtagMatchReturnsNotModifiedWithoutBody() throws Exception {
+        String etag = get(request()).getHeader("ETag");
+
+        MockHttpServletRequest request = request();
+        request.addHeader("If-None-Match", "W/" + etag);
+        MockHttpServletResponse response = get(request);
+
+        assertEquals(304, response.getStatus());
+        assertEquals(etag, response.getHeader("ETag"));
+        assertEquals(0, response.getContentAsByteArray().length);
+        assertNull(response.getContentType());
+        assertNull(response.getHeader("Content-Encoding"));
+    }
+
+    @Test
+    void ifNoneMatchListAndWildcard() throws Exception {
+        String etag = get(request()).getHeader("ETag");
+
+        assertEquals(304, get(ifNoneMatch("\"other\", " + etag)).getStatus());
+        assertEquals(304, get(ifNoneMatch("*")).getStatus());
+        assertEquals(200, get(ifNoneMatch("\"other\"")).getStatus());
+        // 与当前内容编码不同的ETag不匹配
+        MockHttpServletRequest gzip = request();
+        gzip.addHeader("Accept-Encoding", "gzip");
+        gzip.addHeader("If-None-Match", etag);
+        assertEquals(200, get(gzip).getStatus());
+    }
+
+    @Test
+    void compressesWhenEncodingAccepted() throws Exception {
+        String identityEtag = get(request()).getHeader("ETag");
+        MockHttpServletRequest request = request();
+        request.addHeader("Accept-Encoding", "deflate, gzip;q=0.5");
+        MockHttpServletResponse response = get(request);
+
+        assertEquals("gzip", response.getHeader("Content-Encoding"));
+        assertArrayEquals(content, gunzip(response.getContentAsByteArray()));
+        assertNotEquals(identityEtag, response.getHeader("ETag"));
+        assertTrue(response.getHeaders("Vary").contains("Accept-Encoding"));
+    }
+
+    @Test
+    void acceptEncodingQualityAndWildcard() throws Exception {
+        assertEquals("gzip", contentEncoding("*"));
+        assertEquals("gzip", contentEncoding("br, *;q=0.1"));
+        assertNull(contentEncoding("gzip;q=0"));
+        assertNull(contentEncoding("gzip;q=0, *"));
+        assertNull(contentEncoding("*;q=0"));
+        assertNull(contentEncoding("identity"));
+        assertNull(contentEncoding("gzip;q=abc"));
+        assertNull(contentEncoding(null));
+    }
+
+    @Test
+    void skipsCompressionBelowMinimumSize() throws Exception {
+        http.setCompressionMinSize(content.length + 1);
+        MockHttpServletRequest request = request();
+        request.addHeader("Accept-Encoding", "gzip");
+        MockHttpServletResponse response = get(request);
+
+        assertNull(response.getHeader("Content-Encoding"));
+        assertTrue(response.getHeaders("Vary").contains("Accept-Encoding"));
+    }
+
+    @Test
+    void negotiatesRepresentationFromAccept() throws Exception {
+        assertEquals("application/json", get(accept("*/*")).getContentType());
+        assertEquals("application/json", get(accept("application/cbor;q=0.5, application/json")).getContentType());
+        assertEquals("application/cbor", get(accept("application/cbor")).getContentType());
+        assertEquals("application/cbor", get(accept("application/json;q=0, application/cbor")).getContentType());
+        assertEquals("application/cbor", get(accept("application/json;q=0.2, application/cbor")).getContentType());
+    }
+
+    @Test
+    void unacceptableRepresentationFallsThroughToSpringfox() throws Exception {
+        for (String accept : new String[]{"text/html", "application/json;q=0", "not a media type"}) {
+            MockFilterChain chain = new MockFilterChain();
+            filter(SwaggerSpecFormat.SWAGGER_2).doFilter(accept(accept), new MockHttpServletResponse(), chain);
+            assertNotNull(chain.getRequest(), accept);
+        }
+    }
+
+    @Test
+    void unknownGroupFallsThroughForSwagger2() throws Exception {
+        MockHttpServletRequest request = request();
+        request.setParameter("group", "unknown");
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter(SwaggerSpecFormat.SWAGGER_2).doFilter(request, response, chain);
+
+        assertNotNull(chain.getRequest());
+        assertEquals(0, response.getContentAsByteArray().length);
+    }
+
+    @Test
+    void unknownGroupIsNotFoundForOpenApi3() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v3/api-docs");
+        request.setParameter("group", "unknown");
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter(SwaggerSpecFormat.OPENAPI_3).doFilter(request, response, chain);
+
+        assertNull(chain.getRequest());
+        assertEquals(404, response.getStatus());
+    }
+
+    @Test
+    void isolatedFilterServesCachedSpecInline() throws Exception {
+        // 分组并发上限为0，进入线程池的请求全部返回429
+        DocumentationExecutor executor = new DocumentationExecutor(1, 0, 0, 0, 1);
+        try {
+            ApiDocsFilter filter = new ApiDocsFilter(specCache, http,
+                    Collections.singletonList(new GzipSwaggerSpecEncoder()), Collections.emptyList(),
+                    SwaggerSpecFormat.SWAGGER_2, executor);
+
+            assertEquals(429, isolated(filter, request()).getStatus());
+            assertEquals(0, specCache.size());
+
+            specCache.get(specCache.keyFor(GROUP, request()));
+            MockHttpServletResponse cached = isolated(filter, request());
+            assertEquals(200, cached.getStatus());
+            assertArrayEquals(content, cached.getContentAsByteArray());
+
+            MockHttpServletResponse notModified = isolated(filter, ifNoneMatch(cached.getHeader("ETag")));
+            assertEquals(304, notModified.getStatus());
+            assertEquals(0, notModified.getContentAsByteArray().length);
+
+            // 子文档需要生成，仍进入线程池
+            MockHttpServletRequest query = request();
+            query.setParameter("tag", "user");
+            assertEquals(429, isolated(filter, query).getStatus());
+            assertEquals(2, executor.throttledCount());
+        } finally {
+            executor.close();
+        }
+    }
+
+    private static MockHttpServletResponse isolated(ApiDocsFilter filter, MockHttpServletRequest request)
+            throws IOException, ServletException {
+        request.setAsyncSupported(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        assertNull(chain.getRequest());
+        return response;
+    }
+
+    private String contentEncoding(String acceptEncoding) throws Exception {
+        MockHttpServletRequest request = request();
+        if (acceptEncoding != null) {
+            request.addHeader("Accept-Encoding", acceptEncoding);
+        }
+        return get(request).getHeader("Content-Encoding");
+    }
+
+    private MockHttpServletResponse get(MockHttpServletRequest request) throws IOException, ServletException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter(SwaggerSpecFormat.SWAGGER_2).doFilter(request, response, chain);
+        assertNull(chain.getRequest(), "request was passed to springfox");
+        return response;
+    }
+
+    private ApiDocsFilter filter(SwaggerSpecFormat format) {
+        return new ApiDocsFilter(specCache, http, Collections.singletonList(new GzipSwaggerSpecEncoder()),
+                Collections.singletonList(new CborSwaggerSpecTranscoder()), format);
+    }
+
+    private static MockHttpServletRequest request() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/v2/api-docs");
+        request.setParameter("group", GROUP);
+        return request;
+    }
+
+    private static MockHttpServletRequest accept(String accept) {
+        MockHttpServletRequest request = request();
+        request.addHeader("Accept", accept);
+        return request;
+    }
+
+    private static MockHttpServletRequest ifNoneMatch(String ifNoneMatch) {
+        MockHttpServletRequest request = request();
+        request.addHeader("If-None-Match", ifNoneMatch);
+        return request;
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return StreamUtils.copyToByteArray(in);
+        }
+    }
+
+    private class StubSource implements SwaggerSpecSource {
+
+        @Override
+        public Collection<String> groups() {
+            return Collections.singletonList(GROUP);
+        }
+
+        @Override
+        public SwaggerSpecKey keyFor(String group, HttpServletRequest request) {
+            return GROUP.equals(group) ? new SwaggerSpecKey(group, "localhost", "/") : null;
+        }
+
+        @Override
+        public SwaggerSpec generate(SwaggerSpecKey key) {
+            return new SwaggerSpec(key, content);
+        }
+    }
+}
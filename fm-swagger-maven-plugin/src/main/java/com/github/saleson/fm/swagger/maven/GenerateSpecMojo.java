@@ -0,0 +1,99 @@
+package com.github.saleson.fm.swagger.maven;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 构建时启动一次应用，把每个分组的文档写入 jar 的 META-INF/fm-swagger/&lt;group&gt;.json，
+ * 运行时配置 swagger.mode=prebuilt 即可直接读取，不再扫描
+ */
+@Mojo(name = "generate",
+        defaultPhase = LifecyclePhase.PREPARE_PACKAGE,
+        requiresDependencyResolution = ResolutionScope.RUNTIME,
+        threadSafe = true)
+public class GenerateSpecMojo extends AbstractMojo {
+
+    private static final String EXPORTER = "com.github.saleson.fm.swagger.configuration.prebuilt.PrebuiltSpecExporter";
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    /**
+     * 应用的启动类
+     **/
+    @Parameter(property = "fm-swagger.mainClass", required = true)
+    private String mainClass;
+
+    /**
+     * 文档输出目录
+     **/
+    @Parameter(property = "fm-swagger.outputDirectory",
+            defaultValue = "${project.build.outputDirectory}/META-INF/fm-swagger")
+    private File outputDirectory;
+
+    /**
+     * 应用启动参数，例如 --spring.profiles.active=doc
+     **/
+    @Parameter
+    private List<String> arguments = new ArrayList<>();
+
+    /**
+     * 是否跳过文档生成
+     **/
+    @Parameter(property = "fm-swagger.skip", defaultValue = "false")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping swagger specification generation");
+            return;
+        }
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(runtimeClasspath(), ClassLoader.getSystemClassLoader().getParent())) {
+            thread.setContextClassLoader(classLoader);
+            Method export = classLoader.loadClass(EXPORTER).getMethod("export", String.class, File.class, String[].class);
+            @SuppressWarnings("unchecked")
+            List<String> groups = (List<String>) export.invoke(null, mainClass, outputDirectory, arguments.toArray(new String[0]));
+            getLog().info("Generated swagger specification for group(s) " + groups + " into " + outputDirectory);
+        } catch (ClassNotFoundException e) {
+            throw new MojoExecutionException(EXPORTER + " not found, add fm-swagger-starter to the project dependencies", e);
+        } catch (InvocationTargetException e) {
+            throw new MojoExecutionException("Failed to generate swagger specification", e.getCause());
+        } catch (ReflectiveOperationException | IOException e) {
+            throw new MojoExecutionException("Failed to generate swagger specification", e);
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+
+    private URL[] runtimeClasspath() throws MojoExecutionException {
+        try {
+            List<String> elements = project.getRuntimeClasspathElements();
+            URL[] urls = new URL[elements.size()];
+            for (int i = 0; i < elements.size(); i++) {
+                urls[i] = new File(elements.get(i)).toURI().toURL();
+            }
+            return urls;
+        } catch (DependencyResolutionRequiredException | MalformedURLException e) {
+            throw new MojoExecutionException("Unable to resolve the runtime classpath", e);
+        }
+    }
+}